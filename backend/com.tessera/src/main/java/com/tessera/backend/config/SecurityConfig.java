@@ -1,5 +1,6 @@
 package com.tessera.backend.config;
 
+import com.tessera.backend.security.BoundedPasswordEncoder;
 import com.tessera.backend.security.JwtAuthenticationFilter;
 import com.tessera.backend.security.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +14,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -36,9 +35,23 @@ public class SecurityConfig {
     @Value("${app.cors.allowed-origins:*}")
     private List<String> allowedOrigins;
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Value("${tessera.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    // 0: metade dos processadores disponíveis
+    @Value("${tessera.security.bcrypt.threads:0}")
+    private int bcryptThreads;
+
+    @Value("${tessera.security.bcrypt.queue-capacity:200}")
+    private int bcryptQueueCapacity;
+
+    @Value("${tessera.security.bcrypt.queue-timeout-ms:5000}")
+    private long bcryptQueueTimeoutMs;
+
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder() {
+        int threads = bcryptThreads > 0 ? bcryptThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(bcryptStrength, threads, bcryptQueueCapacity, bcryptQueueTimeoutMs);
     }
 
     @Bean
@@ -46,6 +59,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Refaz o hash no login quando o custo configurado muda
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -37,8 +37,8 @@ public class WebSocketAuthChannelInterceptor implements ChannelInterceptor {
                     token = token.substring(7);
                 }
                 
-                if (tokenProvider.validateToken(token)) {
-                    Authentication auth = tokenProvider.getAuthentication(token);
+                Authentication auth = tokenProvider.authenticate(token);
+                if (auth != null) {
                     SecurityContextHolder.getContext().setAuthentication(auth);
                     accessor.setUser(auth);
                 }
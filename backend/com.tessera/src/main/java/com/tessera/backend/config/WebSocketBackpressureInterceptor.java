@@ -0,0 +1,142 @@
+package com.tessera.backend.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+/**
+ * Controle de fila por sessão no canal de saída do WebSocket.
+ *
+ * Conta as mensagens de cada sessão que ainda aguardam o executor de saída. Quando a sessão
+ * está atrasada além de {@code tessera.websocket.low-priority-drop-depth}, frames de baixa
+ * prioridade (presença e cursores, que são substituídos pelo próximo frame) são descartados
+ * em vez de enfileirados. Notificações e operações de edição nunca são descartadas aqui; o
+ * cliente que não as consome a tempo é desconectado pelos limites de envio do transporte.
+ */
+@Component
+public class WebSocketBackpressureInterceptor implements ExecutorChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketBackpressureInterceptor.class);
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, AtomicInteger> depths = new ConcurrentHashMap<>();
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong slowConsumersDisconnected = new AtomicLong();
+    private final AtomicInteger peakDepth = new AtomicInteger();
+
+    @Value("${tessera.websocket.low-priority-drop-depth:32}")
+    private int lowPriorityDropDepth;
+
+    @Value("${tessera.websocket.low-priority-destinations:/topic/documents/*/editors,/topic/documents/*/cursors}")
+    private String[] lowPriorityDestinations;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        if (isLowPriority(message)) {
+            AtomicInteger depth = depths.get(sessionId);
+            if (depth != null && depth.get() >= lowPriorityDropDepth) {
+                dropped.incrementAndGet();
+                return null;
+            }
+        }
+        // Entradas só existem enquanto a sessão tem mensagens pendentes
+        int current = depths.compute(sessionId, (id, depth) -> {
+            AtomicInteger result = depth != null ? depth : new AtomicInteger();
+            result.incrementAndGet();
+            return result;
+        }).get();
+        peakDepth.accumulateAndGet(current, Math::max);
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(@NonNull Message<?> message, @NonNull MessageChannel channel, boolean sent,
+                                    Exception ex) {
+        // Rejeitada pelo executor (fila cheia): não chegará a afterMessageHandled
+        if (!sent || ex != null) {
+            release(message);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                    @NonNull MessageHandler handler, Exception ex) {
+        release(message);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        depths.remove(event.getSessionId());
+        if (CloseStatus.SESSION_NOT_RELIABLE.equals(event.getCloseStatus())) {
+            slowConsumersDisconnected.incrementAndGet();
+            logger.warn("Sessão WebSocket {} desconectada por não consumir mensagens a tempo", event.getSessionId());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Integer> backlog = new LinkedHashMap<>();
+        int maxDepth = 0;
+        for (Map.Entry<String, AtomicInteger> entry : depths.entrySet()) {
+            int depth = entry.getValue().get();
+            maxDepth = Math.max(maxDepth, depth);
+            if (backlog.size() < 20) {
+                backlog.put(entry.getKey(), depth);
+            }
+        }
+        stats.put("sessionsWithBacklog", depths.size());
+        stats.put("maxQueueDepth", maxDepth);
+        stats.put("peakQueueDepth", peakDepth.get());
+        stats.put("sessionQueueDepths", backlog);
+        stats.put("lowPriorityDropped", dropped.get());
+        stats.put("slowConsumersDisconnected", slowConsumersDisconnected.get());
+        return stats;
+    }
+
+    int getDepth(String sessionId) {
+        AtomicInteger depth = depths.get(sessionId);
+        return depth != null ? depth.get() : 0;
+    }
+
+    private void release(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            depths.computeIfPresent(sessionId, (id, depth) -> depth.decrementAndGet() > 0 ? depth : null);
+        }
+    }
+
+    private boolean isLowPriority(Message<?> message) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return false;
+        }
+        for (String pattern : lowPriorityDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,12 +2,14 @@
 package com.tessera.backend.config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -16,6 +18,35 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private WebSocketAuthChannelInterceptor webSocketAuthChannelInterceptor; // This should be the separate class
 
+    @Autowired
+    private WebSocketBackpressureInterceptor webSocketBackpressureInterceptor;
+
+    // Um cliente lento acumula no máximo send-buffer-size-limit bytes; acima disso, ou se um
+    // envio demorar mais que send-time-limit-ms, a sessão é encerrada
+    @Value("${tessera.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${tessera.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${tessera.websocket.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${tessera.websocket.sockjs.http-message-cache-size:100}")
+    private int httpMessageCacheSize;
+
+    @Value("${tessera.websocket.inbound.pool-size:8}")
+    private int inboundPoolSize;
+
+    @Value("${tessera.websocket.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${tessera.websocket.outbound.pool-size:8}")
+    private int outboundPoolSize;
+
+    @Value("${tessera.websocket.outbound.queue-capacity:5000}")
+    private int outboundQueueCapacity;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/user"); // "/user" for user-specific messages
@@ -27,11 +58,32 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws") // Main WebSocket endpoint
                 .setAllowedOriginPatterns("*") // Allow all origins for development, restrict in production
-                .withSockJS(); // Use SockJS for fallback options
+                .withSockJS() // Use SockJS for fallback options
+                .setHttpMessageCacheSize(httpMessageCacheSize);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(webSocketAuthChannelInterceptor);
+        registration.taskExecutor()
+                .corePoolSize(inboundPoolSize)
+                .maxPoolSize(inboundPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(webSocketBackpressureInterceptor);
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize)
+                .queueCapacity(outboundQueueCapacity);
     }
 }
\ No newline at end of file
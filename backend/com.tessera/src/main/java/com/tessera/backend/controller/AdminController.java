@@ -6,15 +6,16 @@ import com.tessera.backend.dto.RegistrationRejectionDTO;
 import com.tessera.backend.dto.UserStatusUpdateDTO;
 import com.tessera.backend.entity.RegistrationRequest;
 import com.tessera.backend.entity.User;
-import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.CurrentUser;
 import com.tessera.backend.service.AdminService;
+import com.tessera.backend.service.VersionStorageMigrationJob;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -26,7 +27,7 @@ public class AdminController {
     private AdminService adminService;
 
     @Autowired
-    private UserRepository userRepository;
+    private VersionStorageMigrationJob versionStorageMigrationJob;
 
     @GetMapping("/registrations")
     public ResponseEntity<Page<RegistrationRequest>> getPendingRegistrations(Pageable pageable) {
@@ -42,10 +43,7 @@ public class AdminController {
     public ResponseEntity<?> approveRegistration(
             @PathVariable Long id,
             @Valid @RequestBody RegistrationApprovalDTO approvalDTO,
-            Authentication authentication) {
-
-        User admin = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+            @CurrentUser User admin) {
 
         adminService.approveRegistration(id, admin, approvalDTO);
         return ResponseEntity.ok().body("Solicitação aprovada com sucesso");
@@ -55,10 +53,7 @@ public class AdminController {
     public ResponseEntity<?> rejectRegistration(
             @PathVariable Long id,
             @Valid @RequestBody RegistrationRejectionDTO rejectionDTO,
-            Authentication authentication) {
-
-        User admin = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+            @CurrentUser User admin) {
 
         adminService.rejectRegistration(id, admin, rejectionDTO);
         return ResponseEntity.ok().body("Solicitação rejeitada");
@@ -82,12 +77,19 @@ public class AdminController {
     public ResponseEntity<?> updateUserStatus(
             @PathVariable Long id,
             @Valid @RequestBody UserStatusUpdateDTO statusUpdateDTO,
-            Authentication authentication) {
-
-        User admin = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+            @CurrentUser User admin) {
 
         adminService.updateUserStatus(id, admin, statusUpdateDTO);
         return ResponseEntity.ok().body("Status do usuário atualizado com sucesso");
     }
-}
\ No newline at end of file
+
+    // Migra versões antigas para o armazenamento em cadeia de deltas
+    @PostMapping("/maintenance/versions/compact")
+    public ResponseEntity<?> compactVersionStorage() {
+        if (versionStorageMigrationJob.isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Migração já está em andamento");
+        }
+        versionStorageMigrationJob.run();
+        return ResponseEntity.accepted().body("Migração do armazenamento de versões iniciada");
+    }
+}
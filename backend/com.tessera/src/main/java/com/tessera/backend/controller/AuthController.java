@@ -9,6 +9,7 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -33,4 +34,12 @@ public class AuthController {
         LoginResponseDTO loginResponse = authService.authenticateUser(loginRequest);
         return ResponseEntity.ok(loginResponse);
     }
+    
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(Authentication authentication) {
+        if (authentication != null && authentication.getCredentials() instanceof String token) {
+            authService.logout(token);
+        }
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,98 @@
+package com.tessera.backend.controller;
+
+import java.security.Principal;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import com.tessera.backend.dto.AutosaveDTO;
+import com.tessera.backend.dto.AutosaveStatusDTO;
+import com.tessera.backend.dto.CollaborativeSnapshotDTO;
+import com.tessera.backend.dto.DocumentOperationDTO;
+import com.tessera.backend.exception.DraftOutOfSyncException;
+import com.tessera.backend.exception.PermissionDeniedException;
+import com.tessera.backend.service.AutosaveService;
+import com.tessera.backend.service.CollaborativeEditingService;
+import com.tessera.backend.service.CursorService;
+
+@Controller
+public class CollaborativeEditingController {
+
+    @Autowired
+    private CollaborativeEditingService collaborativeEditingService;
+
+    @Autowired
+    private CursorService cursorService;
+
+    @Autowired
+    private AutosaveService autosaveService;
+
+    // Entra na sessão e recebe o texto atual com a revisão correspondente
+    @MessageMapping("/documents/{documentId}/sync")
+    @SendToUser("/queue/documents/sync")
+    public CollaborativeSnapshotDTO sync(@DestinationVariable Long documentId, Principal principal) {
+        return collaborativeEditingService.join(documentId, username(principal));
+    }
+
+    @MessageMapping("/documents/{documentId}/ops")
+    public void applyOperation(@DestinationVariable Long documentId, @Payload DocumentOperationDTO message,
+                               Principal principal) {
+        collaborativeEditingService.applyOperation(documentId, username(principal), message);
+    }
+
+    // Posição do cursor como [âncora, cabeça]; repassada de forma agrupada em /topic/documents/{id}/cursors
+    @MessageMapping("/documents/{documentId}/cursor")
+    public void updateCursor(@DestinationVariable Long documentId, @Payload int[] position, Principal principal) {
+        cursorService.update(documentId, username(principal), position);
+    }
+
+    @MessageMapping("/documents/{documentId}/cursors/users")
+    @SendToUser("/queue/documents/cursors/users")
+    public Map<Integer, Long> getCursorUsers(@DestinationVariable Long documentId, Principal principal) {
+        return cursorService.getUsers(documentId, username(principal));
+    }
+
+    // Rascunho do editor: fica em memória e é gravado como versão de forma adiada
+    @MessageMapping("/documents/{documentId}/autosave")
+    public void autosave(@DestinationVariable Long documentId, @Payload AutosaveDTO message, Principal principal) {
+        autosaveService.update(documentId, username(principal), message);
+    }
+
+    @MessageMapping("/documents/{documentId}/autosave/commit")
+    @SendToUser("/queue/documents/autosave")
+    public AutosaveStatusDTO commitAutosave(@DestinationVariable Long documentId, @Payload AutosaveDTO message,
+                                            Principal principal) {
+        String username = username(principal);
+        if (message.getContent() != null || message.getPatch() != null) {
+            autosaveService.update(documentId, username, message);
+        }
+        return autosaveService.commit(documentId, username, message.getCommitMessage());
+    }
+
+    // Rascunho fora de sincronia: leva a última sequência aceita para o cliente reenviar o conteúdo
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, Object> handleDraftOutOfSync(DraftOutOfSyncException e) {
+        return Map.of("error", e.getMessage(), "documentId", e.getDocumentId(), "sequence", e.getSequence());
+    }
+
+    // Erros de edição voltam apenas para o cliente que enviou a mensagem
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public Map<String, String> handleError(RuntimeException e) {
+        return Map.of("error", e.getMessage() != null ? e.getMessage() : "Erro na edição colaborativa");
+    }
+
+    private String username(Principal principal) {
+        if (principal == null) {
+            throw new PermissionDeniedException("Autenticação necessária para editar o documento");
+        }
+        return principal.getName();
+    }
+}
@@ -7,7 +7,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -20,9 +19,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.tessera.backend.dto.CommentDTO;
 import com.tessera.backend.entity.User;
-import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.CurrentUser;
 import com.tessera.backend.service.CommentService;
-import com.tessera.backend.exception.ResourceNotFoundException;
 
 import jakarta.validation.Valid;
 
@@ -33,15 +31,11 @@ public class CommentController {
     @Autowired
     private CommentService commentService;
     
-    @Autowired
-    private UserRepository userRepository;
     
     @PostMapping
     public ResponseEntity<CommentDTO> createComment(
             @Valid @RequestBody CommentDTO commentDTO,
-            Authentication authentication) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+            @CurrentUser User currentUser) {
         
         CommentDTO createdComment = commentService.createComment(commentDTO, currentUser);
         return new ResponseEntity<>(createdComment, HttpStatus.CREATED);
@@ -66,10 +60,8 @@ public class CommentController {
     
     @GetMapping("/my")
     public ResponseEntity<Page<CommentDTO>> getMyComments(
-            Authentication authentication,
+            @CurrentUser User currentUser,
             Pageable pageable) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
         
         return ResponseEntity.ok(commentService.getCommentsByUser(currentUser, pageable));
     }
@@ -86,9 +78,7 @@ public class CommentController {
     public ResponseEntity<CommentDTO> updateComment(
             @PathVariable Long id,
             @Valid @RequestBody CommentDTO commentDTO,
-            Authentication authentication) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+            @CurrentUser User currentUser) {
         
         return ResponseEntity.ok(commentService.updateComment(id, commentDTO, currentUser));
     }
@@ -96,9 +86,7 @@ public class CommentController {
     @PutMapping("/{id}/resolve")
     public ResponseEntity<CommentDTO> resolveComment(
             @PathVariable Long id,
-            Authentication authentication) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+            @CurrentUser User currentUser) {
         
         return ResponseEntity.ok(commentService.resolveComment(id, currentUser));
     }
@@ -106,9 +94,7 @@ public class CommentController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteComment(
             @PathVariable Long id,
-            Authentication authentication) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+            @CurrentUser User currentUser) {
         
         commentService.deleteComment(id, currentUser);
         return ResponseEntity.noContent().build();
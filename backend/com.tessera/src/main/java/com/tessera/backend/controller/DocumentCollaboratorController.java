@@ -6,7 +6,7 @@ import com.tessera.backend.dto.AddCollaboratorsRequestDTO;
 import com.tessera.backend.entity.CollaboratorPermission;
 import com.tessera.backend.entity.CollaboratorRole;
 import com.tessera.backend.entity.User;
-import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.CurrentUser;
 import com.tessera.backend.service.DocumentCollaboratorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -17,7 +17,6 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -30,13 +29,7 @@ public class DocumentCollaboratorController {
     @Autowired
     private DocumentCollaboratorService collaboratorService;
     
-    @Autowired
-    private UserRepository userRepository;
 
-    private User getCurrentUser(Authentication authentication) {
-        return userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário não autenticado"));
-    }
     
     @GetMapping
     @Operation(summary = "Listar colaboradores", description = "Lista todos os colaboradores ativos de um documento")
@@ -65,8 +58,7 @@ public class DocumentCollaboratorController {
             @PathVariable Long documentId,
             @Parameter(description = "Dados do colaborador a ser adicionado")
             @Valid @RequestBody AddCollaboratorRequestDTO request,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         DocumentCollaboratorDTO collaborator = collaboratorService.addCollaborator(documentId, request, currentUser);
         return new ResponseEntity<>(collaborator, HttpStatus.CREATED);
     }
@@ -84,8 +76,7 @@ public class DocumentCollaboratorController {
             @PathVariable Long documentId,
             @Parameter(description = "Lista de colaboradores a serem adicionados")
             @Valid @RequestBody AddCollaboratorsRequestDTO request,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         List<DocumentCollaboratorDTO> collaborators = collaboratorService.addCollaborators(documentId, request.getCollaborators(), currentUser);
         return new ResponseEntity<>(collaborators, HttpStatus.CREATED);
     }
@@ -103,8 +94,7 @@ public class DocumentCollaboratorController {
             @PathVariable Long documentId,
             @Parameter(description = "ID do colaborador") 
             @PathVariable Long collaboratorId,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         collaboratorService.removeCollaborator(documentId, collaboratorId, currentUser);
         return ResponseEntity.noContent().build();
     }
@@ -124,8 +114,7 @@ public class DocumentCollaboratorController {
             @PathVariable Long collaboratorId,
             @Parameter(description = "Nova permissão") 
             @RequestBody CollaboratorPermission newPermission,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         DocumentCollaboratorDTO updatedCollaborator = collaboratorService.updateCollaboratorPermissions(
                 collaboratorId, newPermission, currentUser);
         return ResponseEntity.ok(updatedCollaborator);
@@ -146,8 +135,7 @@ public class DocumentCollaboratorController {
             @PathVariable Long collaboratorId,
             @Parameter(description = "Novo papel") 
             @RequestBody CollaboratorRole newRole,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         DocumentCollaboratorDTO updatedCollaborator = collaboratorService.updateCollaboratorRole(
                 collaboratorId, newRole, currentUser);
         return ResponseEntity.ok(updatedCollaborator);
@@ -166,8 +154,7 @@ public class DocumentCollaboratorController {
             @PathVariable Long documentId,
             @Parameter(description = "ID do colaborador") 
             @PathVariable Long collaboratorId,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         DocumentCollaboratorDTO promotedCollaborator = collaboratorService.promoteToPrimary(
                 collaboratorId, currentUser);
         return ResponseEntity.ok(promotedCollaborator);
@@ -4,7 +4,7 @@ import com.tessera.backend.dto.DocumentDTO;
 import com.tessera.backend.dto.DocumentDetailDTO;
 import com.tessera.backend.entity.DocumentStatus;
 import com.tessera.backend.entity.User;
-import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.CurrentUser;
 import com.tessera.backend.service.DocumentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,7 +19,6 @@ import org.springframework.data.domain.Sort; // Importar Sort
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.access.prepost.PreAuthorize; // Para controle de acesso mais fino se necessário
 import org.springframework.web.bind.annotation.*;
 
@@ -31,17 +30,6 @@ public class DocumentController {
     @Autowired
     private DocumentService documentService;
     
-    @Autowired
-    private UserRepository userRepository;
-
-    private User getCurrentUser(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new RuntimeException("Usuário não autenticado.");
-        }
-        return userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário autenticado não encontrado no banco de dados."));
-    }
-    
     @PostMapping
     @PreAuthorize("hasRole('STUDENT') or hasRole('ADMIN')") // Apenas estudantes ou admins podem criar documentos
     @Operation(summary = "Criar novo documento", description = "Cria um novo documento acadêmico. Estudantes só podem criar para si mesmos, admins podem especificar o estudante.")
@@ -54,8 +42,7 @@ public class DocumentController {
     public ResponseEntity<DocumentDTO> createDocument(
             @Parameter(description = "Dados do documento a ser criado (inclui advisorId opcional)")
             @Valid @RequestBody DocumentDTO documentDTO,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         DocumentDTO createdDocument = documentService.createDocument(documentDTO, currentUser);
         return new ResponseEntity<>(createdDocument, HttpStatus.CREATED);
     }
@@ -83,8 +70,7 @@ public class DocumentController {
     public ResponseEntity<DocumentDetailDTO> getDocumentById( // Renomeado para evitar conflito com get() do Spring Data
             @Parameter(description = "ID do documento")
             @PathVariable Long id,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         return ResponseEntity.ok(documentService.getDocumentDetail(id, currentUser));
     }
     
@@ -96,14 +82,13 @@ public class DocumentController {
         @ApiResponse(responseCode = "200", description = "Lista de documentos retornada com sucesso")
     })
     public ResponseEntity<Page<DocumentDTO>> getMyStudentDocuments( // Renomeado para clareza
-            Authentication authentication,
+            @CurrentUser User currentUser,
             @Parameter(description = "Termo de busca (título ou descrição)") 
             @RequestParam(required = false) String searchTerm,
             @Parameter(description = "Filtro por status (ALL, DRAFT, SUBMITTED, REVISION, APPROVED, FINALIZED)") 
             @RequestParam(required = false, defaultValue = "ALL") String status,
             @Parameter(description = "Parâmetros de paginação e ordenação") 
             @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable) { // CORRIGIDO AQUI
-        User currentUser = getCurrentUser(authentication);
         // documentService.getDocumentsByStudentWithFilters foi atualizado para usar colaborador
         return ResponseEntity.ok(documentService.getDocumentsByCollaborator(currentUser, searchTerm, status, pageable));
     }
@@ -113,13 +98,12 @@ public class DocumentController {
     @Operation(summary = "Listar documentos do orientador", 
                description = "Retorna documentos orientados pelo usuário atual (onde ele é colaborador orientador) com filtros e paginação.")
     public ResponseEntity<Page<DocumentDTO>> getMyAdvisingDocuments(
-            Authentication authentication,
+            @CurrentUser User currentUser,
             @Parameter(description = "Termo de busca (título, descrição ou nome do estudante)") 
             @RequestParam(required = false) String searchTerm,
             @Parameter(description = "Filtro por status") 
             @RequestParam(required = false, defaultValue = "ALL") String status,
             @PageableDefault(sort = "updatedAt", direction = Sort.Direction.DESC) Pageable pageable) { // CORRIGIDO AQUI
-        User currentUser = getCurrentUser(authentication);
         // documentService.getDocumentsByAdvisorWithFilters foi atualizado para usar colaborador
         return ResponseEntity.ok(documentService.getDocumentsByCollaborator(currentUser, searchTerm, status, pageable));
     }
@@ -137,8 +121,7 @@ public class DocumentController {
             @PathVariable Long id,
             @Parameter(description = "Novos dados do documento (título, descrição, advisorId)") 
             @Valid @RequestBody DocumentDTO documentDTO, // O DTO pode ser um específico para update, e.g., UpdateDocumentInfoDTO
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         return ResponseEntity.ok(documentService.updateDocument(id, documentDTO, currentUser));
     }
     
@@ -159,8 +142,7 @@ public class DocumentController {
             @PathVariable("newStatusValue") DocumentStatus newStatus, // Recebe o enum diretamente
             @Parameter(description = "Motivo da alteração (obrigatório para REVISION, opcional para outros)") 
             @RequestBody(required = false) String reason, // Pode ser um DTO { "reason": "..." }
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         return ResponseEntity.ok(documentService.changeStatus(id, newStatus, currentUser, reason));
     }
     
@@ -177,8 +159,7 @@ public class DocumentController {
     public ResponseEntity<Void> deleteDocument(
             @Parameter(description = "ID do documento") 
             @PathVariable Long id,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         documentService.deleteDocument(id, currentUser);
         return ResponseEntity.noContent().build();
     }
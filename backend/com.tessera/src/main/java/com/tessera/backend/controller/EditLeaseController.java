@@ -0,0 +1,45 @@
+package com.tessera.backend.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tessera.backend.dto.EditLeaseDTO;
+import com.tessera.backend.entity.User;
+import com.tessera.backend.security.CurrentUser;
+import com.tessera.backend.service.EditLeaseService;
+
+@RestController
+@RequestMapping("/documents/{documentId}/lease")
+public class EditLeaseController {
+
+    @Autowired
+    private EditLeaseService editLeaseService;
+
+    // 409 se outro usuário detém a reserva
+    @PostMapping
+    public ResponseEntity<EditLeaseDTO> acquire(@PathVariable Long documentId, @CurrentUser User currentUser) {
+        return ResponseEntity.ok(editLeaseService.acquire(documentId, currentUser));
+    }
+
+    // 409 se a reserva foi perdida: o cliente deve reservar de novo e recarregar a versão mais recente
+    @PutMapping
+    public ResponseEntity<EditLeaseDTO> renew(@PathVariable Long documentId, @RequestParam long token,
+                                              @CurrentUser User currentUser) {
+        return ResponseEntity.ok(editLeaseService.renew(documentId, currentUser, token));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> release(@PathVariable Long documentId, @RequestParam long token,
+                                        @CurrentUser User currentUser) {
+        editLeaseService.release(documentId, currentUser, token);
+        return ResponseEntity.noContent().build();
+    }
+
+}
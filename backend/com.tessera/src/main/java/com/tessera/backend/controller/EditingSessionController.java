@@ -37,6 +37,18 @@ public class EditingSessionController {
         }
     }
 
+    // Renova a presença sem consultar o banco nem reenviar a lista de editores
+    @MessageMapping("/editing/heartbeat")
+    public void heartbeat(@Payload EditingSessionDTO message, Principal principal) {
+        if (message.getDocumentId() == null || principal == null) {
+            return;
+        }
+        if (!editingSessionService.heartbeat(message.getDocumentId(), principal.getName())) {
+            // Sessão expirada (ex.: conexão suspensa): entra novamente
+            joinEditing(message, principal);
+        }
+    }
+
     private User getCurrentUser(Principal principal) {
         if (principal == null) return null;
         return userRepository.findByEmail(principal.getName()).orElse(null);
@@ -1,17 +1,86 @@
 package com.tessera.backend.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+
+import com.tessera.backend.config.WebSocketBackpressureInterceptor;
+import com.tessera.backend.security.BoundedPasswordEncoder;
+import com.tessera.backend.security.CurrentUserArgumentResolver;
+import com.tessera.backend.security.JwtTokenProvider;
+import com.tessera.backend.security.TokenRevocationService;
+import com.tessera.backend.service.AutosaveService;
+import com.tessera.backend.service.CollaborativeEditingService;
+import com.tessera.backend.service.CursorService;
+import com.tessera.backend.service.DocumentAclIndex;
+import com.tessera.backend.service.EditLeaseService;
+import com.tessera.backend.service.PresenceBroadcaster;
+import com.tessera.backend.service.VersionDiffCache;
+import com.tessera.backend.service.VersionDiffDispatcher;
+import com.tessera.backend.service.VersionStorageService;
+import com.tessera.backend.util.DiffUtils;
+
 @RestController
 @RequestMapping("/metrics")
 public class MetricsController {
     
+    @Autowired
+    private VersionDiffCache versionDiffCache;
+    
+    @Autowired
+    private VersionStorageService versionStorageService;
+    
+    @Autowired
+    private DiffUtils diffUtils;
+    
+    @Autowired
+    private VersionDiffDispatcher versionDiffDispatcher;
+    
+    @Autowired
+    private CollaborativeEditingService collaborativeEditingService;
+    
+    @Autowired
+    private PresenceBroadcaster presenceBroadcaster;
+    
+    @Autowired
+    private CursorService cursorService;
+    
+    @Autowired
+    private AutosaveService autosaveService;
+    
+    @Autowired
+    private EditLeaseService editLeaseService;
+    
+    @Autowired
+    private WebSocketBackpressureInterceptor webSocketBackpressureInterceptor;
+    
+    @Autowired
+    private WebSocketMessageBrokerStats webSocketMessageBrokerStats;
+    
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    
+    @Autowired
+    private CurrentUserArgumentResolver currentUserArgumentResolver;
+
+    @Autowired
+    private DocumentAclIndex documentAclIndex;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> getHealthMetrics() {
         Map<String, Object> metrics = new HashMap<>();
@@ -41,4 +110,57 @@ public class MetricsController {
         
         return ResponseEntity.ok(metrics);
     }
-}
\ No newline at end of file
+    
+    @GetMapping("/caches")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("versionDiffs", versionDiffCache.stats());
+        metrics.put("versionSnapshots", versionStorageService.snapshotCacheStats());
+        metrics.put("verifiedTokens", jwtTokenProvider.tokenCacheStats());
+        metrics.put("currentUsers", currentUserArgumentResolver.stats());
+        metrics.put("documentAcl", documentAclIndex.stats());
+        
+        return ResponseEntity.ok(metrics);
+    }
+    
+    @GetMapping("/auth")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAuthMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("passwordHashing", passwordEncoder.stats());
+        metrics.put("tokenRevocation", tokenRevocationService.stats());
+        
+        return ResponseEntity.ok(metrics);
+    }
+    
+    @GetMapping("/diff")
+    public ResponseEntity<Map<String, Object>> getDiffMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(diffUtils.stats());
+        metrics.put("versionDiffQueue", versionDiffDispatcher.stats());
+        
+        return ResponseEntity.ok(metrics);
+    }
+    
+    @GetMapping("/collab")
+    public ResponseEntity<Map<String, Object>> getCollaborationMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(collaborativeEditingService.stats());
+        metrics.put("presence", presenceBroadcaster.stats());
+        metrics.put("cursors", cursorService.stats());
+        metrics.put("autosave", autosaveService.stats());
+        metrics.put("editLeases", editLeaseService.stats());
+        
+        return ResponseEntity.ok(metrics);
+    }
+    
+    @GetMapping("/websocket")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getWebSocketMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(webSocketBackpressureInterceptor.stats());
+        metrics.put("sessions", webSocketMessageBrokerStats.getWebSocketSessionStatsInfo());
+        metrics.put("inboundExecutor", webSocketMessageBrokerStats.getClientInboundExecutorStatsInfo());
+        metrics.put("outboundExecutor", webSocketMessageBrokerStats.getClientOutboundExecutorStatsInfo());
+        
+        return ResponseEntity.ok(metrics);
+    }
+}
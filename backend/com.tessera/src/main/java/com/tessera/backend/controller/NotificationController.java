@@ -5,7 +5,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -18,7 +17,7 @@ import com.tessera.backend.dto.NotificationSettingsDTO;
 import com.tessera.backend.dto.NotificationSummaryDTO;
 import com.tessera.backend.entity.User;
 import com.tessera.backend.entity.UserNotificationSettings;
-import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.CurrentUser;
 import com.tessera.backend.service.NotificationService;
 import jakarta.validation.Valid;
 
@@ -29,21 +28,16 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     // Buscar resumo das notificações
     @GetMapping("/summary")
-    public ResponseEntity<NotificationSummaryDTO> getNotificationSummary(Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+    public ResponseEntity<NotificationSummaryDTO> getNotificationSummary(@CurrentUser User currentUser) {
         NotificationSummaryDTO summary = notificationService.getNotificationSummary(currentUser);
         return ResponseEntity.ok(summary);
     }
 
     // Buscar notificações não lidas
     @GetMapping("/unread")
-    public ResponseEntity<List<NotificationDTO>> getUnreadNotifications(Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+    public ResponseEntity<List<NotificationDTO>> getUnreadNotifications(@CurrentUser User currentUser) {
         List<NotificationDTO> notifications = notificationService.getUnreadNotifications(currentUser);
         return ResponseEntity.ok(notifications);
     }
@@ -51,9 +45,8 @@ public class NotificationController {
     // Buscar todas as notificações com paginação
     @GetMapping
     public ResponseEntity<Page<NotificationDTO>> getAllNotifications(
-            Authentication authentication, 
+            @CurrentUser User currentUser, 
             Pageable pageable) {
-        User currentUser = getCurrentUser(authentication);
         Page<NotificationDTO> notifications = notificationService.getAllNotifications(currentUser, pageable);
         return ResponseEntity.ok(notifications);
     }
@@ -62,16 +55,14 @@ public class NotificationController {
     @PutMapping("/{id}/read")
     public ResponseEntity<Void> markAsRead(
             @PathVariable Long id, 
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         notificationService.markAsRead(id, currentUser);
         return ResponseEntity.ok().build();
     }
 
     // Marcar todas as notificações como lidas
     @PutMapping("/read-all")
-    public ResponseEntity<Void> markAllAsRead(Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+    public ResponseEntity<Void> markAllAsRead(@CurrentUser User currentUser) {
         notificationService.markAllAsRead(currentUser);
         return ResponseEntity.ok().build();
     }
@@ -80,16 +71,14 @@ public class NotificationController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteNotification(
             @PathVariable Long id, 
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         notificationService.deleteNotification(id, currentUser);
         return ResponseEntity.ok().build();
     }
 
     // Configurações de notificação
     @GetMapping("/settings")
-    public ResponseEntity<NotificationSettingsDTO> getNotificationSettings(Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+    public ResponseEntity<NotificationSettingsDTO> getNotificationSettings(@CurrentUser User currentUser) {
         NotificationSettingsDTO dto = notificationService.getUserNotificationSettings(currentUser);
         return ResponseEntity.ok(dto);
     }
@@ -97,8 +86,7 @@ public class NotificationController {
     @PutMapping("/settings")
     public ResponseEntity<NotificationSettingsDTO> updateNotificationSettings(
             @Valid @RequestBody NotificationSettingsDTO settingsDTO,
-            Authentication authentication) {
-        User currentUser = getCurrentUser(authentication);
+            @CurrentUser User currentUser) {
         UserNotificationSettings settingsEntity = mapDTOToSettingsEntity(settingsDTO);
         settingsEntity.setUser(currentUser);
         
@@ -108,10 +96,6 @@ public class NotificationController {
     }
 
     // Métodos auxiliares
-    private User getCurrentUser(Authentication authentication) {
-        return userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
-    }
 
     // Mapper de DTO para Entidade UserNotificationSettings
     private UserNotificationSettings mapDTOToSettingsEntity(NotificationSettingsDTO dto) {
@@ -6,6 +6,7 @@ import com.tessera.backend.dto.UserSelectionDTO;
 import com.tessera.backend.entity.User;
 import com.tessera.backend.entity.UserStatus;
 import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.CurrentUser;
 import com.tessera.backend.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -101,11 +102,9 @@ public class UserController {
     @GetMapping("/advisor/my-students")
     @PreAuthorize("hasRole('ADVISOR')")
     public ResponseEntity<Page<UserSelectionDTO>> getMyAdvisedStudents(
-            Authentication authentication,
+            @CurrentUser User currentUser,
             @RequestParam(required = false) String search,
             Pageable pageable) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário não autenticado ou não encontrado"));
         Page<UserSelectionDTO> students = userService.getMyAdvisedStudents(currentUser, pageable, search);
         return ResponseEntity.ok(students);
     }
@@ -114,10 +113,8 @@ public class UserController {
     @PostMapping("/profile/change-password")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> changePassword(
-            Authentication authentication,
+            @CurrentUser User currentUser,
             @Valid @RequestBody PasswordChangeDTO passwordChangeDTO) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário não autenticado ou não encontrado"));
         
         userService.changePassword(currentUser, passwordChangeDTO);
         return ResponseEntity.ok().body("Senha alterada com sucesso.");
@@ -1,24 +1,32 @@
 package com.tessera.backend.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.tessera.backend.dto.VersionDTO;
+import com.tessera.backend.dto.VersionHistoryPageDTO;
+import com.tessera.backend.dto.VersionPatchDTO;
 import com.tessera.backend.entity.User;
-import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.CurrentUser;
+import com.tessera.backend.service.VersionContentStream;
 import com.tessera.backend.service.VersionService;
 
 import jakarta.validation.Valid;
@@ -30,27 +38,31 @@ public class VersionController {
     @Autowired
     private VersionService versionService;
     
-    @Autowired
-    private UserRepository userRepository;
 
     @PostMapping
     public ResponseEntity<VersionDTO> createVersion(
             @Valid @RequestBody VersionDTO versionDTO,
-            Authentication authentication) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+            @CurrentUser User currentUser) {
 
         VersionDTO createdVersion = versionService.createVersion(versionDTO, currentUser);
         return new ResponseEntity<>(createdVersion, HttpStatus.CREATED);
     }
 
+    // Nova versão enviada como delta/patch sobre uma versão base; 409 se não puder ser aplicada ou mesclada
+    @PostMapping("/patch")
+    public ResponseEntity<VersionDTO> createVersionFromPatch(
+            @Valid @RequestBody VersionPatchDTO patchDTO,
+            @CurrentUser User currentUser) {
+
+        VersionDTO createdVersion = versionService.createVersionFromPatch(patchDTO, currentUser);
+        return new ResponseEntity<>(createdVersion, HttpStatus.CREATED);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<VersionDTO> updateVersion(
             @PathVariable Long id,
             @Valid @RequestBody VersionDTO versionDTO,
-            Authentication authentication) {
-        User currentUser = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+            @CurrentUser User currentUser) {
 
         return ResponseEntity.ok(versionService.updateVersion(id, versionDTO, currentUser));
     }
@@ -60,6 +72,24 @@ public class VersionController {
         return ResponseEntity.ok(versionService.getVersion(id));
     }
     
+    // Conteúdo HTML da versão, copiado do banco para a resposta em blocos. Se o cliente
+    // aceitar gzip e o conteúdo estiver armazenado compactado, é enviado sem recompressão.
+    @GetMapping("/{id}/content")
+    public ResponseEntity<StreamingResponseBody> getVersionContent(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        VersionContentStream content = versionService.openVersionContent(id);
+        boolean sendGzip = content.isGzip() && acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (sendGzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> content.writeTo(out, sendGzip));
+    }
+    
     @GetMapping("/document/{documentId}")
     public ResponseEntity<List<VersionDTO>> getVersionsByDocument(@PathVariable Long documentId) {
         return ResponseEntity.ok(versionService.getVersionsByDocument(documentId));
@@ -72,6 +102,15 @@ public class VersionController {
         return ResponseEntity.ok(versionService.getVersionsByDocument(documentId, pageable));
     }
     
+    // Histórico resumido (sem conteúdo), paginado por cursor
+    @GetMapping("/document/{documentId}/summaries")
+    public ResponseEntity<VersionHistoryPageDTO> getVersionSummaries(
+            @PathVariable Long documentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(versionService.getVersionSummaries(documentId, cursor, size));
+    }
+    
     @GetMapping("/document/{documentId}/history")
     public ResponseEntity<List<VersionDTO>> getVersionHistory(@PathVariable Long documentId) {
         return ResponseEntity.ok(versionService.getVersionHistory(documentId));
@@ -83,4 +122,13 @@ public class VersionController {
             @PathVariable Long v2Id) {
         return ResponseEntity.ok(versionService.getDiffBetweenVersions(v1Id, v2Id));
     }
+    
+    @GetMapping("/diff/{v1Id}/{v2Id}/html")
+    public ResponseEntity<String> getDiffHtmlBetweenVersions(
+            @PathVariable Long v1Id, 
+            @PathVariable Long v2Id) {
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .body(versionService.getDiffHtmlBetweenVersions(v1Id, v2Id));
+    }
 }
\ No newline at end of file
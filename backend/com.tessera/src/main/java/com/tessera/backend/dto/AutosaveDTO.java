@@ -0,0 +1,39 @@
+package com.tessera.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Atualização de rascunho enviada pelo editor: o conteúdo completo ({@code content}) ou um patch
+ * do diff-match-patch ({@code patch}) sobre o rascunho na sequência {@code baseSequence}, conferido
+ * com {@code contentHash} (SHA-256 em hexadecimal). {@code baseSequence} 0 indica um patch sobre a
+ * versão mais recente do documento. Como um frame STOMP tem no máximo
+ * {@code tessera.websocket.message-size-limit} bytes, documentos grandes devem mandar patches.
+ *
+ * {@code sequence} cresce a cada envio do cliente e recomeça quando muda {@code clientId}, gerado
+ * pelo editor a cada carregamento da página; atualizações fora de ordem são ignoradas. Sem
+ * {@code clientId}, uma sequência já vista é recusada com a última sequência aceita.
+ * {@code leaseToken} é o token da reserva de edição vigente, conferido quando o rascunho é gravado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutosaveDTO {
+
+    private String content;
+
+    private String patch;
+
+    private Long baseSequence;
+
+    private String contentHash;
+
+    private Long sequence;
+
+    private String commitMessage;
+
+    private Long leaseToken;
+
+    private String clientId;
+}
@@ -0,0 +1,23 @@
+package com.tessera.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado da gravação de um rascunho: até qual sequência do cliente o conteúdo foi
+ * salvo e a versão criada (null se não havia alterações pendentes).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutosaveStatusDTO {
+
+    private Long documentId;
+
+    private Long savedSequence;
+
+    private Long versionId;
+
+    private String versionNumber;
+}
@@ -0,0 +1,22 @@
+package com.tessera.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado atual de uma sessão de edição colaborativa, enviado ao cliente que entra na sessão.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollaborativeSnapshotDTO {
+
+    private Long documentId;
+
+    private String sessionId;
+
+    private int revision;
+
+    private String content;
+}
@@ -0,0 +1,31 @@
+package com.tessera.backend.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Operação de edição colaborativa (formato do ot.js).
+ *
+ * Enviada pelo cliente em /app/documents/{id}/ops com a revisão em que foi gerada;
+ * o cliente pode agrupar várias operações consecutivas em {@code operations}. O servidor
+ * retransmite em /topic/documents/{id}/ops a operação transformada, com a nova revisão.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentOperationDTO {
+
+    private String sessionId;
+
+    // Identificador gerado pelo cliente, devolvido na retransmissão como confirmação
+    private String clientId;
+
+    private Integer revision;
+
+    private List<List<Object>> operations;
+
+    private Long userId;
+}
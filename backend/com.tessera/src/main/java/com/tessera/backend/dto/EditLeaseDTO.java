@@ -0,0 +1,23 @@
+package com.tessera.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reserva de edição obtida pelo cliente. O {@code token} deve acompanhar as gravações
+ * (campo leaseToken das versões) e as renovações; {@code expiresAt} é um epoch em milissegundos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EditLeaseDTO {
+
+    private Long documentId;
+
+    private long token;
+
+    private long expiresAt;
+
+    private long ttlMs;
+}
@@ -0,0 +1,30 @@
+package com.tessera.backend.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resposta 409 quando as alterações enviadas não puderam ser mescladas com a versão mais
+ * recente. {@code conflicts} traz, em formato de patch, os trechos não aplicados e
+ * {@code mergedContent} o texto com os demais trechos já aplicados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MergeConflictDTO {
+
+    private String message;
+
+    private Long baseVersionId;
+
+    private Long latestVersionId;
+
+    private String latestVersionNumber;
+
+    private List<String> conflicts;
+
+    private String mergedContent;
+}
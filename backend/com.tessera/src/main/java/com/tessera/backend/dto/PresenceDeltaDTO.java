@@ -0,0 +1,47 @@
+package com.tessera.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mensagem de sincronização de presença entre nós.
+ *
+ * Cada nó numera suas mensagens DELTA em sequência; quem recebe uma sequência fora de ordem
+ * pede um SNAPSHOT com o estado completo daquele nó. Um DELTA sem alterações serve de heartbeat.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceDeltaDTO {
+
+    public enum Type {
+        DELTA,
+        SNAPSHOT,
+        SNAPSHOT_REQUEST
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+        private Long documentId;
+        private Long userId;
+        private String userName;
+        private boolean joined;
+    }
+
+    private String nodeId;
+
+    private long sequence;
+
+    private Type type;
+
+    // Nó que deve responder a um SNAPSHOT_REQUEST
+    private String targetNodeId;
+
+    private List<Change> changes = new ArrayList<>();
+}
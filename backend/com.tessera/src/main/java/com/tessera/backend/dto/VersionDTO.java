@@ -2,6 +2,8 @@ package com.tessera.backend.dto;
 
 import java.time.LocalDateTime;
 
+import com.tessera.backend.entity.DiffStatus;
+
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -22,11 +24,26 @@ public class VersionDTO {
     
     private String commitMessage;
     
+    // Versão a partir da qual o cliente editou; se não for a mais recente, as alterações são mescladas
+    private Long baseVersionId;
+    
+    // Token da reserva de edição (POST /documents/{id}/lease); gravações com token antigo são recusadas
+    private Long leaseToken;
+    
     @NotBlank(message = "Conteúdo é obrigatório")
     private String content;
     
     private String diffFromPrevious;
     
+    private DiffStatus diffStatus;
+    
+    private Integer charsAdded;
+    
+    private Integer charsRemoved;
+    
+    // SHA-256 do conteúdo, usado como referência no envio de patches
+    private String contentHash;
+    
     private Long createdById;
     
     private String createdByName;
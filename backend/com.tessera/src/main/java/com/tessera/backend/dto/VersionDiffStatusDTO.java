@@ -0,0 +1,26 @@
+package com.tessera.backend.dto;
+
+import com.tessera.backend.entity.DiffStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento enviado em /topic/documents/{id}/versions quando o diff de uma versão fica pronto.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionDiffStatusDTO {
+
+    private Long versionId;
+
+    private Long documentId;
+
+    private DiffStatus diffStatus;
+
+    private Integer charsAdded;
+
+    private Integer charsRemoved;
+}
@@ -0,0 +1,20 @@
+package com.tessera.backend.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Página do histórico de versões. {@code nextCursor} é nulo na última página.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionHistoryPageDTO {
+
+    private List<VersionSummaryDTO> items;
+
+    private String nextCursor;
+}
@@ -0,0 +1,36 @@
+package com.tessera.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nova versão enviada como alteração sobre uma versão base: um delta do diff-match-patch
+ * ({@code delta}) ou uma lista de patches em formato texto ({@code patch}). O servidor
+ * reconstrói o conteúdo e o confere com {@code contentHash} (SHA-256 em hexadecimal).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionPatchDTO {
+
+    @NotNull(message = "ID do documento é obrigatório")
+    private Long documentId;
+
+    @NotNull(message = "Versão base é obrigatória")
+    private Long baseVersionId;
+
+    private String delta;
+
+    private String patch;
+
+    @NotBlank(message = "Hash do conteúdo é obrigatório")
+    private String contentHash;
+
+    private String commitMessage;
+
+    // Token da reserva de edição, conferido como em VersionDTO
+    private Long leaseToken;
+}
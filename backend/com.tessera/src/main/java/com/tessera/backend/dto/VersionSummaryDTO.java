@@ -0,0 +1,58 @@
+package com.tessera.backend.dto;
+
+import java.time.LocalDateTime;
+
+import com.tessera.backend.entity.DiffStatus;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resumo de uma versão para o histórico, sem o conteúdo nem o diff.
+ */
+@Data
+@NoArgsConstructor
+public class VersionSummaryDTO {
+
+    private Long id;
+
+    private Long documentId;
+
+    private String versionNumber;
+
+    private String commitMessage;
+
+    private Long createdById;
+
+    private String createdByName;
+
+    private LocalDateTime createdAt;
+
+    private DiffStatus diffStatus;
+
+    private Integer charsAdded;
+
+    private Integer charsRemoved;
+
+    // Tamanho em caracteres do diff em relação à versão anterior
+    private Integer deltaSize;
+
+    private Integer commentCount;
+
+    // Usado pela projeção JPQL em VersionRepository
+    public VersionSummaryDTO(Long id, Long documentId, String versionNumber, String commitMessage,
+                             Long createdById, String createdByName, LocalDateTime createdAt,
+                             DiffStatus diffStatus, Integer charsAdded, Integer charsRemoved, Integer deltaSize) {
+        this.id = id;
+        this.documentId = documentId;
+        this.versionNumber = versionNumber;
+        this.commitMessage = commitMessage;
+        this.createdById = createdById;
+        this.createdByName = createdByName;
+        this.createdAt = createdAt;
+        this.diffStatus = diffStatus;
+        this.charsAdded = charsAdded;
+        this.charsRemoved = charsRemoved;
+        this.deltaSize = deltaSize;
+    }
+}
@@ -0,0 +1,37 @@
+package com.tessera.backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Documento cujas permissões mudaram, lido pelos demais nós em ordem de id.
+ */
+@Entity
+@Table(name = "acl_invalidations", indexes = @Index(name = "idx_acl_invalidations_created", columnList = "createdAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AclInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long documentId;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.tessera.backend.entity;
+
+import com.tessera.backend.util.ContentCodec;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Persiste textos grandes compactados (ver {@link ContentCodec}).
+ */
+@Converter
+public class CompressedContentConverter implements AttributeConverter<String, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        return ContentCodec.encode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return ContentCodec.decode(dbData);
+    }
+}
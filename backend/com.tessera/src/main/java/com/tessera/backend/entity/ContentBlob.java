@@ -0,0 +1,42 @@
+package com.tessera.backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Conteúdo de versão endereçado pelo hash SHA-256 do texto. Versões com o mesmo
+ * conteúdo compartilham o mesmo blob; refCount conta as versões que o referenciam.
+ */
+@Entity
+@Table(name = "content_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentBlob {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // Bytes codificados por ContentCodec (cabeçalho + gzip ou UTF-8)
+    @Column(columnDefinition = "LONGBLOB", nullable = false)
+    private byte[] data;
+
+    @Column(nullable = false)
+    private long contentLength;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
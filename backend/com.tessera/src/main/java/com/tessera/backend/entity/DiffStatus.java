@@ -0,0 +1,7 @@
+package com.tessera.backend.entity;
+
+public enum DiffStatus {
+    PENDING,       // Versão salva; diff em relação à anterior ainda não calculado
+    READY,         // Diff e estatísticas disponíveis
+    FAILED         // Falha no cálculo; a versão continua com o conteúdo completo
+}
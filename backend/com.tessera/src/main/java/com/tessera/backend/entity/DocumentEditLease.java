@@ -0,0 +1,35 @@
+package com.tessera.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reserva de edição de um documento. A linha não é apagada ao liberar a reserva, para que o
+ * token de fencing continue crescendo entre reservas sucessivas.
+ */
+@Entity
+@Table(name = "document_edit_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentEditLease {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "fencing_token", nullable = false)
+    private long fencingToken;
+
+    // Epoch em milissegundos no relógio do banco
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+}
@@ -0,0 +1,35 @@
+package com.tessera.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Último número de versão emitido para um documento. É atualizado com UPDATE atômico,
+ * então duas versões salvas ao mesmo tempo nunca recebem o mesmo número.
+ */
+@Entity
+@Table(name = "document_version_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentVersionCounter {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Column(name = "major_number", nullable = false)
+    private int major;
+
+    @Column(name = "minor_number", nullable = false)
+    private int minor;
+
+    // A próxima versão abre um novo número principal (ex.: após submissão)
+    @Column(nullable = false)
+    private boolean majorBumpPending;
+}
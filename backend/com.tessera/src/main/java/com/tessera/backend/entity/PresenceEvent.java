@@ -0,0 +1,41 @@
+package com.tessera.backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mensagem de presença publicada por um nó, lida pelos demais nós em ordem de id.
+ */
+@Entity
+@Table(name = "presence_events", indexes = @Index(name = "idx_presence_events_created", columnList = "createdAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresenceEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String nodeId;
+
+    // PresenceDeltaDTO em JSON
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
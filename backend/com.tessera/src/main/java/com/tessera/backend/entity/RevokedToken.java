@@ -0,0 +1,39 @@
+package com.tessera.backend.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Token JWT revogado antes do vencimento, identificado pelo jti. A linha só é necessária
+ * até o {@code exp} do token e é removida depois dele.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_expires", columnList = "expiresAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @Column(length = 64)
+    private String jti;
+
+    private Long userId;
+
+    // Epoch em milissegundos
+    @Column(nullable = false)
+    private Long expiresAt;
+
+    @CreationTimestamp
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,32 @@
+package com.tessera.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Tokens do usuário emitidos antes de {@code notBefore} não são mais aceitos (troca de senha,
+ * desativação). Depois de {@code expiresAt} todos esses tokens já venceram e a linha é removida.
+ */
+@Entity
+@Table(name = "user_token_cutoffs", indexes = @Index(name = "idx_user_token_cutoffs_expires", columnList = "expiresAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTokenCutoff {
+
+    @Id
+    private Long userId;
+
+    // Epoch em milissegundos
+    @Column(nullable = false)
+    private Long notBefore;
+
+    @Column(nullable = false)
+    private Long expiresAt;
+}
@@ -9,18 +9,22 @@ import org.hibernate.annotations.CreationTimestamp;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
 @Table(name = "versions")
@@ -43,12 +47,35 @@ public class Version {
     @Column(columnDefinition = "TEXT")
     private String commitMessage;
     
-    @Lob
-    @Column(columnDefinition = "LONGTEXT", nullable = false)
-    private String content;
+    // Conteúdo inline (formato antigo) e diff ficam em version_contents, carregados sob demanda.
+    // Novos keyframes guardam o conteúdo em content_blobs, referenciado por contentHash
+    @OneToOne(fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "content_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private VersionContent body;
     
-    @Column(columnDefinition = "TEXT")
-    private String diffFromPrevious;
+    // Armazenamento em cadeia de deltas: keyframes guardam o conteúdo completo,
+    // as demais versões guardam apenas o delta em relação a baseVersionId
+    private Boolean keyframe;
+    
+    @Column(name = "base_version_id")
+    private Long baseVersionId;
+    
+    private Integer chainDepth;
+    
+    // SHA-256 do conteúdo completo da versão
+    @Column(length = 64)
+    private String contentHash;
+    
+    // Diff e estatísticas em relação à versão anterior são calculados após o commit
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private DiffStatus diffStatus;
+    
+    private Integer charsAdded;
+    
+    private Integer charsRemoved;
     
     @OneToMany(mappedBy = "version", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Comment> comments = new ArrayList<>();
@@ -59,4 +86,58 @@ public class Version {
     
     @CreationTimestamp
     private LocalDateTime createdAt;
+    
+    /**
+     * Indica se a versão guarda o conteúdo completo. Registros antigos
+     * (sem a coluna keyframe preenchida) sempre possuem o conteúdo inline.
+     */
+    public boolean isKeyframe() {
+        return Boolean.TRUE.equals(keyframe) || (keyframe == null && body != null);
+    }
+    
+    /**
+     * Indica se o conteúdo da versão está no armazenamento endereçado por hash
+     * (e portanto conta como uma referência ao blob).
+     */
+    public boolean isStoredInBlob() {
+        return Boolean.TRUE.equals(keyframe) && contentHash != null;
+    }
+    
+    /**
+     * Indica se o conteúdo completo está inline em {@link VersionContent}. Não carrega o conteúdo.
+     */
+    public boolean hasInlineContent() {
+        return isKeyframe() && !isStoredInBlob();
+    }
+    
+    // Acesso aos campos de version_contents; a leitura inicializa o body (LAZY)
+    
+    public String getContent() {
+        return body != null ? body.getContent() : null;
+    }
+    
+    public void setContent(String content) {
+        if (body == null && content == null) {
+            return;
+        }
+        body().setContent(content);
+    }
+    
+    public String getDiffFromPrevious() {
+        return body != null ? body.getDiffFromPrevious() : null;
+    }
+    
+    public void setDiffFromPrevious(String diffFromPrevious) {
+        if (body == null && diffFromPrevious == null) {
+            return;
+        }
+        body().setDiffFromPrevious(diffFromPrevious);
+    }
+    
+    private VersionContent body() {
+        if (body == null) {
+            body = new VersionContent();
+        }
+        return body;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.tessera.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Campos grandes de uma versão, separados da tabela versions para que carregar
+ * uma versão (comentários, histórico, cadeia de deltas) não traga o conteúdo junto.
+ * Mapeado em {@link Version#getBody()} com carregamento LAZY.
+ */
+@Entity
+@Table(name = "version_contents")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionContent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Conteúdo completo inline (formato antigo). Novos keyframes ficam em content_blobs
+    @Convert(converter = CompressedContentConverter.class)
+    @Column(columnDefinition = "LONGBLOB")
+    private String content;
+
+    @Column(columnDefinition = "LONGTEXT")
+    private String diffFromPrevious;
+}
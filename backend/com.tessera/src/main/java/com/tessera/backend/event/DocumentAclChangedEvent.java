@@ -0,0 +1,8 @@
+package com.tessera.backend.event;
+
+/**
+ * Colaboradores, papéis ou permissões do documento alterados.
+ */
+public record DocumentAclChangedEvent(
+        Long documentId
+) {}
@@ -0,0 +1,7 @@
+package com.tessera.backend.event;
+
+public record EditorLeftEvent(
+        Long documentId,
+        Long userId,
+        String username
+) {}
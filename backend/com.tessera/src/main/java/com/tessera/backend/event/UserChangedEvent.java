@@ -0,0 +1,8 @@
+package com.tessera.backend.event;
+
+/**
+ * Dados de acesso do usuário alterados (senha, status ou papéis).
+ */
+public record UserChangedEvent(
+        Long userId
+) {}
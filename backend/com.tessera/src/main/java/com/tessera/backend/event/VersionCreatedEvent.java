@@ -0,0 +1,6 @@
+package com.tessera.backend.event;
+
+public record VersionCreatedEvent(
+        Long versionId,
+        Long documentId
+) {}
@@ -0,0 +1,10 @@
+package com.tessera.backend.exception;
+
+/**
+ * A operação partiu de um estado que não é mais o atual (ex.: versão base desatualizada).
+ */
+public class ConflictException extends ApiException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,25 @@
+package com.tessera.backend.exception;
+
+/**
+ * Atualização de rascunho que não se aplica ao estado guardado no servidor. {@code sequence}
+ * é a última sequência aceita, para o cliente reenviar o conteúdo a partir dela.
+ */
+public class DraftOutOfSyncException extends ConflictException {
+
+    private final Long documentId;
+    private final long sequence;
+
+    public DraftOutOfSyncException(Long documentId, long sequence) {
+        super("Rascunho fora de sincronia com o servidor; envie o conteúdo completo ou um patch sobre a versão mais recente");
+        this.documentId = documentId;
+        this.sequence = sequence;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+}
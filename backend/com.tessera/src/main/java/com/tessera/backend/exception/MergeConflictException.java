@@ -0,0 +1,17 @@
+package com.tessera.backend.exception;
+
+import com.tessera.backend.dto.MergeConflictDTO;
+
+public class MergeConflictException extends ConflictException {
+
+    private final MergeConflictDTO conflict;
+
+    public MergeConflictException(MergeConflictDTO conflict) {
+        super(conflict.getMessage());
+        this.conflict = conflict;
+    }
+
+    public MergeConflictDTO getConflict() {
+        return conflict;
+    }
+}
@@ -0,0 +1,19 @@
+package com.tessera.backend.exception;
+
+/**
+ * O servidor está sem capacidade para a operação no momento; o cliente deve tentar de novo
+ * depois de {@link #getRetryAfterSeconds()} segundos.
+ */
+public class ServiceOverloadedException extends ApiException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,31 @@
+package com.tessera.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tessera.backend.entity.AclInvalidation;
+
+@Repository
+public interface AclInvalidationRepository extends JpaRepository<AclInvalidation, Long> {
+
+    List<AclInvalidation> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    // Ids pulados por transações que ainda não tinham confirmado
+    List<AclInvalidation> findByIdIn(Collection<Long> ids);
+
+    @Query("SELECT COALESCE(MAX(i.id), 0) FROM AclInvalidation i")
+    Long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AclInvalidation i WHERE i.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
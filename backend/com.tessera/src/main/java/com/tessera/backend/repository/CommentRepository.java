@@ -1,10 +1,13 @@
 package com.tessera.backend.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.tessera.backend.entity.Comment;
@@ -23,4 +26,8 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     // Encontrar comentários por posição no texto (para comentários contextuais)
     List<Comment> findByVersionAndStartPositionGreaterThanEqualAndEndPositionLessThanEqual(
             Version version, int startPos, int endPos);
+    
+    // Quantidade de comentários por versão: [versionId, count]
+    @Query("SELECT c.version.id, COUNT(c) FROM Comment c WHERE c.version.id IN :versionIds GROUP BY c.version.id")
+    List<Object[]> countByVersionIds(@Param("versionIds") Collection<Long> versionIds);
 }
\ No newline at end of file
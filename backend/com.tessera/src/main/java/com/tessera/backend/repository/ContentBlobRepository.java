@@ -0,0 +1,45 @@
+package com.tessera.backend.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tessera.backend.entity.ContentBlob;
+
+@Repository
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, String> {
+
+    @Query("SELECT b.data FROM ContentBlob b WHERE b.hash = :hash")
+    byte[] findDataByHash(@Param("hash") String hash);
+
+    @Query("SELECT b.refCount FROM ContentBlob b WHERE b.hash = :hash")
+    Integer findRefCountByHash(@Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE ContentBlob b SET b.refCount = b.refCount + 1 WHERE b.hash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE ContentBlob b SET b.refCount = b.refCount - :count WHERE b.hash = :hash")
+    int decrementRefCount(@Param("hash") String hash, @Param("count") int count);
+
+    // Inserção atômica: se outro save inseriu o mesmo hash em paralelo, apenas incrementa
+    @Modifying
+    @Query(value = "INSERT INTO content_blobs (hash, data, content_length, ref_count, created_at) " +
+                   "VALUES (:hash, :data, :contentLength, 1, NOW()) " +
+                   "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    int insertOrIncrement(@Param("hash") String hash, @Param("data") byte[] data,
+                          @Param("contentLength") long contentLength);
+
+    @Modifying
+    @Query("DELETE FROM ContentBlob b WHERE b.hash IN :hashes AND b.refCount <= 0")
+    int deleteOrphans(@Param("hashes") Collection<String> hashes);
+
+    @Modifying
+    @Query("DELETE FROM ContentBlob b WHERE b.refCount <= 0")
+    int deleteAllOrphans();
+}
@@ -23,6 +23,12 @@ public interface DocumentCollaboratorRepository extends JpaRepository<DocumentCo
     List<DocumentCollaborator> findByDocumentAndActiveTrue(Document document);
     List<DocumentCollaborator> findByUserAndActiveTrue(User user);
     Optional<DocumentCollaborator> findByDocumentAndUserAndActiveTrue(Document document, User user);
+    
+    // Papel e permissão do colaborador ativo, sem carregar documento e usuário (índice de ACL)
+    @Query("SELECT c FROM DocumentCollaborator c " +
+           "WHERE c.document.id = :documentId AND c.user.id = :userId AND c.active = true")
+    Optional<DocumentCollaborator> findActiveByDocumentIdAndUserId(@Param("documentId") Long documentId,
+                                                                  @Param("userId") Long userId);
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<DocumentCollaborator> findByDocumentAndUser(Document document, User user);
     
@@ -0,0 +1,51 @@
+package com.tessera.backend.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tessera.backend.entity.DocumentEditLease;
+
+@Repository
+public interface DocumentEditLeaseRepository extends JpaRepository<DocumentEditLease, Long> {
+
+    // Relógio do banco, o mesmo para todos os nós
+    String NOW_MS = "CAST(UNIX_TIMESTAMP(NOW(3)) * 1000 AS SIGNED)";
+
+    // Os campos são atribuídos na ordem: o token e o dono ainda leem a expiração antiga.
+    // Reserva vencida: novo dono e token + 1. Do próprio dono: só renova. De outro usuário: nada muda.
+    String TAKE_OVER = "fencing_token = IF(expires_at <= " + NOW_MS + ", fencing_token + 1, fencing_token), " +
+                       "owner_id = IF(expires_at <= " + NOW_MS + ", VALUES(owner_id), owner_id), " +
+                       "expires_at = IF(owner_id = VALUES(owner_id), VALUES(expires_at), expires_at)";
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "INSERT INTO document_edit_leases (document_id, owner_id, fencing_token, expires_at) " +
+                   "VALUES (:documentId, :ownerId, 1, " + NOW_MS + " + :ttlMs) ON DUPLICATE KEY UPDATE " + TAKE_OVER,
+           nativeQuery = true)
+    int acquire(@Param("documentId") Long documentId, @Param("ownerId") Long ownerId, @Param("ttlMs") long ttlMs);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE document_edit_leases SET expires_at = " + NOW_MS + " + :ttlMs " +
+                   "WHERE document_id = :documentId AND owner_id = :ownerId AND fencing_token = :token " +
+                   "AND expires_at > " + NOW_MS, nativeQuery = true)
+    int renew(@Param("documentId") Long documentId, @Param("ownerId") Long ownerId, @Param("token") long token,
+              @Param("ttlMs") long ttlMs);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE document_edit_leases SET expires_at = " + NOW_MS + " " +
+                   "WHERE document_id = :documentId AND owner_id = :ownerId AND fencing_token = :token",
+           nativeQuery = true)
+    int release(@Param("documentId") Long documentId, @Param("ownerId") Long ownerId, @Param("token") long token);
+
+    @Query(value = "SELECT * FROM document_edit_leases WHERE document_id = :documentId", nativeQuery = true)
+    Optional<DocumentEditLease> findCurrent(@Param("documentId") Long documentId);
+
+    // Reserva vigente, bloqueada até o fim da transação: uma nova reserva espera a gravação terminar
+    @Query(value = "SELECT * FROM document_edit_leases WHERE document_id = :documentId " +
+                   "AND expires_at > " + NOW_MS + " FOR UPDATE", nativeQuery = true)
+    Optional<DocumentEditLease> findActiveForUpdate(@Param("documentId") Long documentId);
+}
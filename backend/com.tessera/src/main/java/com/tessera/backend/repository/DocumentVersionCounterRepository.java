@@ -0,0 +1,39 @@
+package com.tessera.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tessera.backend.entity.DocumentVersionCounter;
+
+@Repository
+public interface DocumentVersionCounterRepository extends JpaRepository<DocumentVersionCounter, Long> {
+
+    // Os campos são atribuídos na ordem: major e minor ainda leem o valor antigo de major_bump_pending
+    String NEXT_NUMBER = "major_number = IF(major_bump_pending, major_number + 1, major_number), " +
+                         "minor_number = IF(major_bump_pending, 0, minor_number + 1), " +
+                         "major_bump_pending = FALSE";
+
+    @Modifying
+    @Query(value = "UPDATE document_version_counters SET " + NEXT_NUMBER + " WHERE document_id = :documentId",
+           nativeQuery = true)
+    int increment(@Param("documentId") Long documentId);
+
+    // Primeira versão do documento; se outro save criou o contador em paralelo, apenas incrementa
+    @Modifying
+    @Query(value = "INSERT INTO document_version_counters (document_id, major_number, minor_number, major_bump_pending) " +
+                   "VALUES (:documentId, :major, :minor, FALSE) ON DUPLICATE KEY UPDATE " + NEXT_NUMBER,
+           nativeQuery = true)
+    int insertOrIncrement(@Param("documentId") Long documentId, @Param("major") int major, @Param("minor") int minor);
+
+    // Lido do banco, e não do contexto de persistência, logo após o incremento
+    @Query(value = "SELECT CONCAT(major_number, '.', minor_number) FROM document_version_counters " +
+                   "WHERE document_id = :documentId", nativeQuery = true)
+    String findCurrentNumber(@Param("documentId") Long documentId);
+
+    @Modifying
+    @Query("UPDATE DocumentVersionCounter c SET c.majorBumpPending = true WHERE c.documentId = :documentId")
+    int requestMajorBump(@Param("documentId") Long documentId);
+}
@@ -0,0 +1,27 @@
+package com.tessera.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tessera.backend.entity.PresenceEvent;
+
+@Repository
+public interface PresenceEventRepository extends JpaRepository<PresenceEvent, Long> {
+
+    List<PresenceEvent> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM PresenceEvent e")
+    Long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PresenceEvent e WHERE e.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,24 @@
+package com.tessera.backend.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tessera.backend.entity.UserTokenCutoff;
+
+@Repository
+public interface UserTokenCutoffRepository extends JpaRepository<UserTokenCutoff, Long> {
+
+    @Query("SELECT c.userId FROM UserTokenCutoff c")
+    List<Long> findAllUserIds();
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM UserTokenCutoff c WHERE c.expiresAt < :now")
+    int deleteExpired(@Param("now") long now);
+}
@@ -1,17 +1,24 @@
 package com.tessera.backend.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.tessera.backend.dto.VersionSummaryDTO;
+import com.tessera.backend.entity.DiffStatus;
 import com.tessera.backend.entity.Document;
 import com.tessera.backend.entity.Version;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface VersionRepository extends JpaRepository<Version, Long> {
     
@@ -24,4 +31,46 @@ public interface VersionRepository extends JpaRepository<Version, Long> {
     
     @Query("SELECT v FROM Version v WHERE v.document = ?1 ORDER BY v.createdAt DESC LIMIT 1")
     Optional<Version> findLatestByDocument(Document document);
-}
\ No newline at end of file
+    
+    // Histórico sem LOBs, mais recentes primeiro. Paginação por cursor em (createdAt, id)
+    String SUMMARY_SELECT = "SELECT new com.tessera.backend.dto.VersionSummaryDTO(v.id, v.document.id, " +
+            "v.versionNumber, v.commitMessage, u.id, u.name, v.createdAt, v.diffStatus, v.charsAdded, " +
+            "v.charsRemoved, LENGTH(b.diffFromPrevious)) FROM Version v JOIN v.createdBy u LEFT JOIN v.body b ";
+    
+    @Query(SUMMARY_SELECT + "WHERE v.document.id = :documentId ORDER BY v.createdAt DESC, v.id DESC")
+    List<VersionSummaryDTO> findSummaries(@Param("documentId") Long documentId, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE v.document.id = :documentId AND (v.createdAt < :createdAt " +
+           "OR (v.createdAt = :createdAt AND v.id < :id)) ORDER BY v.createdAt DESC, v.id DESC")
+    List<VersionSummaryDTO> findSummariesBefore(@Param("documentId") Long documentId,
+                                                @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id, Pageable pageable);
+    
+    // Id da versão imediatamente anterior, sem carregar a versão informada
+    @Query("SELECT MAX(p.id) FROM Version p, Version v WHERE v.id = ?1 AND p.document = v.document AND p.id < v.id")
+    Optional<Long> findPreviousId(Long id);
+    
+    // Serializa a troca de conteúdo de uma versão com o diff assíncrono que a lê ou a converte em delta
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Version v WHERE v.id = :id")
+    Optional<Version> findByIdForUpdate(@Param("id") Long id);
+    
+    @Query("SELECT v.id FROM Version v WHERE v.diffStatus = ?1 AND v.createdAt < ?2 ORDER BY v.id ASC")
+    List<Long> findIdsByDiffStatusCreatedBefore(DiffStatus diffStatus, LocalDateTime createdBefore);
+    
+    // Versões armazenadas como delta sobre a versão informada
+    List<Version> findByBaseVersionId(Long baseVersionId);
+    
+    @Query("SELECT v.id FROM Version v WHERE v.document.id = ?1 ORDER BY v.id ASC")
+    List<Long> findIdsByDocumentId(Long documentId);
+    
+    // Documentos com versões ainda no formato antigo, com o conteúdo completo inline
+    @Query(value = "SELECT DISTINCT v.document_id FROM versions v JOIN version_contents c ON c.id = v.content_id " +
+                   "WHERE c.content IS NOT NULL", nativeQuery = true)
+    List<Long> findDocumentIdsToCompact();
+    
+    // Referências a blobs de conteúdo mantidas pelas versões do documento, agrupadas por hash
+    @Query("SELECT v.contentHash, COUNT(v) FROM Version v WHERE v.document.id = ?1 AND v.keyframe = true " +
+           "AND v.contentHash IS NOT NULL GROUP BY v.contentHash")
+    List<Object[]> countBlobReferencesByDocument(Long documentId);
+}
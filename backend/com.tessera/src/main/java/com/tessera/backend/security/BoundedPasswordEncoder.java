@@ -0,0 +1,164 @@
+package com.tessera.backend.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.tessera.backend.exception.ServiceOverloadedException;
+
+/**
+ * BCrypt executado em um executor dedicado e limitado, para que um pico de logins não ocupe
+ * todos os núcleos e atrase os demais endpoints.
+ *
+ * Um hash que espera na fila além de {@code queueTimeoutMs}, ou que encontra a fila cheia, é
+ * recusado com {@link ServiceOverloadedException} sem ser calculado. Hashes gravados com um
+ * custo diferente do configurado são refeitos no próximo login ({@link #upgradeEncoding}).
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final int queueCapacity;
+    private final long queueTimeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong hashes = new AtomicLong();
+    private final AtomicLong hashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicInteger peakQueued = new AtomicInteger();
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long queueTimeoutMs) {
+        this(new BCryptPasswordEncoder(strength), strength, threads, queueCapacity, queueTimeoutMs);
+    }
+
+    BoundedPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity,
+                           long queueTimeoutMs) {
+        this.delegate = delegate;
+        this.strength = strength;
+        this.queueCapacity = queueCapacity;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public Map<String, Object> stats() {
+        long count = hashes.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("strength", strength);
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("peakQueued", peakQueued.get());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("hashes", count);
+        stats.put("rejected", rejected.get());
+        stats.put("avgHashMs", count > 0 ? hashNanos.get() / count / 1_000_000.0 : 0.0);
+        stats.put("maxHashMs", maxHashNanos.get() / 1_000_000.0);
+        stats.put("avgQueueWaitMs", count > 0 ? waitNanos.get() / count / 1_000_000.0 : 0.0);
+        return stats;
+    }
+
+    private <T> T run(Callable<T> hash) {
+        long enqueued = System.nanoTime();
+        // Disputado entre o thread de hash (início) e quem espera (desistência por tempo)
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                long started = System.nanoTime();
+                try {
+                    return hash.call();
+                } finally {
+                    long elapsed = System.nanoTime() - started;
+                    hashes.incrementAndGet();
+                    hashNanos.addAndGet(elapsed);
+                    maxHashNanos.accumulateAndGet(elapsed, Math::max);
+                    waitNanos.addAndGet(started - enqueued);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            throw overloaded("Fila de verificação de senhas cheia");
+        }
+        peakQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+
+        try {
+            try {
+                return future.get(queueTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Ainda na fila: sai sem calcular. Já em execução: espera terminar.
+                if (claimed.compareAndSet(false, true)) {
+                    future.cancel(false);
+                    throw overloaded("Tempo de espera na fila de verificação de senhas esgotado");
+                }
+                return future.get();
+            }
+        } catch (InterruptedException e) {
+            claimed.set(true);
+            Thread.currentThread().interrupt();
+            throw overloaded("Verificação de senha interrompida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ServiceOverloadedException overloaded(String message) {
+        rejected.incrementAndGet();
+        logger.warn("{} ({} na fila)", message, executor.getQueue().size());
+        return new ServiceOverloadedException("Muitos logins simultâneos; tente novamente em instantes",
+                Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMs)));
+    }
+}
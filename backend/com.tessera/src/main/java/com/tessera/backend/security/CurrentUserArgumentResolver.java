@@ -0,0 +1,140 @@
+package com.tessera.backend.security;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.tessera.backend.entity.Role;
+import com.tessera.backend.entity.User;
+import com.tessera.backend.entity.UserStatus;
+import com.tessera.backend.event.UserChangedEvent;
+import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.util.BoundedLruCache;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Resolve parâmetros {@link CurrentUser}. O id vem do {@link UserDetailsImpl} montado a partir
+ * do JWT, e uma cópia imutável do usuário fica em cache por {@code tessera.security.current-user.ttl-ms},
+ * evitando uma consulta por requisição. Alterações de senha, status e papéis removem a entrada
+ * ({@link UserChangedEvent}, publicado por UserService, AdminService e UserDetailsServiceImpl);
+ * em outros nós, a entrada antiga dura no máximo o TTL, mas um usuário desativado já perde os
+ * tokens pelo TokenRevocationService.
+ *
+ * Cada requisição recebe uma entidade {@link User} nova, desanexada e só dela: alterá-la não
+ * afeta outras requisições, e {@code approvedBy} traz apenas o id. Serviços que gravam o
+ * usuário devem carregá-lo pelo id.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private record CachedUser(Long id, String name, String email, String password, UserStatus status,
+                              Set<Role> roles, LocalDateTime registrationDate, LocalDateTime approvalDate,
+                              Long approvedById, String rejectionReason, LocalDateTime updatedAt, long expiresAt) {
+
+        static CachedUser of(User user, long expiresAt) {
+            return new CachedUser(user.getId(), user.getName(), user.getEmail(), user.getPassword(), user.getStatus(),
+                    user.getRoles() != null ? Set.copyOf(user.getRoles()) : Set.of(), user.getRegistrationDate(),
+                    user.getApprovalDate(), user.getApprovedBy() != null ? user.getApprovedBy().getId() : null,
+                    user.getRejectionReason(), user.getUpdatedAt(), expiresAt);
+        }
+
+        User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setName(name);
+            user.setEmail(email);
+            user.setPassword(password);
+            user.setStatus(status);
+            user.setRoles(new HashSet<>(roles));
+            user.setRegistrationDate(registrationDate);
+            user.setApprovalDate(approvalDate);
+            if (approvedById != null) {
+                User approvedBy = new User();
+                approvedBy.setId(approvedById);
+                user.setApprovedBy(approvedBy);
+            }
+            user.setRejectionReason(rejectionReason);
+            user.setUpdatedAt(updatedAt);
+            return user;
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${tessera.security.current-user.ttl-ms:10000}")
+    private long ttlMs;
+
+    @Value("${tessera.security.current-user.max-entries:10000}")
+    private int maxEntries;
+
+    private BoundedLruCache<Long, CachedUser> users;
+
+    @PostConstruct
+    void init() {
+        users = new BoundedLruCache<>(maxEntries, maxEntries, user -> 1);
+    }
+
+    @Override
+    public boolean supportsParameter(@NonNull MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && User.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(@NonNull MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  @NonNull NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        return resolve(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    public User resolve(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            throw new BadCredentialsException("Usuário não autenticado.");
+        }
+        if (authentication.getPrincipal() instanceof UserDetailsImpl details && details.getId() != null) {
+            return resolve(details.getId(), System.currentTimeMillis());
+        }
+        // Autenticação que não veio do JWT (ex.: testes): busca pelo e-mail, sem cache
+        return userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new BadCredentialsException("Usuário autenticado não encontrado no banco de dados."));
+    }
+
+    User resolve(Long userId, long now) {
+        CachedUser cached = users.get(userId);
+        if (cached == null || now >= cached.expiresAt()) {
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new BadCredentialsException("Usuário autenticado não encontrado no banco de dados."));
+            cached = CachedUser.of(user, now + ttlMs);
+            users.put(userId, cached);
+        }
+        return cached.toUser();
+    }
+
+    // Após o commit, para que a próxima leitura já veja os dados novos
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        users.remove(event.userId());
+    }
+
+    public Map<String, Object> stats() {
+        return users.stats();
+    }
+}
@@ -2,42 +2,80 @@ package com.tessera.backend.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException; // Use this for newer versions
+import jakarta.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import com.tessera.backend.util.BoundedLruCache;
+
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+/**
+ * Emissão e verificação dos tokens JWT.
+ *
+ * A chave e o parser são criados uma única vez. Tokens já verificados ficam em cache pelo
+ * SHA-256 do token até o seu {@code exp}: o filtro HTTP e o interceptor do WebSocket validam
+ * a assinatura uma vez por token, e não a cada requisição. A revogação é conferida em todo uso
+ * pelo {@link TokenRevocationService}.
+ */
 @Component
 public class JwtTokenProvider { // Certifique-se que esta é a única classe pública no arquivo
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
+    private record VerifiedToken(UserDetailsImpl principal, String jti, long issuedAt, long expiresAt) {}
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration}")
     private int jwtExpirationInMs;
 
-    private Key getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${tessera.security.token-cache.max-entries:10000}")
+    private int tokenCacheMaxEntries;
+
+    private Key signingKey;
+
+    private JwtParser parser;
+
+    private BoundedLruCache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = new BoundedLruCache<>(tokenCacheMaxEntries, tokenCacheMaxEntries, token -> 1);
     }
 
     public String generateToken(Authentication authentication) {
@@ -53,32 +91,97 @@ public class JwtTokenProvider { // Certifique-se que esta é a única classe pú
         logger.debug("Gerando token para usuário: {}, ID: {}, Nome: {}", userPrincipal.getUsername(), userPrincipal.getId(), userPrincipal.getName());
 
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userPrincipal.getUsername()) 
                 .claim("roles", authorities)
                 .claim("id", userPrincipal.getId())
                 .claim("name", userPrincipal.getName())
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
     public String getUsernameFromJWT(String token) { 
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parser.parseClaimsJws(token).getBody();
         return claims.getSubject();
     }
 
+    /**
+     * Autenticação do token, ou null se ele for inválido ou estiver expirado.
+     * A assinatura só é verificada na primeira vez que o token é visto.
+     */
+    public Authentication authenticate(String authToken) {
+        return authenticate(authToken, System.currentTimeMillis());
+    }
+
+    Authentication authenticate(String authToken, long now) {
+        if (authToken == null || authToken.isEmpty()) {
+            return null;
+        }
+        String key = digest(authToken);
+        VerifiedToken verified = verifiedTokens.get(key);
+        if (verified != null && now >= verified.expiresAt()) {
+            verifiedTokens.remove(key);
+            logger.error("Token JWT expirado");
+            return null;
+        }
+        if (verified == null) {
+            Claims claims = parseClaims(authToken);
+            if (claims == null) {
+                return null;
+            }
+            Date expiration = claims.getExpiration();
+            Date issuedAt = claims.getIssuedAt();
+            verified = new VerifiedToken(toPrincipal(claims), claims.getId(), issuedAt != null ? issuedAt.getTime() : 0L,
+                    expiration != null ? expiration.getTime() : now);
+            // Tokens sem exp não entram no cache e são verificados a cada uso
+            if (expiration != null) {
+                verifiedTokens.put(key, verified);
+            }
+        }
+        if (revocationService.isRevoked(verified.jti(), verified.principal().getId(), verified.issuedAt())) {
+            verifiedTokens.remove(key);
+            logger.warn("Token JWT revogado usado pelo usuário {}", verified.principal().getId());
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(verified.principal(), authToken,
+                verified.principal().getAuthorities());
+    }
+
     public boolean validateToken(String authToken) {
+        return authenticate(authToken) != null;
+    }
+    
+    public Authentication getAuthentication(String token) {
+        Authentication authentication = authenticate(token);
+        if (authentication == null) {
+            throw new BadCredentialsException("Token JWT inválido ou expirado");
+        }
+        return authentication;
+    }
+
+    /**
+     * Revoga o token até o seu vencimento (logout). Tokens sem jti só deixam de valer no exp.
+     */
+    public void revokeToken(String token) {
+        Claims claims = parseClaims(token);
+        if (claims == null || claims.getId() == null) {
+            return;
+        }
+        Date expiration = claims.getExpiration();
+        revocationService.revokeToken(claims.getId(), claims.get("id", Long.class),
+                expiration != null ? expiration.getTime() : System.currentTimeMillis() + jwtExpirationInMs);
+        verifiedTokens.remove(digest(token));
+    }
+
+    public Map<String, Object> tokenCacheStats() {
+        return verifiedTokens.stats();
+    }
+
+    private Claims parseClaims(String authToken) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
+            return parser.parseClaimsJws(authToken).getBody();
         } catch (SignatureException ex) { 
             logger.error("Falha na validação da assinatura JWT: {}", ex.getMessage());
         } catch (MalformedJwtException ex) {
@@ -90,16 +193,10 @@ public class JwtTokenProvider { // Certifique-se que esta é a única classe pú
         } catch (IllegalArgumentException ex) {
             logger.error("Claims JWT vazias ou argumento inválido: {}", ex.getMessage());
         }
-        return false;
+        return null;
     }
-    
-    public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        
+
+    private UserDetailsImpl toPrincipal(Claims claims) {
         String rolesClaim = claims.get("roles", String.class);
         Collection<? extends GrantedAuthority> authorities =
                 Arrays.stream(rolesClaim != null ? rolesClaim.split(",") : new String[0])
@@ -107,7 +204,7 @@ public class JwtTokenProvider { // Certifique-se que esta é a única classe pú
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList());
         
-        UserDetailsImpl userDetails = new UserDetailsImpl(
+        return new UserDetailsImpl(
                 claims.get("id", Long.class),
                 claims.get("name", String.class),
                 claims.getSubject(), 
@@ -115,7 +212,15 @@ public class JwtTokenProvider { // Certifique-se que esta é a única classe pú
                 authorities,
                 true 
         );
-        
-        return new UsernamePasswordAuthenticationToken(userDetails, token, authorities);
     }
-}
\ No newline at end of file
+
+    // O token em si não fica em memória, apenas o seu hash
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.tessera.backend.security;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tessera.backend.entity.RevokedToken;
+import com.tessera.backend.entity.UserTokenCutoff;
+import com.tessera.backend.repository.RevokedTokenRepository;
+import com.tessera.backend.repository.UserTokenCutoffRepository;
+import com.tessera.backend.util.BloomFilter;
+import com.tessera.backend.util.BoundedLruCache;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Revogação de tokens JWT antes do vencimento: por jti (logout) ou por usuário, recusando
+ * os tokens emitidos antes de um instante (troca de senha, desativação).
+ *
+ * As revogações ficam no banco; em memória há só um filtro de Bloom com os jtis e usuários
+ * revogados. Um token que não está no filtro, o caso comum, é aceito sem consulta ao banco.
+ * O filtro é reconstruído a cada {@code tessera.security.revocation.rebuild-interval-ms},
+ * descartando as revogações vencidas e trazendo as feitas em outros nós.
+ */
+@Component
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private static final String JTI = "jti:";
+    private static final String USER = "user:";
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserTokenCutoffRepository cutoffRepository;
+
+    @Value("${app.jwt.expiration}")
+    private long jwtExpirationInMs;
+
+    @Value("${tessera.security.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${tessera.security.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${tessera.security.revocation.lookup-cache.max-entries:10000}")
+    private int lookupCacheMaxEntries;
+
+    private volatile BloomFilter filter;
+
+    // Resultado das consultas ao banco para as chaves presentes no filtro (jti: 1 revogado,
+    // 0 não; usuário: notBefore ou 0). Limpo a cada reconstrução.
+    private BoundedLruCache<String, Long> lookups;
+
+    private final Object lock = new Object();
+
+    // Chaves revogadas enquanto uma reconstrução lê o banco; entram também no filtro novo
+    private List<String> addedDuringRebuild;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong filterPositives = new AtomicLong();
+    private final AtomicLong databaseLookups = new AtomicLong();
+    private final AtomicLong revokedRejections = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        lookups = new BoundedLruCache<>(lookupCacheMaxEntries, lookupCacheMaxEntries, value -> 1);
+        // Carrega as revogações existentes antes de aceitar requisições
+        rebuild();
+    }
+
+    /**
+     * Indica se o token foi revogado. {@code issuedAt} é o iat do token em milissegundos.
+     */
+    public boolean isRevoked(String jti, Long userId, long issuedAt) {
+        checks.incrementAndGet();
+        BloomFilter current = filter;
+        boolean jtiCandidate = jti != null && current.mightContain(JTI + jti);
+        boolean userCandidate = userId != null && current.mightContain(USER + userId);
+        if (!jtiCandidate && !userCandidate) {
+            return false;
+        }
+        filterPositives.incrementAndGet();
+        boolean revoked = (jtiCandidate && lookup(JTI + jti) > 0)
+                || (userCandidate && issuedAt < lookup(USER + userId));
+        if (revoked) {
+            revokedRejections.incrementAndGet();
+        }
+        return revoked;
+    }
+
+    /**
+     * Revoga um único token até o seu vencimento.
+     */
+    public void revokeToken(String jti, Long userId, long expiresAt) {
+        if (jti == null) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(jti, userId, expiresAt, null));
+        afterCommit(JTI + jti, 1L);
+        logger.info("Token {} do usuário {} revogado", jti, userId);
+    }
+
+    /**
+     * Recusa todos os tokens do usuário emitidos até agora.
+     */
+    public void revokeUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        // O iat do JWT tem resolução de segundos: tokens emitidos no mesmo segundo continuam válidos,
+        // para que um login logo após a troca de senha não receba um token já recusado
+        long notBefore = System.currentTimeMillis() / 1000 * 1000;
+        UserTokenCutoff cutoff = cutoffRepository.findById(userId)
+                .orElseGet(() -> new UserTokenCutoff(userId, notBefore, 0L));
+        cutoff.setNotBefore(Math.max(cutoff.getNotBefore(), notBefore));
+        cutoff.setExpiresAt(cutoff.getNotBefore() + jwtExpirationInMs);
+        cutoffRepository.save(cutoff);
+        afterCommit(USER + userId, cutoff.getNotBefore());
+        logger.info("Tokens do usuário {} emitidos antes de {} revogados", userId, cutoff.getNotBefore());
+    }
+
+    /**
+     * Remove as revogações vencidas e reconstrói o filtro a partir do banco.
+     */
+    @Scheduled(fixedDelayString = "${tessera.security.revocation.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        synchronized (lock) {
+            addedDuringRebuild = new ArrayList<>();
+        }
+        BloomFilter fresh = null;
+        try {
+            long now = System.currentTimeMillis();
+            int removed = revokedTokenRepository.deleteExpired(now) + cutoffRepository.deleteExpired(now);
+            List<String> jtis = revokedTokenRepository.findAllJtis();
+            List<Long> userIds = cutoffRepository.findAllUserIds();
+
+            fresh = new BloomFilter(Math.max(expectedEntries, 2L * (jtis.size() + userIds.size())), falsePositiveRate);
+            for (String jti : jtis) {
+                fresh.put(JTI + jti);
+            }
+            for (Long userId : userIds) {
+                fresh.put(USER + userId);
+            }
+            rebuilds.incrementAndGet();
+            if (removed > 0) {
+                logger.info("{} revogações vencidas removidas; filtro reconstruído com {} entradas",
+                        removed, fresh.insertions());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erro ao reconstruir o filtro de tokens revogados; o filtro atual continua em uso", e);
+        } finally {
+            synchronized (lock) {
+                if (fresh != null) {
+                    for (String key : addedDuringRebuild) {
+                        fresh.put(key);
+                    }
+                    filter = fresh;
+                    lookups.clear();
+                }
+                addedDuringRebuild = null;
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        BloomFilter current = filter;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("checks", checks.get());
+        stats.put("filterPositives", filterPositives.get());
+        stats.put("databaseLookups", databaseLookups.get());
+        stats.put("revokedRejections", revokedRejections.get());
+        stats.put("filterEntries", current.insertions());
+        stats.put("filterBits", current.bitCount());
+        stats.put("filterHashes", current.hashCount());
+        stats.put("expectedFalsePositiveRate", current.expectedFalsePositiveRate());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("lookupCache", lookups.stats());
+        return stats;
+    }
+
+    private long lookup(String key) {
+        Long cached = lookups.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        databaseLookups.incrementAndGet();
+        long value;
+        if (key.startsWith(JTI)) {
+            value = revokedTokenRepository.existsById(key.substring(JTI.length())) ? 1L : 0L;
+        } else {
+            value = cutoffRepository.findById(Long.valueOf(key.substring(USER.length())))
+                    .map(UserTokenCutoff::getNotBefore)
+                    .orElse(0L);
+        }
+        lookups.put(key, value);
+        return value;
+    }
+
+    // O filtro só recebe a chave depois do commit: assim a reconstrução que ler o banco antes
+    // dele recebe a chave por addedDuringRebuild
+    private void afterCommit(String key, long value) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(key, value);
+                }
+            });
+        } else {
+            add(key, value);
+        }
+    }
+
+    private void add(String key, long value) {
+        synchronized (lock) {
+            filter.put(key);
+            lookups.put(key, value);
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(key);
+            }
+        }
+    }
+}
@@ -8,10 +8,13 @@ import com.tessera.backend.entity.RegistrationRequest;
 import com.tessera.backend.entity.RequestStatus;
 import com.tessera.backend.entity.User;
 import com.tessera.backend.entity.UserStatus;
+import com.tessera.backend.event.UserChangedEvent;
 import com.tessera.backend.exception.ResourceNotFoundException;
 import com.tessera.backend.repository.RegistrationRequestRepository;
 import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -35,6 +38,12 @@ public class AdminService {
     @Autowired
     private NotificationEventService notificationEventService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     @Transactional
     @CacheEvict(value = "approvedAdvisors", allEntries = true)
     public void approveRegistration(Long requestId, User admin, RegistrationApprovalDTO approvalDTO) {
@@ -46,6 +55,7 @@ public class AdminService {
         user.setApprovalDate(LocalDateTime.now());
         user.setApprovedBy(admin);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
 
         request.setStatus(RequestStatus.APPROVED);
         request.setAdminNotes(approvalDTO.getAdminNotes());
@@ -66,6 +76,7 @@ public class AdminService {
         user.setStatus(UserStatus.REJECTED);
         user.setRejectionReason(rejectionDTO.getRejectionReason());
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
 
         request.setStatus(RequestStatus.REJECTED);
         request.setAdminNotes(rejectionDTO.getRejectionReason());
@@ -104,6 +115,11 @@ public class AdminService {
         }
         
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
+        if (statusUpdateDTO.getStatus() != UserStatus.APPROVED) {
+            // Usuário desativado: os tokens já emitidos deixam de valer
+            tokenRevocationService.revokeUser(user.getId());
+        }
     }
 
     public Page<RegistrationRequest> getPendingRegistrations(Pageable pageable) {
@@ -121,6 +121,10 @@ public class AuthService {
         );
     }
     
+    public void logout(String token) {
+        tokenProvider.revokeToken(token);
+    }
+    
     private void notifyAdminsAboutNewRegistration(User newUser) {
         List<User> admins = userRepository.findByRolesName("ADMIN");
         for (User admin : admins) {
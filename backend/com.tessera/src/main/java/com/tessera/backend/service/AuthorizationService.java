@@ -1,107 +1,54 @@
 package com.tessera.backend.service;
 
-import com.tessera.backend.entity.Document; // e outras entidades necessárias
 import com.tessera.backend.entity.User;
-import com.tessera.backend.entity.DocumentCollaborator;
-import com.tessera.backend.entity.CollaboratorRole;
-import com.tessera.backend.repository.DocumentRepository;
-import com.tessera.backend.repository.DocumentCollaboratorRepository;
 import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.UserDetailsImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
+/**
+ * Verificações usadas em {@code @PreAuthorize}. O id do usuário vem do token e as permissões
+ * do {@link DocumentAclIndex}, então cada verificação é uma consulta em memória.
+ */
 @Service("authorizationService") // O nome "authorizationService" é o padrão, mas pode ser explícito.
 public class AuthorizationService {
 
     @Autowired
-    private DocumentRepository documentRepository; // Exemplo de dependência
-
-    @Autowired
-    private DocumentCollaboratorRepository collaboratorRepository;
+    private DocumentAclIndex aclIndex;
 
     @Autowired
     private UserRepository userRepository;
 
     public boolean hasDocumentAccess(Authentication authentication, Long documentId) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
-        }
-
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
-        if (user == null) {
-            return false;
-        }
-
-        Document document = documentRepository.findById(documentId).orElse(null);
-        if (document == null) {
-            return false;
-        }
-
-        return collaboratorRepository
-                .existsByDocumentAndUserAndActiveTrue(document, user);
+        return hasPermission(authentication, documentId, DocumentAclIndex.ACCESS);
     }
 
-    // Implemente outros métodos como canEditDocument, canChangeDocumentStatus, etc.
     public boolean canEditDocument(Authentication authentication, Long documentId) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
-        }
-
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
-        if (user == null) {
-            return false;
-        }
-
-        Document document = documentRepository.findById(documentId).orElse(null);
-        if (document == null) {
-            return false;
-        }
-
-        return collaboratorRepository.findByDocumentAndUserAndActiveTrue(document, user)
-                .map(c -> c.getPermission().canWrite() && c.getRole().canEdit())
-                .orElse(false);
+        return hasPermission(authentication, documentId, DocumentAclIndex.EDIT);
     }
 
     public boolean canChangeDocumentStatus(Authentication authentication, Long documentId) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
-        }
-
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
-        if (user == null) {
-            return false;
-        }
-
-        Document document = documentRepository.findById(documentId).orElse(null);
-        if (document == null) {
-            return false;
-        }
-
-        return collaboratorRepository.findByDocumentAndUserAndActiveTrue(document, user)
-                .map(c -> c.getPermission().canManageCollaborators()
-                        || c.getRole().canManageCollaborators()
-                        || c.getRole().canSubmitDocument()
-                        || c.getRole().canApproveDocument())
-                .orElse(false);
+        return hasPermission(authentication, documentId, DocumentAclIndex.CHANGE_STATUS);
     }
+
     public boolean canDeleteDocument(Authentication authentication, Long documentId) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
-        }
+        return hasPermission(authentication, documentId, DocumentAclIndex.DELETE);
+    }
 
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
-        if (user == null) {
+    private boolean hasPermission(Authentication authentication, Long documentId, int permission) {
+        if (authentication == null || !authentication.isAuthenticated()) {
             return false;
         }
+        Long userId = getUserId(authentication);
+        return userId != null && aclIndex.has(userId, documentId, permission);
+    }
 
-        Document document = documentRepository.findById(documentId).orElse(null);
-        if (document == null) {
-            return false;
+    private Long getUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof UserDetailsImpl details && details.getId() != null) {
+            return details.getId();
         }
-
-        return collaboratorRepository.findByDocumentAndUserAndActiveTrue(document, user)
-                .map(c -> c.getRole() == CollaboratorRole.PRIMARY_STUDENT)
-                .orElse(false);
+        // Autenticação que não veio do JWT: busca pelo e-mail
+        return userRepository.findByEmail(authentication.getName()).map(User::getId).orElse(null);
     }
-}
\ No newline at end of file
+}
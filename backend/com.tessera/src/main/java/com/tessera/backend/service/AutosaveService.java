@@ -0,0 +1,427 @@
+package com.tessera.backend.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.tessera.backend.dto.AutosaveDTO;
+import com.tessera.backend.dto.AutosaveStatusDTO;
+import com.tessera.backend.dto.VersionDTO;
+import com.tessera.backend.entity.User;
+import com.tessera.backend.event.EditorLeftEvent;
+import com.tessera.backend.exception.ApiException;
+import com.tessera.backend.exception.BusinessRuleException;
+import com.tessera.backend.exception.DraftOutOfSyncException;
+import com.tessera.backend.exception.NotFoundException;
+import com.tessera.backend.exception.PermissionDeniedException;
+import com.tessera.backend.exception.ResourceNotFoundException;
+import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.util.DiffUtils;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Salvamento automático com gravação adiada (write-behind).
+ *
+ * As atualizações do editor chegam por WebSocket, de preferência como patches sobre o envio
+ * anterior, e ficam em um rascunho em memória por documento e usuário, registrado no
+ * {@link DraftJournal} para sobreviver a uma queda do processo. Um patch que não confere com o
+ * rascunho é recusado com {@link DraftOutOfSyncException} e o cliente reenvia o conteúdo.
+ * O rascunho vira versão quando o editor para de digitar por {@code tessera.autosave.debounce-ms},
+ * no máximo a cada {@code tessera.autosave.max-delay-ms} de edição contínua, em um commit
+ * explícito ou quando o editor sai do documento.
+ * A gravação passa pelas mesmas regras de uma versão criada pela API (permissão, reserva,
+ * outro editor no documento); um rascunho recusado fica no journal e é tentado de novo
+ * depois de debounce-ms.
+ */
+@Service
+public class AutosaveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutosaveService.class);
+
+    private static final String AUTOSAVE_MESSAGE = "Salvamento automático";
+
+    // Patches que chegaram antes do anterior, à espera dele (o canal de entrada não preserva a ordem)
+    private static final int MAX_PENDING_PATCHES = 16;
+
+    record DraftKey(Long documentId, String username) {}
+
+    static final class Draft {
+        final Long documentId;
+        final User author;
+        // Serializa as gravações do rascunho no banco
+        final Object flushLock = new Object();
+        String content;
+        Long leaseToken;
+        // Sessão do editor que enviou a última atualização; as sequências são contadas por sessão
+        String clientId;
+        long sequence;
+        long savedSequence;
+        // Contador de atualizações aceitas, que não recomeça com a sessão do editor
+        long revision;
+        long savedRevision;
+        long lastChange;
+        long firstUnsavedChange;
+        // Depois de uma gravação recusada, só tenta de novo a partir deste instante
+        long retryAt;
+        // Gravações recusadas seguidas; zera com uma nova edição ou uma gravação bem-sucedida
+        int failures;
+        boolean closed;
+        // Patches à espera da sequência base, por baseSequence
+        final Map<Long, AutosaveDTO> pendingPatches = new HashMap<>();
+
+        Draft(Long documentId, User author) {
+            this.documentId = documentId;
+            this.author = author;
+        }
+
+        boolean isDirty() {
+            return revision > savedRevision;
+        }
+    }
+
+    private final Map<DraftKey, Draft> drafts = new ConcurrentHashMap<>();
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    @Autowired
+    private VersionService versionService;
+
+    @Autowired
+    private EditingSessionService editingSessionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DraftJournal journal;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private DiffUtils diffUtils;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${tessera.autosave.debounce-ms:30000}")
+    private long debounceMs;
+
+    @Value("${tessera.autosave.max-delay-ms:300000}")
+    private long maxDelayMs;
+
+    @Value("${tessera.autosave.max-retries:5}")
+    private int maxRetries;
+
+    /**
+     * Recebe o conteúdo atual do editor, completo ou como patch; nada é gravado no banco neste momento.
+     */
+    public void update(Long documentId, String username, AutosaveDTO message) {
+        if ((message.getContent() == null) == (message.getPatch() == null)) {
+            throw new BusinessRuleException("Informe o conteúdo do rascunho ou um patch, e apenas um deles");
+        }
+        if (message.getPatch() != null && (message.getSequence() == null || message.getBaseSequence() == null
+                || message.getContentHash() == null)) {
+            throw new BusinessRuleException("Patch de rascunho sem sequência, sequência base ou hash do conteúdo");
+        }
+        if (editingSessionService.isCollaborative(documentId)) {
+            throw new BusinessRuleException("Documento em edição colaborativa; as alterações já são salvas pela sessão");
+        }
+        updates.incrementAndGet();
+        DraftKey key = new DraftKey(documentId, username);
+        while (true) {
+            Draft draft = drafts.get(key);
+            if (draft == null) {
+                User user = findUser(username);
+                versionService.checkCanEdit(documentId, user);
+                draft = drafts.computeIfAbsent(key, k -> new Draft(documentId, user));
+            }
+            synchronized (draft) {
+                if (draft.closed) {
+                    // Encerrado por uma saída concorrente: começa um rascunho novo
+                    continue;
+                }
+                apply(draft, username, message);
+                return;
+            }
+        }
+    }
+
+    // Chamado com o rascunho travado
+    private void apply(Draft draft, String username, AutosaveDTO message) {
+        if (message.getClientId() != null && !message.getClientId().equals(draft.clientId)) {
+            // Editor recarregado ou aberto em outra aba: as sequências do cliente recomeçam
+            draft.clientId = message.getClientId();
+            draft.sequence = 0;
+            draft.pendingPatches.clear();
+        }
+        long sequence = message.getSequence() != null ? message.getSequence() : draft.sequence + 1;
+        if (sequence <= draft.sequence) {
+            if (message.getClientId() == null) {
+                // Sem sessão não dá para distinguir um envio atrasado de um cliente que recomeçou a contagem
+                throw outOfSync(draft);
+            }
+            return;
+        }
+        if (message.getPatch() == null) {
+            accept(draft, username, sequence, message.getContent(), null, message.getLeaseToken());
+            return;
+        }
+        long baseSequence = message.getBaseSequence();
+        if (baseSequence > draft.sequence) {
+            if (draft.pendingPatches.size() >= MAX_PENDING_PATCHES) {
+                throw outOfSync(draft);
+            }
+            draft.pendingPatches.put(baseSequence, message);
+            return;
+        }
+        applyPatch(draft, username, message);
+        AutosaveDTO next;
+        while ((next = draft.pendingPatches.remove(draft.sequence)) != null) {
+            applyPatch(draft, username, next);
+        }
+    }
+
+    private void applyPatch(Draft draft, String username, AutosaveDTO message) {
+        long baseSequence = message.getBaseSequence();
+        boolean overDraft = baseSequence > 0 && baseSequence == draft.sequence;
+        if (baseSequence != 0 && !overDraft) {
+            throw outOfSync(draft);
+        }
+        String base = overDraft ? draft.content : versionService.getLatestContent(draft.documentId);
+        String content;
+        try {
+            content = diffUtils.applyPatch(base, message.getPatch());
+        } catch (IllegalArgumentException e) {
+            throw outOfSync(draft);
+        }
+        if (!contentStoreService.hash(content).equalsIgnoreCase(message.getContentHash())) {
+            throw outOfSync(draft);
+        }
+        // Sobre o rascunho o journal guarda só o patch; sobre a versão, o conteúdo inteiro
+        accept(draft, username, message.getSequence(), content, overDraft ? message.getPatch() : null,
+                message.getLeaseToken());
+    }
+
+    private void accept(Draft draft, String username, long sequence, String content, String patch, Long leaseToken) {
+        journal.appendPatch(new DraftJournal.Entry(draft.documentId, draft.author.getId(), username, sequence, content),
+                patch);
+        long now = System.currentTimeMillis();
+        if (!draft.isDirty()) {
+            draft.firstUnsavedChange = now;
+        }
+        draft.content = content;
+        draft.leaseToken = leaseToken;
+        draft.sequence = sequence;
+        draft.revision++;
+        draft.lastChange = now;
+        draft.retryAt = 0;
+        draft.failures = 0;
+        draft.pendingPatches.keySet().removeIf(base -> base < sequence);
+    }
+
+    private DraftOutOfSyncException outOfSync(Draft draft) {
+        draft.pendingPatches.clear();
+        return new DraftOutOfSyncException(draft.documentId, draft.sequence);
+    }
+
+    /**
+     * Grava imediatamente o rascunho do usuário como versão, com a mensagem informada.
+     */
+    public AutosaveStatusDTO commit(Long documentId, String username, String commitMessage) {
+        Draft draft = drafts.get(new DraftKey(documentId, username));
+        if (draft == null) {
+            return new AutosaveStatusDTO(documentId, null, null, null);
+        }
+        String message = commitMessage != null && !commitMessage.isBlank() ? commitMessage : AUTOSAVE_MESSAGE;
+        return flush(draft, username, message);
+    }
+
+    /**
+     * Grava os rascunhos parados há mais de debounce-ms ou alterados há mais de max-delay-ms
+     * e descarta os já gravados que ficaram sem atualizações.
+     */
+    @Scheduled(fixedDelayString = "${tessera.autosave.check-interval-ms:1000}")
+    public void flushDue() {
+        flushDue(System.currentTimeMillis());
+    }
+
+    void flushDue(long now) {
+        for (Map.Entry<DraftKey, Draft> entry : drafts.entrySet()) {
+            Draft draft = entry.getValue();
+            boolean due;
+            synchronized (draft) {
+                if (!draft.isDirty() && now - draft.lastChange >= maxDelayMs) {
+                    draft.closed = true;
+                    drafts.remove(entry.getKey(), draft);
+                    continue;
+                }
+                due = draft.isDirty() && now >= draft.retryAt
+                        && (now - draft.lastChange >= debounceMs || now - draft.firstUnsavedChange >= maxDelayMs);
+            }
+            if (due) {
+                flushQuietly(draft, entry.getKey().username(), now);
+            }
+        }
+    }
+
+    @EventListener
+    public void onEditorLeft(EditorLeftEvent event) {
+        DraftKey key = new DraftKey(event.documentId(), event.username());
+        Draft draft = drafts.get(key);
+        if (draft == null) {
+            return;
+        }
+        flushQuietly(draft, event.username(), System.currentTimeMillis());
+        synchronized (draft) {
+            if (!draft.isDirty()) {
+                draft.closed = true;
+                drafts.remove(key, draft);
+            }
+        }
+    }
+
+    /**
+     * Grava os rascunhos que ficaram no journal após uma parada inesperada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        for (DraftJournal.Entry entry : journal.recover()) {
+            try {
+                User author = userRepository.findById(entry.userId()).orElse(null);
+                if (author == null) {
+                    logger.warn("Rascunho do documento {} descartado: usuário {} não existe mais",
+                            entry.documentId(), entry.userId());
+                } else {
+                    versionService.createAutosaveVersion(entry.documentId(), entry.content(), author,
+                            "Rascunho recuperado após reinício do servidor", null);
+                    logger.info("Rascunho do documento {} recuperado do journal", entry.documentId());
+                }
+                journal.discard(entry.documentId(), entry.userId());
+            } catch (RuntimeException e) {
+                logger.error("Erro ao recuperar o rascunho do documento {}", entry.documentId(), e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushAll() {
+        long now = System.currentTimeMillis();
+        drafts.forEach((key, draft) -> flushQuietly(draft, key.username(), now));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("drafts", drafts.size());
+        stats.put("updatesReceived", updates.get());
+        stats.put("versionsWritten", flushes.get());
+        return stats;
+    }
+
+    private AutosaveStatusDTO flush(Draft draft, String username, String commitMessage) {
+        synchronized (draft.flushLock) {
+            String content;
+            Long leaseToken;
+            long sequence;
+            long revision;
+            synchronized (draft) {
+                if (!draft.isDirty()) {
+                    return new AutosaveStatusDTO(draft.documentId, draft.savedSequence, null, null);
+                }
+                content = draft.content;
+                leaseToken = draft.leaseToken;
+                sequence = draft.sequence;
+                revision = draft.revision;
+            }
+
+            VersionDTO version = versionService.createAutosaveVersion(draft.documentId, content, draft.author,
+                    commitMessage, leaseToken);
+            if (version == null) {
+                logger.warn("Rascunho do documento {} descartado: o documento não aceita mais edições", draft.documentId);
+            } else {
+                flushes.incrementAndGet();
+            }
+
+            synchronized (draft) {
+                draft.failures = 0;
+                if (revision > draft.savedRevision) {
+                    draft.savedRevision = revision;
+                    draft.savedSequence = sequence;
+                }
+                if (!draft.isDirty()) {
+                    journal.discard(draft.documentId, draft.author.getId());
+                }
+            }
+            AutosaveStatusDTO status = new AutosaveStatusDTO(draft.documentId, sequence,
+                    version != null ? version.getId() : null, version != null ? version.getVersionNumber() : null);
+            messagingTemplate.convertAndSendToUser(username, "/queue/documents/autosave", status);
+            return status;
+        }
+    }
+
+    private void flushQuietly(Draft draft, String username, long now) {
+        try {
+            flush(draft, username, AUTOSAVE_MESSAGE);
+        } catch (PermissionDeniedException | NotFoundException e) {
+            // Sem permissão ou sem documento o rascunho nunca poderá ser gravado
+            logger.warn("Rascunho do documento {} descartado: {}", draft.documentId, e.getMessage());
+            synchronized (draft) {
+                draft.savedRevision = draft.revision;
+                draft.savedSequence = draft.sequence;
+                journal.discard(draft.documentId, draft.author.getId());
+            }
+            sendError(username, e);
+        } catch (ApiException e) {
+            // Recusado pelas regras de edição (reserva, outro editor); o rascunho continua no journal
+            logger.warn("Rascunho do documento {} não gravado: {}", draft.documentId, e.getMessage());
+            if (retryLater(draft, now)) {
+                sendError(username, e);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erro ao gravar o rascunho do documento {}", draft.documentId, e);
+            retryLater(draft, now);
+        }
+    }
+
+    /**
+     * Adia a próxima tentativa com espera exponencial (debounce, 2x, 4x... até max-delay-ms) e desiste
+     * após max-retries falhas seguidas, até a próxima edição ou a saída do editor. Retorna se o editor
+     * deve ser avisado: só na primeira falha e quando as tentativas param, não a cada tentativa.
+     */
+    private boolean retryLater(Draft draft, long now) {
+        synchronized (draft) {
+            draft.failures++;
+            if (draft.failures > maxRetries) {
+                draft.retryAt = Long.MAX_VALUE;
+                return draft.failures == maxRetries + 1;
+            }
+            long delay = debounceMs << Math.min(draft.failures - 1, 20);
+            draft.retryAt = now + Math.min(delay, Math.max(maxDelayMs, debounceMs));
+            return draft.failures == 1;
+        }
+    }
+
+    // Mesmo formato dos erros de mensagens do editor (CollaborativeEditingController)
+    private void sendError(String username, ApiException e) {
+        messagingTemplate.convertAndSendToUser(username, "/queue/errors", Map.of("error", e.getMessage()));
+    }
+
+    private User findUser(String username) {
+        return userRepository.findByEmail(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+    }
+}
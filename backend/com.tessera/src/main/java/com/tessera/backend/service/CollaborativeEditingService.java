@@ -0,0 +1,286 @@
+package com.tessera.backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.tessera.backend.dto.CollaborativeSnapshotDTO;
+import com.tessera.backend.dto.DocumentOperationDTO;
+import com.tessera.backend.entity.User;
+import com.tessera.backend.exception.BusinessRuleException;
+import com.tessera.backend.exception.ResourceNotFoundException;
+import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.util.TextOperation;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Edição colaborativa em tempo real com transformação operacional (modelo do ot.js).
+ *
+ * O servidor mantém em memória o texto autoritativo de cada documento aberto e o histórico
+ * recente de operações. Cada operação recebida é transformada contra as operações que o
+ * cliente ainda não tinha visto, aplicada e retransmitida em /topic/documents/{id}/ops.
+ * O estado é gravado periodicamente como nova versão (checkpoint).
+ */
+@Service
+public class CollaborativeEditingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollaborativeEditingService.class);
+
+    static final class DocumentSession {
+        final Long documentId;
+        final String sessionId = UUID.randomUUID().toString();
+        final Map<String, User> editors = new ConcurrentHashMap<>();
+        // Operações das revisões [historyStart, revision)
+        final List<TextOperation> history = new ArrayList<>();
+        String content;
+        int revision;
+        int historyStart;
+        int checkpointRevision;
+        User lastAuthor;
+        volatile long lastActivity = System.currentTimeMillis();
+        boolean closed;
+        // Retransmissões na ordem das revisões, enviadas fora do lock por quem ganhar `sending`
+        final Queue<DocumentOperationDTO> outbox = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean sending = new AtomicBoolean();
+
+        DocumentSession(Long documentId, String content) {
+            this.documentId = documentId;
+            this.content = content;
+        }
+    }
+
+    private final Map<Long, DocumentSession> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong droppedBroadcasts = new AtomicLong();
+
+    @Autowired
+    private VersionService versionService;
+
+    @Autowired
+    private EditingSessionService editingSessionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${tessera.collab.history-size:500}")
+    private int historySize;
+
+    @Value("${tessera.collab.idle-timeout-ms:600000}")
+    private long idleTimeoutMs;
+
+    /**
+     * Entra na sessão colaborativa do documento, criando-a a partir da última versão se necessário.
+     */
+    public CollaborativeSnapshotDTO join(Long documentId, String username) {
+        User user = findUser(username);
+        versionService.checkCanEdit(documentId, user);
+
+        while (true) {
+            DocumentSession session = sessions.get(documentId);
+            if (session == null) {
+                String content = versionService.getLatestContent(documentId);
+                // Criação e marcação juntas: não se intercalam com o encerramento de uma sessão anterior
+                session = sessions.compute(documentId, (id, current) -> {
+                    if (current != null) {
+                        return current;
+                    }
+                    editingSessionService.setCollaborative(id, true);
+                    return new DocumentSession(id, content);
+                });
+            }
+            CollaborativeSnapshotDTO snapshot;
+            synchronized (session) {
+                if (session.closed) {
+                    // Encerrada por inatividade depois de lida do mapa: entra em uma sessão nova
+                    continue;
+                }
+                session.editors.put(username, user);
+                snapshot = new CollaborativeSnapshotDTO(documentId, session.sessionId, session.revision, session.content);
+            }
+            editingSessionService.joinSession(documentId, user);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Aplica uma operação (ou lote de operações consecutivas) enviada por um editor.
+     */
+    public DocumentOperationDTO applyOperation(Long documentId, String username, DocumentOperationDTO message) {
+        DocumentSession session = sessions.get(documentId);
+        if (session == null || !session.sessionId.equals(message.getSessionId())) {
+            throw new BusinessRuleException("Sessão de edição expirada; sincronize o documento");
+        }
+        User user = session.editors.get(username);
+        if (user == null) {
+            user = findUser(username);
+            versionService.checkCanEdit(documentId, user);
+            session.editors.put(username, user);
+        }
+        if (message.getRevision() == null || message.getOperations() == null || message.getOperations().isEmpty()) {
+            throw new BusinessRuleException("Operação sem revisão ou sem conteúdo");
+        }
+
+        TextOperation operation;
+        try {
+            // Lote do cliente vira uma única operação: uma revisão e uma retransmissão
+            operation = TextOperation.fromJson(message.getOperations().get(0));
+            for (int i = 1; i < message.getOperations().size(); i++) {
+                operation = operation.compose(TextOperation.fromJson(message.getOperations().get(i)));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BusinessRuleException("Operação inválida: " + e.getMessage());
+        }
+
+        DocumentOperationDTO broadcast;
+        synchronized (session) {
+            if (session.closed) {
+                throw new BusinessRuleException("Sessão de edição expirada; sincronize o documento");
+            }
+            int revision = message.getRevision();
+            if (revision < session.historyStart || revision > session.revision) {
+                throw new BusinessRuleException("Revisão " + revision + " fora do histórico; sincronize o documento");
+            }
+            try {
+                for (int i = revision - session.historyStart; i < session.history.size(); i++) {
+                    operation = TextOperation.transform(operation, session.history.get(i))[0];
+                }
+                session.content = operation.apply(session.content);
+            } catch (IllegalArgumentException e) {
+                throw new BusinessRuleException("Operação inválida: " + e.getMessage());
+            }
+            session.history.add(operation);
+            session.revision++;
+            session.lastAuthor = user;
+            session.lastActivity = System.currentTimeMillis();
+            compactHistory(session);
+
+            broadcast = new DocumentOperationDTO(session.sessionId, message.getClientId(),
+                    session.revision, List.of(operation.toJson()), user.getId());
+            // Enfileirada dentro do lock para manter a ordem das revisões no tópico
+            session.outbox.add(broadcast);
+        }
+        sendBroadcasts(session);
+        return broadcast;
+    }
+
+    // Uma thread por vez esvazia a fila; quem chega durante o envio só deixa a sua operação nela
+    private void sendBroadcasts(DocumentSession session) {
+        while (!session.outbox.isEmpty() && session.sending.compareAndSet(false, true)) {
+            try {
+                DocumentOperationDTO next;
+                while ((next = session.outbox.poll()) != null) {
+                    try {
+                        messagingTemplate.convertAndSend("/topic/documents/" + session.documentId + "/ops", next);
+                    } catch (MessagingException e) {
+                        // Canal de saída cheio: a operação já foi aceita; os editores sincronizam pela lacuna de revisão
+                        droppedBroadcasts.incrementAndGet();
+                        logger.debug("Retransmissão da revisão {} do documento {} descartada: {}",
+                                next.getRevision(), session.documentId, e.getMessage());
+                    }
+                }
+            } finally {
+                session.sending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Grava como versão o estado das sessões alteradas desde o último checkpoint e
+     * encerra as sessões ociosas.
+     */
+    @Scheduled(fixedDelayString = "${tessera.collab.checkpoint-interval-ms:60000}")
+    public void checkpointSessions() {
+        long now = System.currentTimeMillis();
+        for (DocumentSession session : sessions.values()) {
+            checkpoint(session);
+            synchronized (session) {
+                if (now - session.lastActivity > idleTimeoutMs && session.revision == session.checkpointRevision) {
+                    // Remoção e desmarcação juntas, como na criação em join
+                    sessions.compute(session.documentId, (id, current) -> {
+                        if (current == session) {
+                            editingSessionService.setCollaborative(id, false);
+                            return null;
+                        }
+                        return current;
+                    });
+                    session.closed = true;
+                    logger.debug("Sessão colaborativa do documento {} encerrada por inatividade", session.documentId);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void flush() {
+        sessions.values().forEach(this::checkpoint);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeSessions", sessions.size());
+        stats.put("editors", sessions.values().stream().mapToInt(s -> s.editors.size()).sum());
+        stats.put("droppedBroadcasts", droppedBroadcasts.get());
+        return stats;
+    }
+
+    void checkpoint(DocumentSession session) {
+        String content;
+        int revision;
+        User author;
+        synchronized (session) {
+            if (session.revision == session.checkpointRevision || session.lastAuthor == null) {
+                return;
+            }
+            content = session.content;
+            revision = session.revision;
+            author = session.lastAuthor;
+        }
+        try {
+            versionService.createCheckpoint(session.documentId, content, author,
+                    "Checkpoint automático da edição colaborativa (revisão " + revision + ")");
+            synchronized (session) {
+                session.checkpointRevision = Math.max(session.checkpointRevision, revision);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Erro ao gravar checkpoint do documento {}", session.documentId, e);
+        }
+    }
+
+    DocumentSession getSession(Long documentId) {
+        return sessions.get(documentId);
+    }
+
+    // Descarta as operações mais antigas; clientes atrasados além da janela precisam sincronizar
+    private void compactHistory(DocumentSession session) {
+        int excess = session.history.size() - historySize;
+        if (excess >= Math.max(1, historySize / 4)) {
+            session.history.subList(0, excess).clear();
+            session.historyStart += excess;
+        }
+    }
+
+    private User findUser(String username) {
+        return userRepository.findByEmail(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.tessera.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tessera.backend.exception.ResourceNotFoundException;
+import com.tessera.backend.repository.ContentBlobRepository;
+import com.tessera.backend.repository.VersionRepository;
+import com.tessera.backend.util.ContentCodec;
+
+/**
+ * Armazenamento endereçado por conteúdo (SHA-256) dos textos das versões.
+ * Conteúdos idênticos são gravados uma única vez; a contagem de referências
+ * permite remover blobs órfãos quando as versões são excluídas.
+ */
+@Service
+public class ContentStoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentStoreService.class);
+
+    @Autowired
+    private ContentBlobRepository contentBlobRepository;
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    public String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 não disponível", e);
+        }
+    }
+
+    public boolean exists(String hash) {
+        return contentBlobRepository.existsById(hash);
+    }
+
+    /**
+     * Indica se o conteúdo é referenciado por mais de uma versão.
+     */
+    public boolean isShared(String hash) {
+        Integer refCount = contentBlobRepository.findRefCountByHash(hash);
+        return refCount != null && refCount > 1;
+    }
+
+    /**
+     * Adiciona uma referência ao conteúdo. O corpo só é gravado se o hash ainda não existir.
+     */
+    @Transactional
+    public void acquire(String hash, String content) {
+        if (contentBlobRepository.incrementRefCount(hash) > 0) {
+            return;
+        }
+        contentBlobRepository.insertOrIncrement(hash, ContentCodec.encode(content), content.length());
+    }
+
+    @Transactional
+    public void release(String hash) {
+        contentBlobRepository.decrementRefCount(hash, 1);
+    }
+
+    public String load(String hash) {
+        return ContentCodec.decode(loadRaw(hash));
+    }
+
+    /**
+     * Bytes armazenados do blob (ver {@link ContentCodec}), sem descompactar.
+     */
+    public byte[] loadRaw(String hash) {
+        byte[] data = contentBlobRepository.findDataByHash(hash);
+        if (data == null) {
+            throw new ResourceNotFoundException("Conteúdo não encontrado: " + hash);
+        }
+        return data;
+    }
+
+    /**
+     * Libera as referências das versões de um documento que será excluído
+     * e remove os blobs que ficaram sem referência.
+     */
+    @Transactional
+    public void releaseDocument(Long documentId) {
+        List<Object[]> references = versionRepository.countBlobReferencesByDocument(documentId);
+        if (references.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> counts = new java.util.HashMap<>();
+        for (Object[] row : references) {
+            counts.put((String) row[0], ((Long) row[1]).intValue());
+        }
+        counts.forEach(contentBlobRepository::decrementRefCount);
+        int removed = contentBlobRepository.deleteOrphans(counts.keySet());
+        logger.debug("Documento {}: {} referências de conteúdo liberadas, {} blobs removidos",
+                documentId, counts.size(), removed);
+    }
+
+    @Scheduled(fixedDelayString = "${tessera.content-store.gc-interval-ms:3600000}")
+    @Transactional
+    public void collectGarbage() {
+        int removed = contentBlobRepository.deleteAllOrphans();
+        if (removed > 0) {
+            logger.info("Coleta de lixo do armazenamento de conteúdo: {} blobs órfãos removidos", removed);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.tessera.backend.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.tessera.backend.entity.User;
+import com.tessera.backend.exception.BusinessRuleException;
+import com.tessera.backend.exception.ResourceNotFoundException;
+import com.tessera.backend.repository.UserRepository;
+
+/**
+ * Cursores e seleções dos editores, em um canal próprio por documento.
+ *
+ * Cada editor recebe um índice pequeno no documento, anunciado em
+ * /topic/documents/{id}/cursors/users (índice -> id do usuário). As posições são enviadas em
+ * /topic/documents/{id}/cursors como um array plano de inteiros [índice, âncora, cabeça, ...].
+ * Só a última posição de cada editor é mantida entre dois envios, e cada documento recebe
+ * no máximo um frame por {@code tessera.cursors.flush-interval-ms}. Âncora e cabeça -1
+ * indicam que o cursor saiu.
+ */
+@Service
+public class CursorService {
+
+    static final class DocumentCursors {
+        final Map<String, Integer> indexes = new HashMap<>();
+        final Map<Integer, Long> users = new HashMap<>();
+        // Última posição de cada índice ainda não enviada
+        final Map<Integer, int[]> pending = new LinkedHashMap<>();
+        final Map<Integer, Long> lastUpdate = new HashMap<>();
+        // Removido do mapa pelo flush; quem ainda o tiver em mãos busca ou cria outro
+        boolean closed;
+    }
+
+    private static final int[] REMOVED = { -1, -1 };
+
+    private final Map<Long, DocumentCursors> documents = new ConcurrentHashMap<>();
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong superseded = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VersionService versionService;
+
+    @Value("${tessera.cursors.idle-ms:30000}")
+    private long idleMs;
+
+    /**
+     * Registra a posição atual do cursor do editor: {@code [âncora, cabeça]}.
+     */
+    public void update(Long documentId, String username, int[] position) {
+        if (position == null || position.length != 2 || position[0] < 0 || position[1] < 0) {
+            throw new BusinessRuleException("Posição de cursor inválida");
+        }
+        received.incrementAndGet();
+        while (true) {
+            DocumentCursors cursors = documents.computeIfAbsent(documentId, id -> new DocumentCursors());
+
+            Integer index;
+            synchronized (cursors) {
+                if (cursors.closed) {
+                    continue;
+                }
+                index = cursors.indexes.get(username);
+            }
+            if (index == null) {
+                index = register(documentId, cursors, username);
+                if (index == null) {
+                    continue;
+                }
+            }
+
+            synchronized (cursors) {
+                if (cursors.closed) {
+                    continue;
+                }
+                if (cursors.pending.put(index, position) != null) {
+                    superseded.incrementAndGet();
+                }
+                cursors.lastUpdate.put(index, System.currentTimeMillis());
+            }
+            return;
+        }
+    }
+
+    /**
+     * Envia as posições pendentes, um frame por documento, e remove cursores inativos.
+     */
+    @Scheduled(fixedRateString = "${tessera.cursors.flush-interval-ms:50}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, DocumentCursors> entry : documents.entrySet()) {
+            DocumentCursors cursors = entry.getValue();
+            int[] frame;
+            synchronized (cursors) {
+                Iterator<Map.Entry<Integer, Long>> it = cursors.lastUpdate.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Integer, Long> update = it.next();
+                    if (now - update.getValue() > idleMs) {
+                        cursors.pending.put(update.getKey(), REMOVED);
+                        it.remove();
+                    }
+                }
+                if (cursors.pending.isEmpty()) {
+                    if (cursors.lastUpdate.isEmpty()) {
+                        cursors.closed = true;
+                        documents.remove(entry.getKey(), cursors);
+                    }
+                    continue;
+                }
+                frame = new int[cursors.pending.size() * 3];
+                int i = 0;
+                for (Map.Entry<Integer, int[]> position : cursors.pending.entrySet()) {
+                    frame[i++] = position.getKey();
+                    frame[i++] = position.getValue()[0];
+                    frame[i++] = position.getValue()[1];
+                }
+                cursors.pending.clear();
+            }
+            messagingTemplate.convertAndSend("/topic/documents/" + entry.getKey() + "/cursors", frame);
+            frames.incrementAndGet();
+        }
+    }
+
+    /**
+     * Tabela atual índice -> id do usuário, para clientes que entram depois dos demais.
+     */
+    public Map<Integer, Long> getUsers(Long documentId, String username) {
+        User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+        versionService.checkCanEdit(documentId, user);
+
+        DocumentCursors cursors = documents.get(documentId);
+        if (cursors == null) {
+            return Map.of();
+        }
+        synchronized (cursors) {
+            return new HashMap<>(cursors.users);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("documents", documents.size());
+        stats.put("positionsReceived", received.get());
+        stats.put("positionsSuperseded", superseded.get());
+        stats.put("framesSent", frames.get());
+        return stats;
+    }
+
+    // Primeiro cursor do editor no documento: valida a permissão e atribui um índice;
+    // null se o documento foi removido pelo flush nesse meio-tempo
+    private Integer register(Long documentId, DocumentCursors cursors, String username) {
+        User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+        versionService.checkCanEdit(documentId, user);
+
+        Map<Integer, Long> users;
+        Integer index;
+        synchronized (cursors) {
+            if (cursors.closed) {
+                return null;
+            }
+            index = cursors.indexes.get(username);
+            if (index != null) {
+                return index;
+            }
+            index = cursors.indexes.size();
+            cursors.indexes.put(username, index);
+            cursors.users.put(index, user.getId());
+            users = new HashMap<>(cursors.users);
+        }
+        messagingTemplate.convertAndSend("/topic/documents/" + documentId + "/cursors/users", users);
+        return index;
+    }
+}
@@ -0,0 +1,142 @@
+package com.tessera.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tessera.backend.entity.CollaboratorPermission;
+import com.tessera.backend.entity.CollaboratorRole;
+import com.tessera.backend.entity.DocumentCollaborator;
+import com.tessera.backend.event.DocumentAclChangedEvent;
+import com.tessera.backend.repository.DocumentCollaboratorRepository;
+import com.tessera.backend.util.BoundedLruCache;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Índice em memória das permissões de cada usuário em cada documento, como máscara de bits
+ * derivada do papel e da permissão do colaborador ativo (0 para quem não é colaborador).
+ *
+ * As entradas de um documento são removidas quando seus colaboradores mudam
+ * ({@link #invalidateDocument}); com {@code tessera.acl.invalidation=database}, a remoção
+ * também chega aos outros nós.
+ */
+@Component
+public class DocumentAclIndex {
+
+    public static final int ACCESS = 1;
+    public static final int EDIT = 1 << 1;
+    public static final int MANAGE_COLLABORATORS = 1 << 2;
+    public static final int CHANGE_STATUS = 1 << 3;
+    public static final int DELETE = 1 << 4;
+
+    record Key(long userId, long documentId) {}
+
+    private record Entry(int mask, long expiresAt) {}
+
+    @Autowired
+    private DocumentCollaboratorRepository collaboratorRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${tessera.acl.max-entries:50000}")
+    private int maxEntries;
+
+    // Limite de vida de cada máscara, caso uma invalidação de outro nó se perca
+    @Value("${tessera.acl.ttl-ms:300000}")
+    private long ttlMs;
+
+    private BoundedLruCache<Key, Entry> permissions;
+
+    // Incrementado a cada invalidação: uma máscara lida durante uma invalidação não é armazenada
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void initCache() {
+        permissions = new BoundedLruCache<>(maxEntries, maxEntries, entry -> 1);
+    }
+
+    public static int mask(CollaboratorRole role, CollaboratorPermission permission) {
+        int mask = ACCESS;
+        if (permission.canWrite() && role.canEdit()) {
+            mask |= EDIT;
+        }
+        if (permission.canManageCollaborators() || role.canManageCollaborators()) {
+            mask |= MANAGE_COLLABORATORS | CHANGE_STATUS;
+        }
+        if (role.canSubmitDocument() || role.canApproveDocument()) {
+            mask |= CHANGE_STATUS;
+        }
+        if (role == CollaboratorRole.PRIMARY_STUDENT) {
+            mask |= DELETE;
+        }
+        return mask;
+    }
+
+    public boolean has(Long userId, Long documentId, int permission) {
+        return (permissions(userId, documentId) & permission) == permission;
+    }
+
+    public int permissions(Long userId, Long documentId) {
+        if (userId == null || documentId == null) {
+            return 0;
+        }
+        Key key = new Key(userId, documentId);
+        long now = System.currentTimeMillis();
+        Entry cached = permissions.get(key);
+        if (cached != null && now < cached.expiresAt()) {
+            return cached.mask();
+        }
+        long startGeneration = generation.get();
+        int mask = collaboratorRepository.findActiveByDocumentIdAndUserId(documentId, userId)
+                .map(this::mask)
+                .orElse(0);
+        if (generation.get() == startGeneration) {
+            permissions.put(key, new Entry(mask, now + ttlMs));
+        }
+        return mask;
+    }
+
+    /**
+     * Remove as permissões em cache do documento. Dentro de uma transação, a remoção é repetida
+     * após o commit para descartar máscaras lidas antes da alteração.
+     */
+    public void invalidateDocument(Long documentId) {
+        if (documentId == null) {
+            return;
+        }
+        evictDocument(documentId);
+        eventPublisher.publishEvent(new DocumentAclChangedEvent(documentId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictDocument(documentId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Remoção apenas neste nó (invalidações recebidas de outros nós).
+     */
+    void evictDocument(long documentId) {
+        generation.incrementAndGet();
+        permissions.removeIf(key -> key.documentId() == documentId);
+    }
+
+    public Map<String, Object> stats() {
+        return permissions.stats();
+    }
+
+    private int mask(DocumentCollaborator collaborator) {
+        return mask(collaborator.getRole(), collaborator.getPermission());
+    }
+}
@@ -39,6 +39,9 @@ public class DocumentCollaboratorService {
     @Autowired
     private NotificationEventService notificationEventService;
 
+    @Autowired
+    private DocumentAclIndex aclIndex;
+
     /**
      * Lista todos os colaboradores de um documento
      */
@@ -87,6 +90,7 @@ public class DocumentCollaboratorService {
             existing.setAddedAt(LocalDateTime.now());
 
             existing = collaboratorRepository.save(existing);
+            aclIndex.invalidateDocument(document.getId());
             notificationEventService.onCollaboratorAdded(document, newCollaborator, currentUser, request.getRole());
             return mapToDTO(existing);
         }
@@ -113,6 +117,7 @@ public class DocumentCollaboratorService {
             }
             throw e;
         }
+        aclIndex.invalidateDocument(document.getId());
         
         // Notificar o novo colaborador
         notificationEventService.onCollaboratorAdded(document, newCollaborator, currentUser, request.getRole());
@@ -159,6 +164,7 @@ public class DocumentCollaboratorService {
         collaborator.setActive(false);
         collaborator.setRemovalReason("Removido por " + currentUser.getName());
         collaboratorRepository.save(collaborator);
+        aclIndex.invalidateDocument(document.getId());
         
         // Notificar sobre remoção
         notificationEventService.onCollaboratorRemoved(document, collaborator.getUser(), currentUser);
@@ -185,6 +191,7 @@ public class DocumentCollaboratorService {
         
         collaborator.setPermission(newPermission);
         collaborator = collaboratorRepository.save(collaborator);
+        aclIndex.invalidateDocument(document.getId());
 
         return mapToDTO(collaborator);
     }
@@ -211,6 +218,7 @@ public class DocumentCollaboratorService {
         
         collaborator.setRole(newRole);
         collaborator = collaboratorRepository.save(collaborator);
+        aclIndex.invalidateDocument(document.getId());
         
         return mapToDTO(collaborator);
     }
@@ -246,6 +254,7 @@ public class DocumentCollaboratorService {
         collaborator.setRole(newRole);
         collaborator.setPermission(CollaboratorPermission.FULL_ACCESS);
         collaborator = collaboratorRepository.save(collaborator);
+        aclIndex.invalidateDocument(document.getId());
         
         return mapToDTO(collaborator);
     }
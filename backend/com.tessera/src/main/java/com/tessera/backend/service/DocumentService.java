@@ -46,6 +46,15 @@ public class DocumentService {
 
     @Autowired
     private EditingSessionService editingSessionService;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private VersionNumberService versionNumberService;
+
+    @Autowired
+    private DocumentAclIndex aclIndex;
     // Método auxiliar para verificar papéis de forma segura para lambdas
     private boolean userHasRole(final User user, final String roleName) {
         if (user == null || user.getRoles() == null || roleName == null) {
@@ -82,6 +91,7 @@ public class DocumentService {
         logger.info("Documento salvo com ID: {}", savedDocument.getId());
 
         createPrimaryCollaborators(savedDocument, student, advisor, currentUser);
+        aclIndex.invalidateDocument(savedDocument.getId());
 
         notificationEventService.onDocumentCreated(savedDocument, currentUser);
         logger.info("Notificação de criação de documento disparada para o documento ID: {}", savedDocument.getId());
@@ -261,6 +271,7 @@ public class DocumentService {
                     document.setRejectionReason(null); // Limpar rejeição anterior
                     document.setRejectedAt(null);
                     document.setApprovedAt(null); // Limpar aprovação anterior se estiver voltando de REVISION para SUBMITTED
+                    versionNumberService.requestMajorBump(document.getId()); // Próxima versão abre um novo número principal
                 } else if (!(oldStatus == DocumentStatus.DRAFT || oldStatus == DocumentStatus.REVISION)) {
                     throw new IllegalStateException("Documento só pode ser submetido se estiver em Rascunho ou Revisão.");
                 } else {
@@ -386,7 +397,10 @@ public class DocumentService {
         // Ou, se o CascadeType.REMOVE está em DocumentCollaborator->document, apenas deletar o Document pode ser suficiente
         // Se o cascade for Document -> Collaborators, Document -> Versions, etc., o delete(document) deve cuidar disso.
 
+        // As versões são removidas em cascata; as referências aos blobs de conteúdo precisam ser liberadas
+        contentStoreService.releaseDocument(id);
         documentRepository.delete(document);
+        aclIndex.invalidateDocument(id);
         logger.info("Documento ID {} excluído com sucesso por {}", id, currentUser.getEmail());
     }
 
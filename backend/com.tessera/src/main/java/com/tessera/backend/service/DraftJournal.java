@@ -0,0 +1,262 @@
+package com.tessera.backend.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tessera.backend.util.DiffUtils;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Journal local dos rascunhos ainda não gravados no banco.
+ *
+ * Cada rascunho (documento + usuário) tem um arquivo próprio onde cada atualização é anexada
+ * como registro [sequência, usuário, tipo, conteúdo ou patch, CRC32]. Atualizações enviadas como
+ * patch são registradas como patch sobre o registro anterior, não com o conteúdo inteiro. Na
+ * recuperação o conteúdo é refeito até o último registro íntegro; um registro cortado por queda
+ * do processo é ignorado. O arquivo é apagado quando o rascunho é gravado e reescrito só com o
+ * conteúdo completo ao passar de {@code max-bytes}.
+ *
+ * As gravações são chamadas na thread do canal de entrada do WebSocket, então não esperam o
+ * disco: os arquivos alterados são sincronizados juntos a cada {@code journal-sync-interval-ms}
+ * (com {@code journal-fsync}), e uma queda do sistema perde no máximo esse intervalo de edição.
+ */
+@Component
+public class DraftJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(DraftJournal.class);
+
+    private static final String SUFFIX = ".journal";
+
+    private static final byte FULL = 0;
+    private static final byte PATCH = 1;
+
+    public record Entry(Long documentId, Long userId, String username, long sequence, String content) {}
+
+    @Autowired
+    private DiffUtils diffUtils;
+
+    @Value("${tessera.autosave.journal-dir:data/autosave}")
+    private String journalDir;
+
+    @Value("${tessera.autosave.journal-fsync:true}")
+    private boolean fsync;
+
+    // Arquivos com gravações ainda não sincronizadas no disco
+    private final Set<Path> unsynced = ConcurrentHashMap.newKeySet();
+
+    @Value("${tessera.autosave.journal-max-bytes:1048576}")
+    private long maxBytes;
+
+    private Path directory;
+
+    @PostConstruct
+    void init() {
+        directory = Paths.get(journalDir);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível criar o diretório do journal de rascunhos " + directory, e);
+        }
+    }
+
+    /**
+     * Anexa a atualização como patch sobre o registro anterior do rascunho; {@code entry} traz o
+     * conteúdo completo resultante, gravado no lugar do patch quando o arquivo ainda não existe
+     * ou precisa ser reescrito.
+     */
+    public void appendPatch(Entry entry, String patch) {
+        Path file = file(entry.documentId(), entry.userId());
+        try {
+            boolean exists = Files.exists(file);
+            long size = exists ? Files.size(file) : 0;
+            ByteBuffer record = null;
+            if (patch != null && exists) {
+                record = ByteBuffer.wrap(encode(entry.sequence(), entry.username(), PATCH, patch));
+            }
+            if (record == null || size + record.remaining() > maxBytes) {
+                record = ByteBuffer.wrap(encode(entry.sequence(), entry.username(), FULL, entry.content()));
+            }
+            if (exists && size + record.remaining() > maxBytes) {
+                // Só o conteúdo atual importa
+                replace(file, record);
+            } else {
+                write(file, record, false, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                if (fsync) {
+                    unsynced.add(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar o journal de rascunhos " + file, e);
+        }
+    }
+
+    public void discard(Long documentId, Long userId) {
+        try {
+            Files.deleteIfExists(file(documentId, userId));
+        } catch (IOException e) {
+            logger.warn("Não foi possível remover o journal do rascunho {}/{}", documentId, userId, e);
+        }
+    }
+
+    /**
+     * Último registro íntegro de cada rascunho deixado no journal. Cada arquivo é reescrito só com
+     * esse registro: um final cortado pela queda ficaria antes das próximas gravações, e a leitura,
+     * que para no primeiro registro inválido, as perderia se o rascunho não for gravado agora.
+     */
+    public List<Entry> recover() {
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                Entry last = readLast(file);
+                if (last != null) {
+                    replace(file, ByteBuffer.wrap(encode(last.sequence(), last.username(), FULL, last.content())));
+                    entries.add(last);
+                } else {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Erro ao ler o journal de rascunhos em {}", directory, e);
+        }
+        return entries;
+    }
+
+    /**
+     * Sincroniza no disco os arquivos gravados desde a última chamada (group commit).
+     */
+    @Scheduled(fixedDelayString = "${tessera.autosave.journal-sync-interval-ms:1000}")
+    public void sync() {
+        for (Path file : unsynced) {
+            unsynced.remove(file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            } catch (NoSuchFileException e) {
+                // Rascunho gravado no banco e descartado nesse meio-tempo
+            } catch (IOException e) {
+                logger.warn("Não foi possível sincronizar o journal de rascunho {}", file, e);
+            }
+        }
+    }
+
+    // Troca o arquivo de forma atômica; o temporário é sincronizado antes da troca para que o
+    // rename não exponha um arquivo vazio após uma queda
+    private void replace(Path file, ByteBuffer record) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        write(tmp, record, true, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void write(Path file, ByteBuffer record, boolean force, StandardOpenOption... options) throws IOException {
+        List<StandardOpenOption> all = new ArrayList<>(List.of(options));
+        all.add(StandardOpenOption.WRITE);
+        try (FileChannel channel = FileChannel.open(file, all.toArray(StandardOpenOption[]::new))) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (fsync && force) {
+                channel.force(false);
+            }
+        }
+    }
+
+    private Entry readLast(Path file) {
+        String name = file.getFileName().toString();
+        String[] ids = name.substring(0, name.length() - SUFFIX.length()).split("-");
+        if (ids.length != 2 || !ids[0].matches("\\d+") || !ids[1].matches("\\d+")) {
+            return null;
+        }
+        Long documentId = Long.valueOf(ids[0]);
+        Long userId = Long.valueOf(ids[1]);
+
+        Entry last = null;
+        try (InputStream in = Files.newInputStream(file);
+             DataInputStream data = new DataInputStream(in)) {
+            long size = Files.size(file);
+            while (true) {
+                long sequence = data.readLong();
+                String username = data.readUTF();
+                byte type = data.readByte();
+                int length = data.readInt();
+                if ((type != FULL && type != PATCH) || length < 0 || length > size) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                data.readFully(payload);
+                long checksum = data.readLong();
+                if (checksum != checksum(sequence, username, type, payload)) {
+                    break;
+                }
+                String text = new String(payload, StandardCharsets.UTF_8);
+                if (type == FULL) {
+                    last = new Entry(documentId, userId, username, sequence, text);
+                } else if (last != null) {
+                    last = new Entry(documentId, userId, username, sequence, diffUtils.applyPatch(last.content(), text));
+                } else {
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // Fim do arquivo ou registro incompleto: fica o último íntegro
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Journal de rascunho {} corrompido; usando o último registro íntegro", file, e);
+        }
+        return last;
+    }
+
+    private byte[] encode(long sequence, String username, byte type, String text) {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(sequence);
+            out.writeUTF(username);
+            out.writeByte(type);
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.writeLong(checksum(sequence, username, type, payload));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private long checksum(long sequence, String username, byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(username.getBytes(StandardCharsets.UTF_8));
+        crc.update(type);
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    private Path file(Long documentId, Long userId) {
+        return directory.resolve(documentId + "-" + userId + SUFFIX);
+    }
+}
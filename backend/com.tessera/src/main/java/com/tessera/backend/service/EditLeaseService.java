@@ -0,0 +1,113 @@
+package com.tessera.backend.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.tessera.backend.dto.EditLeaseDTO;
+import com.tessera.backend.entity.Document;
+import com.tessera.backend.entity.User;
+import com.tessera.backend.exception.ConflictException;
+import com.tessera.backend.exception.PermissionDeniedException;
+import com.tessera.backend.exception.ResourceNotFoundException;
+import com.tessera.backend.repository.DocumentRepository;
+
+/**
+ * Reservas de edição com token de fencing.
+ *
+ * O editor reserva o documento por {@code tessera.leases.ttl-ms} e renova a reserva enquanto
+ * edita. Cada nova reserva recebe um token maior que o da anterior; as gravações de versão
+ * conferem o token dentro da própria transação, então um cliente que perdeu a reserva (pausa,
+ * rede, reinício) não sobrescreve o trabalho de quem a obteve depois.
+ */
+@Service
+public class EditLeaseService {
+
+    @Autowired
+    private EditLeaseStore store;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Value("${tessera.leases.ttl-ms:30000}")
+    private long ttlMs;
+
+    // Exige reserva em toda gravação de versão, e não só quando outro usuário a detém
+    @Value("${tessera.leases.required:false}")
+    private boolean required;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong contended = new AtomicLong();
+    private final AtomicLong renewed = new AtomicLong();
+    private final AtomicLong rejectedWrites = new AtomicLong();
+
+    public EditLeaseDTO acquire(Long documentId, User user) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado"));
+        if (!document.canUserEdit(user)) {
+            throw new PermissionDeniedException("Você não tem permissão para editar este documento");
+        }
+        EditLeaseStore.Lease lease = store.acquire(documentId, user.getId(), ttlMs);
+        if (lease == null || !user.getId().equals(lease.ownerId())) {
+            contended.incrementAndGet();
+            throw new ConflictException("Outro usuário está editando este documento.");
+        }
+        acquired.incrementAndGet();
+        return toDTO(lease);
+    }
+
+    /**
+     * Renovação sem consulta ao documento: um único comando no armazenamento das reservas.
+     */
+    public EditLeaseDTO renew(Long documentId, User user, long token) {
+        if (!store.renew(documentId, user.getId(), token, ttlMs)) {
+            throw new ConflictException("A reserva de edição expirou ou foi obtida por outro usuário");
+        }
+        renewed.incrementAndGet();
+        return new EditLeaseDTO(documentId, token, System.currentTimeMillis() + ttlMs, ttlMs);
+    }
+
+    public void release(Long documentId, User user, long token) {
+        store.release(documentId, user.getId(), token);
+    }
+
+    /**
+     * Confere a reserva antes de gravar uma versão. Deve ser chamado dentro da transação da
+     * gravação, depois das verificações de permissão.
+     */
+    public void validate(Long documentId, User user, Long token) {
+        EditLeaseStore.Lease lease = store.current(documentId);
+        if (lease == null) {
+            if (token != null || required) {
+                rejectedWrites.incrementAndGet();
+                throw new ConflictException("A reserva de edição expirou; reserve o documento novamente");
+            }
+            return;
+        }
+        if (!lease.ownerId().equals(user.getId())) {
+            rejectedWrites.incrementAndGet();
+            throw new ConflictException("Outro usuário está editando este documento.");
+        }
+        if (token == null ? required : token != lease.token()) {
+            rejectedWrites.incrementAndGet();
+            throw new ConflictException("A reserva de edição informada não é mais a vigente");
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("acquired", acquired.get());
+        stats.put("contended", contended.get());
+        stats.put("renewed", renewed.get());
+        stats.put("rejectedWrites", rejectedWrites.get());
+        return stats;
+    }
+
+    private EditLeaseDTO toDTO(EditLeaseStore.Lease lease) {
+        return new EditLeaseDTO(lease.documentId(), lease.token(), lease.expiresAt(), ttlMs);
+    }
+}
@@ -0,0 +1,35 @@
+package com.tessera.backend.service;
+
+/**
+ * Armazenamento das reservas de edição usado pelo {@link EditLeaseService}.
+ *
+ * Implementação escolhida por {@code tessera.leases.mode}: {@code memory} (um único nó; os
+ * tokens recomeçam após reinício) ou {@code database} (tabela document_edit_leases,
+ * compartilhada entre os nós e com expiração pelo relógio do banco).
+ */
+public interface EditLeaseStore {
+
+    /**
+     * Reserva de um documento. {@code expiresAt} é um epoch em milissegundos.
+     */
+    record Lease(Long documentId, Long ownerId, long token, long expiresAt) {}
+
+    /**
+     * Tenta reservar o documento por ttlMs. Devolve a reserva vigente após a tentativa:
+     * se o dono for outro usuário, a reserva não foi obtida.
+     */
+    Lease acquire(Long documentId, Long ownerId, long ttlMs);
+
+    /**
+     * Prorroga a reserva; false se ela já expirou ou passou para outro token.
+     */
+    boolean renew(Long documentId, Long ownerId, long token, long ttlMs);
+
+    void release(Long documentId, Long ownerId, long token);
+
+    /**
+     * Reserva vigente do documento, ou null. Chamado dentro da transação da gravação: no banco,
+     * a reserva fica bloqueada até o commit e não pode trocar de dono no meio da gravação.
+     */
+    Lease current(Long documentId);
+}
@@ -1,8 +1,9 @@
 package com.tessera.backend.service;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -10,21 +11,27 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.tessera.backend.dto.EditingSessionDTO;
 import com.tessera.backend.entity.User;
+import com.tessera.backend.event.EditorLeftEvent;
+import com.tessera.backend.util.TimingWheel;
+
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class EditingSessionService {
 
     public static class EditorInfo {
         private final String name;
+        private final String username;
         private volatile long lastActive;
 
-        EditorInfo(String name) {
+        EditorInfo(String name, String username) {
             this.name = name;
+            this.username = username;
             this.lastActive = System.currentTimeMillis();
         }
 
@@ -37,53 +44,124 @@ public class EditingSessionService {
         }
     }
 
+    // Chave de expiração de um editor na roda de tempo
+    record EditorKey(Long documentId, Long userId) {}
+
     private final Map<Long, Map<Long, EditorInfo>> activeEditors = new ConcurrentHashMap<>();
 
+    private TimingWheel<EditorKey> expirations;
+
+    // Documentos com sessão de edição colaborativa: as alterações de cada editor são mescladas
+    private final Set<Long> collaborativeDocuments = ConcurrentHashMap.newKeySet();
+
     @Value("${tessera.editing.timeout-ms:300000}")
     private long timeoutMs;
 
+    @Value("${tessera.editing.cleanup-interval-ms:1000}")
+    private long cleanupIntervalMs;
+
+    @Autowired
+    private PresenceBroadcaster presenceBroadcaster;
+
+    @Autowired
+    private PresenceRegistry presenceRegistry;
+
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostConstruct
+    void init() {
+        // Mudanças de presença em outros nós também atualizam os clientes deste nó
+        presenceRegistry.onRemoteChange(this::broadcast);
+        // Uma volta da roda cobre o timeout: cada editor é visitado uma única vez ao expirar
+        int wheelSize = (int) Math.min(4096, timeoutMs / cleanupIntervalMs + 2);
+        expirations = new TimingWheel<>(cleanupIntervalMs, wheelSize, System.currentTimeMillis());
+    }
 
     public void joinSession(Long documentId, User user) {
         activeEditors
             .computeIfAbsent(documentId, k -> new ConcurrentHashMap<>())
             .compute(user.getId(), (k, v) -> {
-                if (v == null) return new EditorInfo(user.getName());
+                if (v == null) return new EditorInfo(user.getName(), user.getEmail());
                 v.touch();
                 return v;
             });
+        expirations.schedule(new EditorKey(documentId, user.getId()), System.currentTimeMillis() + timeoutMs);
+        presenceRegistry.join(documentId, user.getId(), user.getName());
         broadcast(documentId);
     }
 
+    /**
+     * Renova o prazo de um editor já presente na sessão, sem reenviar a lista de editores.
+     *
+     * @return false se o editor não está (mais) na sessão e precisa entrar novamente
+     */
+    public boolean heartbeat(Long documentId, String username) {
+        return heartbeat(documentId, username, System.currentTimeMillis());
+    }
+
+    boolean heartbeat(Long documentId, String username, long now) {
+        Map<Long, EditorInfo> map = activeEditors.get(documentId);
+        if (map == null) {
+            return false;
+        }
+        for (Map.Entry<Long, EditorInfo> entry : map.entrySet()) {
+            if (entry.getValue().username != null && entry.getValue().username.equals(username)) {
+                entry.getValue().setLastActive(now);
+                expirations.schedule(new EditorKey(documentId, entry.getKey()), now + timeoutMs);
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void leaveSession(Long documentId, User user) {
         Map<Long, EditorInfo> map = activeEditors.get(documentId);
         if (map != null) {
             map.remove(user.getId());
+            expirations.cancel(new EditorKey(documentId, user.getId()));
+            presenceRegistry.leave(documentId, user.getId());
             if (map.isEmpty()) {
                 activeEditors.remove(documentId);
             }
             broadcast(documentId);
         }
+        eventPublisher.publishEvent(new EditorLeftEvent(documentId, user.getId(), user.getEmail()));
     }
 
     public boolean hasOtherEditors(Long documentId, Long userId) {
-        Map<Long, EditorInfo> map = activeEditors.get(documentId);
-        if (map == null) return false;
-        return map.size() > 1 || (map.size() == 1 && !map.containsKey(userId));
+        if (collaborativeDocuments.contains(documentId)) {
+            return false;
+        }
+        // Considera os editores de todos os nós
+        Map<Long, String> editors = presenceRegistry.getEditors(documentId);
+        return editors.size() > 1 || (editors.size() == 1 && !editors.containsKey(userId));
+    }
+
+    public boolean isCollaborative(Long documentId) {
+        return collaborativeDocuments.contains(documentId);
+    }
+
+    public void setCollaborative(Long documentId, boolean collaborative) {
+        if (collaborative) {
+            collaborativeDocuments.add(documentId);
+        } else {
+            collaborativeDocuments.remove(documentId);
+        }
     }
 
     public Collection<EditingSessionDTO> getEditors(Long documentId) {
-        Map<Long, EditorInfo> map = activeEditors.getOrDefault(documentId, Collections.emptyMap());
-        return map.entrySet().stream()
-                   .map(e -> new EditingSessionDTO(documentId, e.getKey(), e.getValue().name))
+        return presenceRegistry.getEditors(documentId).entrySet().stream()
+                   .map(e -> new EditingSessionDTO(documentId, e.getKey(), e.getValue()))
                    .collect(Collectors.toList());
     }
 
+    /**
+     * Agenda o envio da lista de editores; alterações próximas geram um único frame.
+     */
     public void broadcast(Long documentId) {
-        Collection<EditingSessionDTO> editors = getEditors(documentId);
         String destination = "/topic/documents/" + documentId + "/editors";
-        messagingTemplate.convertAndSend(destination, editors);
+        presenceBroadcaster.publish(destination, () -> getEditors(documentId));
     }
 
     Map<Long, Map<Long, EditorInfo>> getActiveEditors() {
@@ -94,20 +172,39 @@ public class EditingSessionService {
         return timeoutMs;
     }
 
-    @Scheduled(fixedRateString = "${tessera.editing.cleanup-interval-ms:60000}")
+    /**
+     * Remove os editores cujo prazo venceu. Apenas os editores que expiram são visitados.
+     */
+    @Scheduled(fixedRateString = "${tessera.editing.cleanup-interval-ms:1000}")
     public void cleanupIdleEditors() {
-        long now = System.currentTimeMillis();
-        for (Map.Entry<Long, Map<Long, EditorInfo>> docEntry : activeEditors.entrySet()) {
-            Long docId = docEntry.getKey();
-            Map<Long, EditorInfo> map = docEntry.getValue();
-            int before = map.size();
-            map.entrySet().removeIf(e -> now - e.getValue().lastActive > timeoutMs);
-            if (map.isEmpty()) {
-                activeEditors.remove(docId);
+        cleanupIdleEditors(System.currentTimeMillis());
+    }
+
+    void cleanupIdleEditors(long now) {
+        Set<Long> changed = new HashSet<>();
+        for (EditorKey key : expirations.advance(now)) {
+            Map<Long, EditorInfo> map = activeEditors.get(key.documentId());
+            if (map == null) {
+                continue;
             }
-            if (before != map.size()) {
-                broadcast(docId);
+            // Confere o último acesso: o editor pode ter entrado de novo durante a expiração
+            EditorInfo[] removed = new EditorInfo[1];
+            map.computeIfPresent(key.userId(), (id, info) -> {
+                if (now - info.lastActive >= timeoutMs) {
+                    removed[0] = info;
+                    return null;
+                }
+                return info;
+            });
+            if (removed[0] != null) {
+                presenceRegistry.leave(key.documentId(), key.userId());
+                eventPublisher.publishEvent(new EditorLeftEvent(key.documentId(), key.userId(), removed[0].username));
+                changed.add(key.documentId());
+            }
+            if (map.isEmpty()) {
+                activeEditors.remove(key.documentId(), map);
             }
         }
+        changed.forEach(this::broadcast);
     }
 }
@@ -0,0 +1,62 @@
+package com.tessera.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reservas mantidas apenas na memória deste nó. Adequada para implantação com um único servidor.
+ */
+@Component
+@ConditionalOnProperty(name = "tessera.leases.mode", havingValue = "memory", matchIfMissing = true)
+public class InMemoryEditLeaseStore implements EditLeaseStore {
+
+    // A entrada permanece após a liberação para o token continuar crescendo
+    private final Map<Long, Lease> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public Lease acquire(Long documentId, Long ownerId, long ttlMs) {
+        return leases.compute(documentId, (id, lease) -> {
+            long now = System.currentTimeMillis();
+            if (lease == null) {
+                return new Lease(documentId, ownerId, 1, now + ttlMs);
+            }
+            if (lease.expiresAt() <= now) {
+                return new Lease(documentId, ownerId, lease.token() + 1, now + ttlMs);
+            }
+            if (lease.ownerId().equals(ownerId)) {
+                return new Lease(documentId, ownerId, lease.token(), now + ttlMs);
+            }
+            return lease;
+        });
+    }
+
+    @Override
+    public boolean renew(Long documentId, Long ownerId, long token, long ttlMs) {
+        Lease renewed = leases.computeIfPresent(documentId, (id, lease) -> {
+            long now = System.currentTimeMillis();
+            if (lease.token() != token || !lease.ownerId().equals(ownerId) || lease.expiresAt() <= now) {
+                return lease;
+            }
+            return new Lease(documentId, ownerId, token, now + ttlMs);
+        });
+        return renewed != null && renewed.token() == token && renewed.ownerId().equals(ownerId)
+                && renewed.expiresAt() > System.currentTimeMillis();
+    }
+
+    @Override
+    public void release(Long documentId, Long ownerId, long token) {
+        leases.computeIfPresent(documentId, (id, lease) ->
+                lease.token() == token && lease.ownerId().equals(ownerId)
+                        ? new Lease(documentId, ownerId, token, System.currentTimeMillis())
+                        : lease);
+    }
+
+    @Override
+    public Lease current(Long documentId) {
+        Lease lease = leases.get(documentId);
+        return lease != null && lease.expiresAt() > System.currentTimeMillis() ? lease : null;
+    }
+}
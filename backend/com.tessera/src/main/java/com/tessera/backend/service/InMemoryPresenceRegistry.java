@@ -0,0 +1,37 @@
+package com.tessera.backend.service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Presença mantida apenas na memória deste nó. Adequada para implantação com um único servidor.
+ */
+@Component
+@ConditionalOnProperty(name = "tessera.presence.mode", havingValue = "memory", matchIfMissing = true)
+public class InMemoryPresenceRegistry implements PresenceRegistry {
+
+    private final Map<Long, Map<Long, String>> editors = new ConcurrentHashMap<>();
+
+    @Override
+    public void join(Long documentId, Long userId, String userName) {
+        editors.computeIfAbsent(documentId, k -> new ConcurrentHashMap<>()).put(userId, userName);
+    }
+
+    @Override
+    public void leave(Long documentId, Long userId) {
+        editors.computeIfPresent(documentId, (k, users) -> {
+            users.remove(userId);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    @Override
+    public Map<Long, String> getEditors(Long documentId) {
+        Map<Long, String> users = editors.get(documentId);
+        return users == null ? Collections.emptyMap() : Collections.unmodifiableMap(users);
+    }
+}
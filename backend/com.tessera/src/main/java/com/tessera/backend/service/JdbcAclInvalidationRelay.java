@@ -0,0 +1,103 @@
+package com.tessera.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tessera.backend.entity.AclInvalidation;
+import com.tessera.backend.event.DocumentAclChangedEvent;
+import com.tessera.backend.repository.AclInvalidationRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Propaga as invalidações do {@link DocumentAclIndex} entre nós pela tabela acl_invalidations.
+ * A linha é gravada na transação que alterou os colaboradores, então os outros nós só a veem
+ * após o commit; cada nó lê as linhas novas a cada {@code tessera.acl.poll-interval-ms}.
+ *
+ * O id é atribuído na inserção, não no commit: uma transação pode confirmar um id menor depois
+ * de outra já ter confirmado um maior. Os ids pulados ficam pendentes e são relidos a cada ciclo
+ * por até {@code tessera.acl.gap-timeout-ms}; uma transação mais longa que isso só é vista pelos
+ * outros nós quando a máscara expira ({@code tessera.acl.ttl-ms}).
+ */
+@Component
+@ConditionalOnProperty(name = "tessera.acl.invalidation", havingValue = "database")
+public class JdbcAclInvalidationRelay {
+
+    @Autowired
+    private AclInvalidationRepository invalidationRepository;
+
+    @Autowired
+    private DocumentAclIndex aclIndex;
+
+    // Limite de ids pendentes registrados por salto (ex.: reserva de ids do banco após reinício)
+    private static final int MAX_GAPS_PER_JUMP = 1000;
+
+    @Value("${tessera.acl.retention-ms:60000}")
+    private long retentionMs;
+
+    @Value("${tessera.acl.gap-timeout-ms:30000}")
+    private long gapTimeoutMs;
+
+    private volatile long lastId;
+
+    // Id ainda não visto abaixo de lastId -> instante em que o salto foi notado. Só usado por poll
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    @PostConstruct
+    void start() {
+        // O cache começa vazio: invalidações anteriores à inicialização não interessam
+        lastId = invalidationRepository.findMaxId();
+    }
+
+    @EventListener
+    public void onAclChanged(DocumentAclChangedEvent event) {
+        AclInvalidation invalidation = new AclInvalidation();
+        invalidation.setDocumentId(event.documentId());
+        invalidationRepository.save(invalidation);
+    }
+
+    @Scheduled(fixedDelayString = "${tessera.acl.poll-interval-ms:1000}")
+    public void poll() {
+        poll(System.currentTimeMillis());
+    }
+
+    void poll(long now) {
+        List<AclInvalidation> invalidations = new ArrayList<>(invalidationRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastId));
+        if (!gaps.isEmpty()) {
+            invalidations.addAll(invalidationRepository.findByIdIn(new ArrayList<>(gaps.keySet())));
+        }
+        for (AclInvalidation invalidation : invalidations) {
+            long id = invalidation.getId();
+            if (id > lastId) {
+                for (long missing = Math.max(lastId + 1, id - MAX_GAPS_PER_JUMP); missing < id; missing++) {
+                    gaps.putIfAbsent(missing, now);
+                }
+                lastId = id;
+            } else if (gaps.remove(id) == null) {
+                continue;
+            }
+            aclIndex.evictDocument(invalidation.getDocumentId());
+        }
+        // Id desistido: transação desfeita ou mais longa que gap-timeout-ms
+        gaps.values().removeIf(seen -> now - seen > gapTimeoutMs);
+    }
+
+    int pendingGaps() {
+        return gaps.size();
+    }
+
+    @Scheduled(fixedDelayString = "${tessera.acl.retention-ms:60000}")
+    public void purge() {
+        invalidationRepository.deleteCreatedBefore(LocalDateTime.now().minusNanos(retentionMs * 1_000_000));
+    }
+}
@@ -0,0 +1,51 @@
+package com.tessera.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tessera.backend.entity.DocumentEditLease;
+import com.tessera.backend.repository.DocumentEditLeaseRepository;
+
+/**
+ * Reservas na tabela document_edit_leases, válidas para todos os nós. Cada operação é um único
+ * comando atômico no banco; a expiração usa o relógio do banco, e não o de cada nó.
+ */
+@Component
+@ConditionalOnProperty(name = "tessera.leases.mode", havingValue = "database")
+public class JdbcEditLeaseStore implements EditLeaseStore {
+
+    @Autowired
+    private DocumentEditLeaseRepository leaseRepository;
+
+    @Override
+    @Transactional
+    public Lease acquire(Long documentId, Long ownerId, long ttlMs) {
+        leaseRepository.acquire(documentId, ownerId, ttlMs);
+        // A linha continua bloqueada pelo upsert: a leitura vê o resultado desta tentativa
+        return leaseRepository.findCurrent(documentId).map(this::toLease).orElse(null);
+    }
+
+    @Override
+    @Transactional
+    public boolean renew(Long documentId, Long ownerId, long token, long ttlMs) {
+        return leaseRepository.renew(documentId, ownerId, token, ttlMs) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void release(Long documentId, Long ownerId, long token) {
+        leaseRepository.release(documentId, ownerId, token);
+    }
+
+    @Override
+    @Transactional
+    public Lease current(Long documentId) {
+        return leaseRepository.findActiveForUpdate(documentId).map(this::toLease).orElse(null);
+    }
+
+    private Lease toLease(DocumentEditLease lease) {
+        return new Lease(lease.getDocumentId(), lease.getOwnerId(), lease.getFencingToken(), lease.getExpiresAt());
+    }
+}
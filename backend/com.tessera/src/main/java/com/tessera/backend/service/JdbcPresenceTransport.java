@@ -0,0 +1,89 @@
+package com.tessera.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tessera.backend.dto.PresenceDeltaDTO;
+import com.tessera.backend.entity.PresenceEvent;
+import com.tessera.backend.repository.PresenceEventRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Transporte de presença pela tabela presence_events do banco compartilhado: cada nó grava
+ * seus deltas e lê apenas os eventos novos (id maior que o último lido). Eventos antigos
+ * são removidos após {@code tessera.presence.retention-ms}.
+ */
+@Component
+@ConditionalOnProperty(name = "tessera.presence.mode", havingValue = "replicated")
+public class JdbcPresenceTransport implements PresenceTransport {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcPresenceTransport.class);
+
+    @Autowired
+    private PresenceEventRepository presenceEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${tessera.presence.retention-ms:60000}")
+    private long retentionMs;
+
+    private final List<Consumer<PresenceDeltaDTO>> listeners = new CopyOnWriteArrayList<>();
+    private volatile long lastEventId;
+
+    @PostConstruct
+    void start() {
+        // Eventos anteriores à inicialização não interessam: o estado vem por snapshot
+        lastEventId = presenceEventRepository.findMaxId();
+    }
+
+    @Override
+    public void publish(PresenceDeltaDTO message) {
+        try {
+            PresenceEvent event = new PresenceEvent();
+            event.setNodeId(message.getNodeId());
+            event.setPayload(objectMapper.writeValueAsString(message));
+            presenceEventRepository.save(event);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Perda de um delta é recuperada pelos outros nós via snapshot
+            logger.warn("Não foi possível publicar o evento de presença do nó {}: {}", message.getNodeId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<PresenceDeltaDTO> listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${tessera.presence.poll-interval-ms:500}")
+    public void poll() {
+        List<PresenceEvent> events = presenceEventRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastEventId);
+        for (PresenceEvent event : events) {
+            lastEventId = event.getId();
+            try {
+                PresenceDeltaDTO message = objectMapper.readValue(event.getPayload(), PresenceDeltaDTO.class);
+                listeners.forEach(listener -> listener.accept(message));
+            } catch (JsonProcessingException e) {
+                logger.warn("Evento de presença {} inválido: {}", event.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tessera.presence.retention-ms:60000}")
+    public void purge() {
+        presenceEventRepository.deleteCreatedBefore(LocalDateTime.now().minusNanos(retentionMs * 1_000_000));
+    }
+}
@@ -0,0 +1,58 @@
+package com.tessera.backend.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+/**
+ * Agrupa os envios de presença: cada alteração apenas marca o destino como pendente e,
+ * a cada intervalo, é enviado no máximo um frame por destino, montado com o estado atual.
+ * Quando muitos usuários entram no mesmo documento, evita um frame por entrada.
+ */
+@Component
+public class PresenceBroadcaster {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    // Destino -> montagem do frame; o payload é calculado só no envio
+    private final Map<String, Supplier<?>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+
+    public void publish(String destination, Supplier<?> payload) {
+        requested.incrementAndGet();
+        pending.put(destination, payload);
+    }
+
+    @Scheduled(fixedDelayString = "${tessera.editing.presence-interval-ms:250}")
+    public void flush() {
+        Iterator<Map.Entry<String, Supplier<?>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Supplier<?>> entry = it.next();
+            // Remove antes de montar o frame: alterações feitas durante o envio entram no próximo ciclo
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                messagingTemplate.convertAndSend(entry.getKey(), entry.getValue().get());
+                sent.incrementAndGet();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requested", requested.get());
+        stats.put("sent", sent.get());
+        stats.put("framesSaved", requested.get() - sent.get() - pending.size());
+        stats.put("pending", pending.size());
+        return stats;
+    }
+}
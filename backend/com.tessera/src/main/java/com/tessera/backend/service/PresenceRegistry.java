@@ -0,0 +1,30 @@
+package com.tessera.backend.service;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Registro de quem está editando cada documento. O {@link EditingSessionService} controla
+ * as conexões deste nó e publica entradas e saídas aqui; as consultas de presença
+ * (lista de editores, bloqueio de edição) leem a visão do registro.
+ *
+ * Implementação escolhida por {@code tessera.presence.mode}: {@code memory} (um único nó)
+ * ou {@code replicated} (presença sincronizada entre os nós).
+ */
+public interface PresenceRegistry {
+
+    void join(Long documentId, Long userId, String userName);
+
+    void leave(Long documentId, Long userId);
+
+    /**
+     * Editores do documento em todos os nós: id do usuário -> nome.
+     */
+    Map<Long, String> getEditors(Long documentId);
+
+    /**
+     * Notificado com o id do documento quando a presença muda em outro nó.
+     */
+    default void onRemoteChange(Consumer<Long> listener) {
+    }
+}
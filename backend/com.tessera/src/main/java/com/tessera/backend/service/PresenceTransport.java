@@ -0,0 +1,16 @@
+package com.tessera.backend.service;
+
+import java.util.function.Consumer;
+
+import com.tessera.backend.dto.PresenceDeltaDTO;
+
+/**
+ * Canal entre os nós para as mensagens de presença do {@link ReplicatedPresenceRegistry}.
+ * A mensagem publicada por um nó é entregue a todos os inscritos, inclusive ao próprio nó.
+ */
+public interface PresenceTransport {
+
+    void publish(PresenceDeltaDTO message);
+
+    void subscribe(Consumer<PresenceDeltaDTO> listener);
+}
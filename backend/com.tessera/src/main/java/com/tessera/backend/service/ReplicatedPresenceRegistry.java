@@ -0,0 +1,216 @@
+package com.tessera.backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.tessera.backend.dto.PresenceDeltaDTO;
+import com.tessera.backend.dto.PresenceDeltaDTO.Change;
+import com.tessera.backend.dto.PresenceDeltaDTO.Type;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Presença sincronizada entre nós por deltas.
+ *
+ * Cada nó publica apenas as entradas e saídas dos seus próprios editores, agrupadas a cada
+ * {@code tessera.presence.sync-interval-ms} e numeradas em sequência. Quem recebe aplica os
+ * deltas ao estado daquele nó; ao detectar uma lacuna (ou no primeiro contato) pede um
+ * snapshot. Nós que param de publicar heartbeats têm seus editores removidos.
+ */
+@Component
+@ConditionalOnProperty(name = "tessera.presence.mode", havingValue = "replicated")
+public class ReplicatedPresenceRegistry implements PresenceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicatedPresenceRegistry.class);
+
+    static final class RemoteNode {
+        final Map<Long, Map<Long, String>> editors = new HashMap<>();
+        // -1: estado desconhecido, aguardando snapshot
+        long sequence = -1;
+        long lastSeen;
+    }
+
+    @Autowired
+    private PresenceTransport transport;
+
+    @Value("${tessera.presence.node-id:}")
+    private String nodeId;
+
+    @Value("${tessera.presence.heartbeat-ms:3000}")
+    private long heartbeatMs;
+
+    @Value("${tessera.presence.node-timeout-ms:10000}")
+    private long nodeTimeoutMs;
+
+    // Editores conectados a este nó
+    private final Map<Long, Map<Long, String>> local = new HashMap<>();
+    private final List<Change> outbox = new ArrayList<>();
+    private long sequence;
+    private long lastPublished;
+
+    private final Map<String, RemoteNode> remoteNodes = new ConcurrentHashMap<>();
+    private volatile Consumer<Long> remoteChangeListener = documentId -> { };
+
+    @PostConstruct
+    void start() {
+        if (!StringUtils.hasText(nodeId)) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        transport.subscribe(this::receive);
+        logger.info("Presença replicada ativa no nó {}", nodeId);
+    }
+
+    @Override
+    public synchronized void join(Long documentId, Long userId, String userName) {
+        String previous = local.computeIfAbsent(documentId, k -> new HashMap<>()).put(userId, userName);
+        if (previous == null) {
+            outbox.add(new Change(documentId, userId, userName, true));
+        }
+    }
+
+    @Override
+    public synchronized void leave(Long documentId, Long userId) {
+        Map<Long, String> users = local.get(documentId);
+        if (users != null && users.remove(userId) != null) {
+            if (users.isEmpty()) {
+                local.remove(documentId);
+            }
+            outbox.add(new Change(documentId, userId, null, false));
+        }
+    }
+
+    @Override
+    public Map<Long, String> getEditors(Long documentId) {
+        Map<Long, String> editors = new LinkedHashMap<>();
+        synchronized (this) {
+            editors.putAll(local.getOrDefault(documentId, Map.of()));
+        }
+        for (RemoteNode node : remoteNodes.values()) {
+            synchronized (node) {
+                editors.putAll(node.editors.getOrDefault(documentId, Map.of()));
+            }
+        }
+        return editors;
+    }
+
+    @Override
+    public void onRemoteChange(Consumer<Long> listener) {
+        this.remoteChangeListener = listener;
+    }
+
+    /**
+     * Publica as alterações pendentes (ou um heartbeat) e remove os nós sem sinal de vida.
+     */
+    @Scheduled(fixedDelayString = "${tessera.presence.sync-interval-ms:500}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        PresenceDeltaDTO delta = null;
+        synchronized (this) {
+            if (!outbox.isEmpty() || now - lastPublished >= heartbeatMs) {
+                delta = new PresenceDeltaDTO(nodeId, ++sequence, Type.DELTA, null, new ArrayList<>(outbox));
+                outbox.clear();
+                lastPublished = now;
+            }
+        }
+        if (delta != null) {
+            transport.publish(delta);
+        }
+        expireSilentNodes(now);
+    }
+
+    void receive(PresenceDeltaDTO message) {
+        if (nodeId.equals(message.getNodeId())) {
+            return;
+        }
+        if (message.getType() == Type.SNAPSHOT_REQUEST) {
+            if (nodeId.equals(message.getTargetNodeId())) {
+                transport.publish(snapshot());
+            }
+            return;
+        }
+
+        RemoteNode node = remoteNodes.computeIfAbsent(message.getNodeId(), id -> new RemoteNode());
+        Set<Long> changed = new HashSet<>();
+        boolean requestSnapshot = false;
+        synchronized (node) {
+            node.lastSeen = System.currentTimeMillis();
+            if (message.getType() == Type.SNAPSHOT) {
+                if (message.getSequence() >= node.sequence) {
+                    node.editors.keySet().forEach(changed::add);
+                    node.editors.clear();
+                    apply(node, message.getChanges(), changed);
+                    node.sequence = message.getSequence();
+                }
+            } else if (node.sequence >= 0 && message.getSequence() == node.sequence + 1) {
+                apply(node, message.getChanges(), changed);
+                node.sequence = message.getSequence();
+            } else if (node.sequence < 0 || message.getSequence() > node.sequence + 1) {
+                // Primeiro contato ou delta perdido: o estado desse nó só é confiável após um snapshot
+                requestSnapshot = true;
+            }
+        }
+        if (requestSnapshot) {
+            transport.publish(new PresenceDeltaDTO(nodeId, 0, Type.SNAPSHOT_REQUEST, message.getNodeId(), new ArrayList<>()));
+        }
+        changed.forEach(remoteChangeListener);
+    }
+
+    private synchronized PresenceDeltaDTO snapshot() {
+        List<Change> editors = new ArrayList<>();
+        local.forEach((documentId, users) ->
+                users.forEach((userId, userName) -> editors.add(new Change(documentId, userId, userName, true))));
+        // Inclui as alterações ainda não publicadas; reaplicá-las no próximo delta não muda o estado
+        return new PresenceDeltaDTO(nodeId, sequence, Type.SNAPSHOT, null, editors);
+    }
+
+    private void apply(RemoteNode node, List<Change> changes, Set<Long> changed) {
+        for (Change change : changes) {
+            if (change.isJoined()) {
+                node.editors.computeIfAbsent(change.getDocumentId(), k -> new HashMap<>())
+                        .put(change.getUserId(), change.getUserName());
+            } else {
+                Map<Long, String> users = node.editors.get(change.getDocumentId());
+                if (users != null) {
+                    users.remove(change.getUserId());
+                    if (users.isEmpty()) {
+                        node.editors.remove(change.getDocumentId());
+                    }
+                }
+            }
+            changed.add(change.getDocumentId());
+        }
+    }
+
+    private void expireSilentNodes(long now) {
+        remoteNodes.forEach((id, node) -> {
+            Set<Long> documents;
+            synchronized (node) {
+                if (now - node.lastSeen <= nodeTimeoutMs) {
+                    return;
+                }
+                documents = new HashSet<>(node.editors.keySet());
+            }
+            if (remoteNodes.remove(id, node)) {
+                logger.warn("Nó {} sem heartbeat há mais de {} ms; presença removida", id, nodeTimeoutMs);
+                documents.forEach(remoteChangeListener);
+            }
+        });
+    }
+}
@@ -8,12 +8,16 @@ import com.tessera.backend.entity.DocumentCollaborator;
 import com.tessera.backend.entity.Role;
 import com.tessera.backend.entity.User;
 import com.tessera.backend.entity.UserStatus;
+import com.tessera.backend.event.UserChangedEvent;
+import com.tessera.backend.exception.ResourceNotFoundException;
 // IMPORTAÇÃO CORRIGIDA ABAIXO
 import org.springframework.security.authentication.BadCredentialsException; 
 import com.tessera.backend.repository.DocumentCollaboratorRepository;
 import com.tessera.backend.repository.DocumentRepository;
 import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -38,18 +42,24 @@ public class UserService {
     private final DocumentCollaboratorRepository collaboratorRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuditLogService auditLogService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TokenRevocationService tokenRevocationService;
 
     @Autowired
     public UserService(UserRepository userRepository,
                        DocumentRepository documentRepository,
                        DocumentCollaboratorRepository collaboratorRepository,
                        PasswordEncoder passwordEncoder,
-                       AuditLogService auditLogService) {
+                       AuditLogService auditLogService,
+                       ApplicationEventPublisher eventPublisher,
+                       TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.documentRepository = documentRepository;
         this.collaboratorRepository = collaboratorRepository;
         this.passwordEncoder = passwordEncoder;
         this.auditLogService = auditLogService;
+        this.eventPublisher = eventPublisher;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @Cacheable("approvedAdvisors")
@@ -257,9 +267,14 @@ public class UserService {
              throw new IllegalArgumentException("Nova senha não pode ser igual à senha atual.");
         }
 
-        // 4. Codificar e definir a nova senha
-        currentUser.setPassword(passwordEncoder.encode(passwordChangeDTO.getNewPassword()));
-        userRepository.save(currentUser);
+        // 4. Codificar e definir a nova senha (na entidade gerenciada, não na cópia da requisição)
+        User user = userRepository.findById(currentUser.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado"));
+        user.setPassword(passwordEncoder.encode(passwordChangeDTO.getNewPassword()));
+        userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(currentUser.getId()));
+        // Sessões abertas com a senha antiga deixam de valer
+        tokenRevocationService.revokeUser(currentUser.getId());
 
         // 5. Registrar no log de auditoria
         auditLogService.logSuccessfulAction(
@@ -0,0 +1,40 @@
+package com.tessera.backend.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Conteúdo de uma versão pronto para ser copiado em streaming para a resposta,
+ * sem materializar o texto completo quando ele está armazenado no banco.
+ */
+public class VersionContentStream {
+
+    @FunctionalInterface
+    public interface Writer {
+        void writeTo(OutputStream out, boolean keepGzip) throws IOException;
+    }
+
+    private final boolean gzip;
+    private final Writer writer;
+
+    public VersionContentStream(boolean gzip, Writer writer) {
+        this.gzip = gzip;
+        this.writer = writer;
+    }
+
+    /**
+     * Indica se o conteúdo está armazenado como stream GZIP e pode ser enviado
+     * com {@code Content-Encoding: gzip} sem recompressão.
+     */
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * Copia o conteúdo para {@code out}. Com {@code keepGzip}, um conteúdo armazenado
+     * em gzip é copiado compactado; caso contrário, sempre em UTF-8.
+     */
+    public void writeTo(OutputStream out, boolean keepGzip) throws IOException {
+        writer.writeTo(out, keepGzip && gzip);
+    }
+}
@@ -0,0 +1,92 @@
+package com.tessera.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tessera.backend.util.BoundedLruCache;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache dos diffs entre pares de versões (delta e HTML renderizado).
+ * Versões substituídas não mudam mais, então as entradas só são invalidadas
+ * quando o conteúdo de uma das versões é alterado.
+ */
+@Component
+public class VersionDiffCache {
+
+    public enum Format {
+        DELTA,
+        HTML
+    }
+
+    record Key(long fromVersionId, long toVersionId, Format format) {
+        boolean involves(long versionId) {
+            return fromVersionId == versionId || toVersionId == versionId;
+        }
+    }
+
+    @Value("${tessera.versions.diff-cache.max-entries:1024}")
+    private int maxEntries;
+
+    @Value("${tessera.versions.diff-cache.max-chars:20000000}")
+    private long maxChars;
+
+    private BoundedLruCache<Key, String> cache;
+
+    // Incrementado a cada invalidação: um diff calculado durante uma invalidação não é armazenado
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    void initCache() {
+        cache = new BoundedLruCache<>(maxEntries, maxChars, String::length);
+    }
+
+    public String get(Long fromVersionId, Long toVersionId, Format format, Supplier<String> loader) {
+        Key key = new Key(fromVersionId, toVersionId, format);
+        String cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long startGeneration = generation.get();
+        String value = loader.get();
+        if (value != null && generation.get() == startGeneration) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Remove os diffs que envolvem a versão. Dentro de uma transação, a remoção é
+     * repetida após o commit para descartar diffs calculados com o conteúdo antigo.
+     */
+    public void invalidateVersion(Long versionId) {
+        if (versionId == null) {
+            return;
+        }
+        evictVersion(versionId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictVersion(versionId);
+                }
+            });
+        }
+    }
+
+    private void evictVersion(long versionId) {
+        generation.incrementAndGet();
+        cache.removeIf(key -> key.involves(versionId));
+    }
+
+    public Map<String, Object> stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,141 @@
+package com.tessera.backend.service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.tessera.backend.dto.VersionDiffStatusDTO;
+import com.tessera.backend.entity.DiffStatus;
+import com.tessera.backend.event.VersionCreatedEvent;
+import com.tessera.backend.repository.VersionRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Agenda o cálculo do diff das novas versões em um executor dedicado e limitado,
+ * depois do commit da criação. Versões que ficaram pendentes (fila cheia ou
+ * reinício do servidor) são reenviadas periodicamente.
+ */
+@Component
+public class VersionDiffDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersionDiffDispatcher.class);
+
+    @Autowired
+    private VersionDiffService versionDiffService;
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${tessera.versions.diff.threads:2}")
+    private int threads;
+
+    @Value("${tessera.versions.diff.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${tessera.versions.diff.retry-after-ms:60000}")
+    private long retryAfterMs;
+
+    private ThreadPoolExecutor executor;
+
+    // Evita enfileirar a mesma versão duas vezes (evento + reenvio periódico)
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void start() {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("version-diff-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onVersionCreated(VersionCreatedEvent event) {
+        submit(event.versionId());
+    }
+
+    public boolean submit(Long versionId) {
+        if (!inFlight.add(versionId)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> process(versionId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(versionId);
+            logger.warn("Fila de diffs cheia; versão {} será processada no próximo reenvio", versionId);
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tessera.versions.diff.retry-after-ms:60000}")
+    public void resubmitPending() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(retryAfterMs));
+        List<Long> pending = versionRepository.findIdsByDiffStatusCreatedBefore(DiffStatus.PENDING, cutoff);
+        int submitted = 0;
+        for (Long versionId : pending) {
+            if (submit(versionId)) {
+                submitted++;
+            }
+        }
+        if (submitted > 0) {
+            logger.info("{} versões com diff pendente reenviadas para processamento", submitted);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", executor.getCompletedTaskCount());
+        return stats;
+    }
+
+    void process(Long versionId) {
+        try {
+            publish(versionDiffService.computeDiff(versionId));
+        } catch (RuntimeException e) {
+            logger.error("Erro ao calcular o diff da versão {}", versionId, e);
+            try {
+                publish(versionDiffService.markFailed(versionId));
+            } catch (RuntimeException markError) {
+                logger.error("Não foi possível marcar a versão {} com falha no diff", versionId, markError);
+            }
+        } finally {
+            inFlight.remove(versionId);
+        }
+    }
+
+    private void publish(VersionDiffStatusDTO status) {
+        if (status != null) {
+            messagingTemplate.convertAndSend("/topic/documents/" + status.getDocumentId() + "/versions", status);
+        }
+    }
+}
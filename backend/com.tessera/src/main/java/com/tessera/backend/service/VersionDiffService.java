@@ -0,0 +1,81 @@
+package com.tessera.backend.service;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tessera.backend.dto.VersionDiffStatusDTO;
+import com.tessera.backend.entity.DiffStatus;
+import com.tessera.backend.entity.Version;
+import com.tessera.backend.repository.VersionRepository;
+import com.tessera.backend.util.DiffUtils;
+
+/**
+ * Calcula o diff de uma versão recém-criada em relação à anterior, fora da
+ * transação da requisição (ver {@link VersionDiffDispatcher}).
+ */
+@Service
+public class VersionDiffService {
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    @Autowired
+    private VersionStorageService versionStorageService;
+
+    @Autowired
+    private DiffUtils diffUtils;
+
+    /**
+     * Calcula o diff e as estatísticas da versão, e a converte para delta quando a
+     * política de armazenamento permitir.
+     *
+     * @return o novo estado da versão, ou null se ela não existir mais
+     */
+    @Transactional
+    public VersionDiffStatusDTO computeDiff(Long versionId) {
+        // Trava a anterior e depois esta, na ordem de VersionService.updateVersion (a versão editada
+        // e então as que dependem dela): uma edição concorrente espera o fim do diff, ou o diff
+        // espera a edição e lê o conteúdo e os blobs já atualizados
+        Optional<Version> previous = versionRepository.findPreviousId(versionId)
+                .flatMap(versionRepository::findByIdForUpdate);
+        Version version = versionRepository.findByIdForUpdate(versionId).orElse(null);
+        if (version == null) {
+            return null;
+        }
+        if (version.getDiffStatus() != DiffStatus.PENDING) {
+            return toStatus(version);
+        }
+
+        if (previous.isPresent()) {
+            String delta = versionStorageService.attachDelta(version, previous.get());
+            // Depois do attachDelta, que descarta um snapshot da base anterior a uma troca de conteúdo
+            String baseContent = versionStorageService.getContent(previous.get());
+            DiffUtils.ChangeStats stats = diffUtils.changeStats(baseContent, delta);
+            version.setCharsAdded(stats.charsAdded());
+            version.setCharsRemoved(stats.charsRemoved());
+        } else {
+            version.setCharsAdded(versionStorageService.getContent(version).length());
+            version.setCharsRemoved(0);
+        }
+        version.setDiffStatus(DiffStatus.READY);
+        return toStatus(versionRepository.save(version));
+    }
+
+    @Transactional
+    public VersionDiffStatusDTO markFailed(Long versionId) {
+        return versionRepository.findById(versionId)
+                .map(version -> {
+                    version.setDiffStatus(DiffStatus.FAILED);
+                    return toStatus(versionRepository.save(version));
+                })
+                .orElse(null);
+    }
+
+    private VersionDiffStatusDTO toStatus(Version version) {
+        return new VersionDiffStatusDTO(version.getId(), version.getDocument().getId(), version.getDiffStatus(),
+                version.getCharsAdded(), version.getCharsRemoved());
+    }
+}
@@ -0,0 +1,61 @@
+package com.tessera.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tessera.backend.entity.Document;
+import com.tessera.backend.repository.DocumentVersionCounterRepository;
+import com.tessera.backend.repository.VersionRepository;
+
+/**
+ * Numeração das versões ("major.minor") a partir de um contador por documento.
+ * Cada nova versão incrementa o minor; após {@link #requestMajorBump(Long)} a
+ * próxima versão abre um novo major (ex.: 1.4 → submissão → 2.0).
+ */
+@Service
+public class VersionNumberService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersionNumberService.class);
+
+    @Autowired
+    private DocumentVersionCounterRepository counterRepository;
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    /**
+     * Reserva o próximo número de versão do documento. A linha do contador fica
+     * bloqueada até o fim da transação, então saves simultâneos são serializados.
+     */
+    @Transactional
+    public String nextVersionNumber(Document document) {
+        if (counterRepository.increment(document.getId()) == 0) {
+            // Documento sem contador: primeira versão ou versões criadas antes do contador existir
+            int[] next = versionRepository.findLatestByDocument(document)
+                    .map(latest -> parse(latest.getVersionNumber()))
+                    .map(last -> new int[] { last[0], last[1] + 1 })
+                    .orElse(new int[] { 1, 0 });
+            counterRepository.insertOrIncrement(document.getId(), next[0], next[1]);
+        }
+        return counterRepository.findCurrentNumber(document.getId());
+    }
+
+    /**
+     * Faz a próxima versão do documento abrir um novo número principal. Sem efeito
+     * se o documento ainda não tem versões.
+     */
+    @Transactional
+    public void requestMajorBump(Long documentId) {
+        if (counterRepository.requestMajorBump(documentId) > 0) {
+            logger.debug("Documento {}: próxima versão abrirá um novo número principal", documentId);
+        }
+    }
+
+    static int[] parse(String versionNumber) {
+        String[] parts = versionNumber.split("\\.");
+        return new int[] { Integer.parseInt(parts[0]), parts.length > 1 ? Integer.parseInt(parts[1]) : 0 };
+    }
+}
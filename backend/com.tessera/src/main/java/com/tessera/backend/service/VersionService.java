@@ -1,21 +1,37 @@
 package com.tessera.backend.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import com.tessera.backend.dto.MergeConflictDTO;
 import com.tessera.backend.dto.VersionDTO;
+import com.tessera.backend.dto.VersionPatchDTO;
+import com.tessera.backend.dto.VersionHistoryPageDTO;
+import com.tessera.backend.dto.VersionSummaryDTO;
+import com.tessera.backend.entity.DiffStatus;
 import com.tessera.backend.entity.Document;
 import com.tessera.backend.entity.DocumentStatus;
 import com.tessera.backend.entity.User;
 import com.tessera.backend.entity.Version;
+import com.tessera.backend.event.VersionCreatedEvent;
 import com.tessera.backend.exception.ResourceNotFoundException;
 import com.tessera.backend.exception.PermissionDeniedException;
 import com.tessera.backend.exception.BusinessRuleException;
+import com.tessera.backend.exception.ConflictException;
+import com.tessera.backend.exception.MergeConflictException;
+import com.tessera.backend.repository.CommentRepository;
 import com.tessera.backend.repository.DocumentRepository;
 import com.tessera.backend.repository.VersionRepository;
 import com.tessera.backend.util.DiffUtils;
@@ -38,23 +54,50 @@ public class VersionService {
     @Autowired
     private EditingSessionService editingSessionService;
 
+    @Autowired
+    private VersionStorageService versionStorageService;
+
+    @Autowired
+    private VersionNumberService versionNumberService;
+
+    @Autowired
+    private VersionDiffCache versionDiffCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private EditLeaseService editLeaseService;
+
+    private static final int MAX_SUMMARY_PAGE_SIZE = 100;
+
     @Transactional
     public VersionDTO updateVersion(Long id, VersionDTO versionDTO, User currentUser) {
-        Version version = versionRepository.findById(id)
+        // Travada até o commit: não se cruza com o diff assíncrono desta versão ou das seguintes
+        Version version = versionRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Versão não encontrada"));
 
         Document document = version.getDocument();
         if (!document.canUserEdit(currentUser)) {
             throw new PermissionDeniedException("Você não tem permissão para editar esta versão");
         }
+        editLeaseService.validate(document.getId(), currentUser, versionDTO.getLeaseToken());
 
         if (versionDTO.getCommitMessage() != null) {
             version.setCommitMessage(versionDTO.getCommitMessage());
         }
 
         if (versionDTO.getContent() != null) {
-            String diff = diffUtils.generateDiff(version.getContent(), versionDTO.getContent());
-            version.setContent(versionDTO.getContent());
+            checkNotCollaborative(document.getId());
+            String diff = diffUtils.generateDiff(versionStorageService.getContent(version), versionDTO.getContent());
+            versionStorageService.replaceContent(version, versionDTO.getContent());
+            versionDiffCache.invalidateVersion(version.getId());
             version.setDiffFromPrevious(diff);
         }
 
@@ -64,14 +107,66 @@ public class VersionService {
     
     @Transactional
     public VersionDTO createVersion(VersionDTO versionDTO, User currentUser) {
-        Document document = documentRepository.findById(versionDTO.getDocumentId())
+        if (versionDTO.getBaseVersionId() == null) {
+            Document document = documentRepository.findById(versionDTO.getDocumentId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado"));
+            return createVersion(document, versionDTO.getContent(), versionDTO.getCommitMessage(), currentUser, null,
+                    versionDTO.getLeaseToken());
+        }
+        // Com versão base, commits concorrentes são mesclados em vez de bloqueados
+        Document document = documentRepository.findByIdForUpdate(versionDTO.getDocumentId())
                 .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado"));
+        Version base = findBaseVersion(document, versionDTO.getBaseVersionId());
+        return createVersion(document, versionDTO.getContent(), versionDTO.getCommitMessage(), currentUser, base,
+                versionDTO.getLeaseToken());
+    }
+    
+    /**
+     * Cria uma versão a partir de um delta ou patch sobre a versão base informada. O conteúdo
+     * reconstruído é conferido com o hash enviado e, se a base não for mais a versão mais
+     * recente, mesclado com ela.
+     */
+    @Transactional
+    public VersionDTO createVersionFromPatch(VersionPatchDTO patchDTO, User currentUser) {
+        if ((patchDTO.getDelta() == null) == (patchDTO.getPatch() == null)) {
+            throw new BusinessRuleException("Informe o delta ou o patch, e apenas um deles");
+        }
+        // Bloqueia o documento até o fim da transação: dois envios sobre a mesma base não passam juntos
+        Document document = documentRepository.findByIdForUpdate(patchDTO.getDocumentId())
+                .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado"));
+        if (!document.canUserEdit(currentUser)) {
+            throw new PermissionDeniedException("Você não tem permissão para criar uma nova versão");
+        }
+        Version base = findBaseVersion(document, patchDTO.getBaseVersionId());
         
+        String baseContent = versionStorageService.getContent(base);
+        String content;
+        try {
+            content = patchDTO.getDelta() != null
+                    ? diffUtils.applyDiff(baseContent, patchDTO.getDelta())
+                    : diffUtils.applyPatch(baseContent, patchDTO.getPatch());
+        } catch (IllegalArgumentException e) {
+            throw new ConflictException("As alterações não se aplicam à versão base " + base.getVersionNumber()
+                    + ": " + e.getMessage());
+        }
+        if (!contentStoreService.hash(content).equalsIgnoreCase(patchDTO.getContentHash())) {
+            throw new ConflictException("O conteúdo reconstruído não confere com o hash enviado; "
+                    + "baixe a versão base " + base.getVersionNumber() + " novamente");
+        }
+        return createVersion(document, content, patchDTO.getCommitMessage(), currentUser, base,
+                patchDTO.getLeaseToken());
+    }
+    
+    private VersionDTO createVersion(Document document, String content, String commitMessage, User currentUser,
+                                     Version base, Long leaseToken) {
         // Verificar permissões - apenas colaboradores com permissão de edição podem criar versões
         if (!document.canUserEdit(currentUser)) {
             throw new PermissionDeniedException("Você não tem permissão para criar uma nova versão");
         }
-        if (editingSessionService.hasOtherEditors(document.getId(), currentUser.getId())) {
+        // Conferido na mesma transação da gravação: a reserva não troca de dono até o commit
+        editLeaseService.validate(document.getId(), currentUser, leaseToken);
+        checkNotCollaborative(document.getId());
+        if (base == null && editingSessionService.hasOtherEditors(document.getId(), currentUser.getId())) {
             throw new BusinessRuleException("Outro usuário está editando este documento.");
         }
         
@@ -80,31 +175,16 @@ public class VersionService {
             throw new BusinessRuleException("Novas versões só podem ser criadas em documentos em rascunho ou revisão");
         }
         
-        // Calcular número da versão
-        String versionNumber = generateVersionNumber(document);
-        
-        // Criar nova versão
-        Version version = new Version();
-        version.setDocument(document);
-        version.setVersionNumber(versionNumber);
-        version.setCommitMessage(versionDTO.getCommitMessage());
-        version.setContent(versionDTO.getContent());
-        version.setCreatedBy(currentUser);
-        
-        // Calcular diff da versão anterior, se existir
-        Optional<Version> previousVersion = versionRepository.findLatestByDocument(document);
-        if (previousVersion.isPresent()) {
-            String diff = diffUtils.generateDiff(previousVersion.get().getContent(), versionDTO.getContent());
-            version.setDiffFromPrevious(diff);
+        if (base != null) {
+            content = mergeWithLatest(document, base, content);
         }
-        
-        // Salvar versão
-        version = versionRepository.save(version);
+        Version version = saveNewVersion(document, content, commitMessage, currentUser);
         
         // Se documento estava em revisão, voltar para "Submetido"
         if (document.getStatus() == DocumentStatus.REVISION) {
             document.setStatus(DocumentStatus.SUBMITTED);
             documentRepository.save(document);
+            versionNumberService.requestMajorBump(document.getId());
         }
         
         // Disparar evento de notificação
@@ -113,12 +193,85 @@ public class VersionService {
         return mapToDTO(version);
     }
     
+    // Com sessão colaborativa aberta o texto vale o da sessão: uma gravação por fora seria desfeita no próximo checkpoint
+    private void checkNotCollaborative(Long documentId) {
+        if (editingSessionService.isCollaborative(documentId)) {
+            throw new ConflictException("O documento está em edição colaborativa; envie as alterações pela sessão de edição");
+        }
+    }
+    
+    /**
+     * Grava um rascunho do salvamento automático com as mesmas regras de
+     * {@link #createVersion(VersionDTO, User)}, conferidas no momento da gravação.
+     * Retorna null se o documento não aceita mais versões (ex.: já submetido).
+     */
+    @Transactional
+    public VersionDTO createAutosaveVersion(Long documentId, String content, User author, String commitMessage,
+                                            Long leaseToken) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado"));
+        if (document.getStatus() != DocumentStatus.DRAFT && document.getStatus() != DocumentStatus.REVISION) {
+            return null;
+        }
+        return createVersion(document, content, commitMessage, author, null, leaseToken);
+    }
+    
+    /**
+     * Grava o estado de uma sessão de edição colaborativa como nova versão.
+     * Retorna null se o documento não aceita mais versões (ex.: já submetido).
+     */
+    @Transactional
+    public VersionDTO createCheckpoint(Long documentId, String content, User author, String commitMessage) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado"));
+        if (document.getStatus() != DocumentStatus.DRAFT && document.getStatus() != DocumentStatus.REVISION) {
+            return null;
+        }
+        return mapToDTO(saveNewVersion(document, content, commitMessage, author));
+    }
+    
+    /**
+     * Verifica se o usuário pode editar o documento no estado atual.
+     */
+    @Transactional(readOnly = true)
+    public void checkCanEdit(Long documentId, User user) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado"));
+        if (!document.canUserEdit(user)) {
+            throw new PermissionDeniedException("Você não tem permissão para editar este documento");
+        }
+        if (document.getStatus() != DocumentStatus.DRAFT && document.getStatus() != DocumentStatus.REVISION) {
+            throw new BusinessRuleException("Documentos só podem ser editados em rascunho ou revisão");
+        }
+    }
+    
+    /**
+     * Conteúdo da versão mais recente do documento, ou texto vazio se ainda não há versões.
+     */
+    @Transactional(readOnly = true)
+    public String getLatestContent(Long documentId) {
+        Document document = documentRepository.findById(documentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado"));
+        return versionRepository.findLatestByDocument(document)
+                .map(versionStorageService::getContent)
+                .orElse("");
+    }
+    
     public VersionDTO getVersion(Long id) {
         Version version = versionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Versão não encontrada"));
         return mapToDTO(version);
     }
     
+    /**
+     * Conteúdo da versão para envio em streaming, copiado do banco em blocos.
+     */
+    public VersionContentStream openVersionContent(Long id) {
+        Version version = versionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Versão não encontrada"));
+        return versionStorageService.openContentStream(version);
+    }
+    
     public List<VersionDTO> getVersionsByDocument(Long documentId) {
         Document document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Documento não encontrado"));
@@ -143,14 +296,75 @@ public class VersionService {
         return versions.stream().map(this::mapToDTO).collect(Collectors.toList());
     }
     
+    /**
+     * Histórico de versões sem conteúdo, mais recentes primeiro, paginado por cursor.
+     *
+     * @param cursor valor de {@code nextCursor} da página anterior, ou null para a primeira página
+     */
+    @Transactional(readOnly = true)
+    public VersionHistoryPageDTO getVersionSummaries(Long documentId, String cursor, int size) {
+        if (!documentRepository.existsById(documentId)) {
+            throw new ResourceNotFoundException("Documento não encontrado");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_SUMMARY_PAGE_SIZE));
+        // Busca um item a mais para saber se existe próxima página
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<VersionSummaryDTO> items;
+        if (cursor == null || cursor.isBlank()) {
+            items = versionRepository.findSummaries(documentId, limit);
+        } else {
+            VersionCursor position = VersionCursor.decode(cursor);
+            items = versionRepository.findSummariesBefore(documentId, position.createdAt(), position.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+            VersionSummaryDTO last = items.get(pageSize - 1);
+            nextCursor = new VersionCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        // Pré-carregar contagem de comentários para evitar N+1
+        Map<Long, Integer> commentCounts = new HashMap<>();
+        if (!items.isEmpty()) {
+            List<Long> ids = items.stream().map(VersionSummaryDTO::getId).toList();
+            commentRepository.countByVersionIds(ids).forEach(obj -> {
+                Long id = (Long) obj[0];
+                Long count = (Long) obj[1];
+                commentCounts.put(id, count.intValue());
+            });
+        }
+        items.forEach(item -> item.setCommentCount(commentCounts.getOrDefault(item.getId(), 0)));
+
+        return new VersionHistoryPageDTO(items, nextCursor);
+    }
+    
     public String getDiffBetweenVersions(Long v1Id, Long v2Id) {
+        return versionDiffCache.get(v1Id, v2Id, VersionDiffCache.Format.DELTA, () -> {
+            String[] contents = loadContents(v1Id, v2Id);
+            return diffUtils.generateDiff(contents[0], contents[1]);
+        });
+    }
+    
+    /**
+     * Diff entre duas versões renderizado como HTML, com inserções em &lt;ins&gt; e remoções em &lt;del&gt;.
+     */
+    public String getDiffHtmlBetweenVersions(Long v1Id, Long v2Id) {
+        return versionDiffCache.get(v1Id, v2Id, VersionDiffCache.Format.HTML, () -> {
+            String[] contents = loadContents(v1Id, v2Id);
+            return diffUtils.renderDiffHtml(contents[0], contents[1]);
+        });
+    }
+    
+    private String[] loadContents(Long v1Id, Long v2Id) {
         Version version1 = versionRepository.findById(v1Id)
                 .orElseThrow(() -> new ResourceNotFoundException("Versão 1 não encontrada"));
         
         Version version2 = versionRepository.findById(v2Id)
                 .orElseThrow(() -> new ResourceNotFoundException("Versão 2 não encontrada"));
         
-        return diffUtils.generateDiff(version1.getContent(), version2.getContent());
+        return new String[] { versionStorageService.getContent(version1), versionStorageService.getContent(version2) };
     }
     
     private VersionDTO mapToDTO(Version version) {
@@ -159,8 +373,12 @@ public class VersionService {
         dto.setDocumentId(version.getDocument().getId());
         dto.setVersionNumber(version.getVersionNumber());
         dto.setCommitMessage(version.getCommitMessage());
-        dto.setContent(version.getContent());
+        dto.setContent(versionStorageService.getContent(version));
         dto.setDiffFromPrevious(version.getDiffFromPrevious());
+        dto.setDiffStatus(version.getDiffStatus());
+        dto.setCharsAdded(version.getCharsAdded());
+        dto.setCharsRemoved(version.getCharsRemoved());
+        dto.setContentHash(version.getContentHash());
         dto.setCreatedById(version.getCreatedBy().getId());
         dto.setCreatedByName(version.getCreatedBy().getName());
         dto.setCreatedAt(version.getCreatedAt());
@@ -169,18 +387,72 @@ public class VersionService {
         return dto;
     }
     
-    private String generateVersionNumber(Document document) {
-        List<Version> versions = versionRepository.findByDocumentOrderByCreatedAtDesc(document);
-        if (versions.isEmpty()) {
-            return "1.0";
+    /**
+     * Posição no histórico (createdAt, id), codificada em Base64 URL-safe para o cliente.
+     */
+    record VersionCursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static VersionCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new VersionCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new BusinessRuleException("Cursor de paginação inválido");
+            }
+        }
+    }
+    
+    private Version findBaseVersion(Document document, Long baseVersionId) {
+        Version base = versionRepository.findById(baseVersionId)
+                .orElseThrow(() -> new ResourceNotFoundException("Versão base não encontrada"));
+        if (!base.getDocument().getId().equals(document.getId())) {
+            throw new BusinessRuleException("A versão base não pertence a este documento");
         }
+        return base;
+    }
+    
+    // Mescla de três vias: aplica sobre a versão mais recente o que o cliente mudou desde a base
+    private String mergeWithLatest(Document document, Version base, String content) {
+        Version latest = versionRepository.findLatestByDocument(document).orElse(base);
+        if (latest.getId().equals(base.getId())) {
+            return content;
+        }
+        DiffUtils.MergeResult merge = diffUtils.merge(versionStorageService.getContent(base), content,
+                versionStorageService.getContent(latest));
+        if (!merge.isClean()) {
+            throw new MergeConflictException(new MergeConflictDTO(
+                    "As alterações conflitam com a versão " + latest.getVersionNumber() + " em "
+                            + merge.conflicts().size() + " trecho(s)",
+                    base.getId(), latest.getId(), latest.getVersionNumber(), merge.conflicts(), merge.content()));
+        }
+        return merge.content();
+    }
+    
+    private Version saveNewVersion(Document document, String content, String commitMessage, User author) {
+        // Calcular número da versão
+        String versionNumber = versionNumberService.nextVersionNumber(document);
         
-        String lastVersionNumber = versions.get(0).getVersionNumber();
-        String[] parts = lastVersionNumber.split("\\.");
+        // Criar nova versão
+        Version version = new Version();
+        version.setDocument(document);
+        version.setVersionNumber(versionNumber);
+        version.setCommitMessage(commitMessage);
+        version.setCreatedBy(author);
         
-        int major = Integer.parseInt(parts[0]);
-        int minor = Integer.parseInt(parts[1]);
+        // Salvar o conteúdo completo; o diff em relação à versão anterior é calculado após o commit
+        versionStorageService.storeNewVersion(version, content);
+        version.setDiffStatus(DiffStatus.PENDING);
         
-        return major + "." + (minor + 1);
+        // Salvar versão
+        version = versionRepository.save(version);
+        eventPublisher.publishEvent(new VersionCreatedEvent(version.getId(), document.getId()));
+        return version;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package com.tessera.backend.service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converte versões antigas (conteúdo completo em todas as linhas) para o
+ * armazenamento em cadeia de deltas. Cada documento é migrado em sua própria transação.
+ */
+@Component
+public class VersionStorageMigrationJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersionStorageMigrationJob.class);
+
+    @Autowired
+    private VersionStorageService versionStorageService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Async
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Migração do armazenamento de versões já está em andamento");
+            return;
+        }
+        try {
+            List<Long> documentIds = versionStorageService.findDocumentsToCompact();
+            logger.info("Iniciando migração do armazenamento de versões para {} documentos", documentIds.size());
+
+            int converted = 0;
+            int failed = 0;
+            for (Long documentId : documentIds) {
+                try {
+                    converted += versionStorageService.compactDocument(documentId);
+                } catch (Exception e) {
+                    failed++;
+                    logger.error("Falha ao migrar versões do documento {}", documentId, e);
+                }
+            }
+            logger.info("Migração concluída: {} versões convertidas, {} documentos com falha", converted, failed);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+}
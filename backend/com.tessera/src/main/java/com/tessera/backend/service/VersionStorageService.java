@@ -0,0 +1,360 @@
+package com.tessera.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tessera.backend.entity.Version;
+import com.tessera.backend.exception.ResourceNotFoundException;
+import com.tessera.backend.repository.VersionRepository;
+import com.tessera.backend.util.BoundedLruCache;
+import com.tessera.backend.util.ContentCodec;
+import com.tessera.backend.util.DiffUtils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Armazena o conteúdo das versões como uma cadeia de deltas com keyframes periódicos.
+ * Apenas os keyframes guardam o conteúdo completo, no {@link ContentStoreService}; as demais
+ * versões guardam o delta gerado por {@link DiffUtils#generateDiff} em relação à versão base.
+ */
+@Service
+public class VersionStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersionStorageService.class);
+
+    // Limite de segurança contra cadeias corrompidas (ciclos)
+    private static final int MAX_CHAIN_WALK = 10_000;
+
+    public enum StorageMode {
+        FULL,
+        DELTA
+    }
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    @Autowired
+    private DiffUtils diffUtils;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${tessera.versions.storage-mode:DELTA}")
+    private StorageMode storageMode;
+
+    @Value("${tessera.versions.keyframe-interval:20}")
+    private int keyframeInterval;
+
+    @Value("${tessera.versions.keyframe-max-delta-ratio:0.5}")
+    private double keyframeMaxDeltaRatio;
+
+    @Value("${tessera.versions.snapshot-cache.max-entries:256}")
+    private int snapshotCacheMaxEntries;
+
+    @Value("${tessera.versions.snapshot-cache.max-chars:50000000}")
+    private long snapshotCacheMaxChars;
+
+    private BoundedLruCache<Long, String> snapshotCache;
+
+    @PostConstruct
+    void initCache() {
+        snapshotCache = new BoundedLruCache<>(snapshotCacheMaxEntries, snapshotCacheMaxChars, String::length);
+    }
+
+    /**
+     * Armazena a nova versão como keyframe, sem calcular o diff. O delta é anexado
+     * depois por {@link #attachDelta}.
+     */
+    public void storeNewVersion(Version version, String content) {
+        storeAsKeyframe(version, content, contentStoreService.hash(content));
+    }
+
+    /**
+     * Calcula o diff da versão em relação à base e, se a política permitir, passa a
+     * armazená-la como delta. Versões com conteúdo compartilhado (repetidas ou revertidas)
+     * ou que já servem de base para outras continuam como keyframes.
+     *
+     * Fora da criação da versão, as duas devem ter sido carregadas travadas
+     * ({@link VersionRepository#findByIdForUpdate}) para não cruzar com {@link #replaceContent}.
+     *
+     * @return o delta calculado
+     */
+    public String attachDelta(Version version, Version base) {
+        String content = getContent(version);
+        String baseContent = getContent(base);
+        if (!matchesHash(version, content) || !matchesHash(base, baseContent)) {
+            // Snapshot em cache anterior a uma troca de conteúdo: lê de novo do armazenamento
+            evict(version.getId());
+            evict(base.getId());
+            content = getContent(version);
+            baseContent = getContent(base);
+        }
+        String delta = diffUtils.generateDiff(baseContent, content);
+        version.setDiffFromPrevious(delta);
+
+        if (!version.isStoredInBlob() || contentStoreService.isShared(version.getContentHash())
+                || hasDependents(version)) {
+            return delta;
+        }
+        int depth = chainDepthOf(base) + 1;
+        if (!shouldStoreKeyframe(depth, delta, content) && reproduces(baseContent, delta, content)) {
+            storeAsDelta(version, base.getId(), depth, version.getContentHash());
+        }
+        return delta;
+    }
+
+    /**
+     * Substitui o conteúdo de uma versão existente. As versões que dependem dela
+     * na cadeia são convertidas em keyframes antes, para não serem corrompidas.
+     */
+    public void replaceContent(Version version, String content) {
+        materializeDependents(version);
+        storeAsKeyframe(version, content, contentStoreService.hash(content));
+        evict(version.getId());
+    }
+
+    /**
+     * Retorna o conteúdo completo da versão, reconstruindo a cadeia de deltas se necessário.
+     */
+    public String getContent(Version version) {
+        if (version.hasInlineContent()) {
+            return version.getContent();
+        }
+
+        Deque<String> deltas = new ArrayDeque<>();
+        Version current = version;
+        String content = null;
+        for (int i = 0; i < MAX_CHAIN_WALK && content == null; i++) {
+            String cached = current.getId() != null ? snapshotCache.get(current.getId()) : null;
+            if (cached != null && current == version) {
+                return cached;
+            } else if (cached != null) {
+                content = cached;
+            } else if (current.isStoredInBlob()) {
+                content = contentStoreService.load(current.getContentHash());
+            } else if (current.hasInlineContent()) {
+                content = current.getContent();
+            } else {
+                if (current.getBaseVersionId() == null || current.getDiffFromPrevious() == null) {
+                    throw new IllegalStateException("Cadeia de deltas inválida na versão " + current.getId());
+                }
+                deltas.push(current.getDiffFromPrevious());
+                Long baseId = current.getBaseVersionId();
+                current = versionRepository.findById(baseId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Versão base não encontrada: " + baseId));
+            }
+        }
+        if (content == null) {
+            throw new IllegalStateException("Cadeia de deltas muito longa na versão " + version.getId());
+        }
+
+        while (!deltas.isEmpty()) {
+            content = diffUtils.applyDiff(content, deltas.pop());
+        }
+        if (version.getId() != null) {
+            snapshotCache.put(version.getId(), content);
+        }
+        return content;
+    }
+
+    public void evict(Long versionId) {
+        if (versionId != null) {
+            snapshotCache.remove(versionId);
+        }
+    }
+
+    public Map<String, Object> snapshotCacheStats() {
+        return snapshotCache.stats();
+    }
+
+    /**
+     * Converte as versões de um documento salvas com conteúdo completo inline para a
+     * cadeia de deltas. Cada delta é validado antes de o conteúdo ser descartado,
+     * e os keyframes restantes passam para o armazenamento endereçado por hash.
+     *
+     * @return quantidade de versões convertidas em delta
+     */
+    @Transactional
+    public int compactDocument(Long documentId) {
+        List<Long> ids = versionRepository.findIdsByDocumentId(documentId);
+        int converted = 0;
+        Long previousId = null;
+        String previousContent = null;
+        int previousDepth = 0;
+
+        for (Long id : ids) {
+            Version version = versionRepository.findById(id).orElse(null);
+            if (version == null) {
+                continue;
+            }
+            String content = getContent(version);
+
+            if (version.hasInlineContent()) {
+                String hash = contentStoreService.hash(content);
+                String delta = previousId != null ? diffUtils.generateDiff(previousContent, content) : null;
+                int depth = previousDepth + 1;
+                if (delta != null && !contentStoreService.exists(hash)
+                        && !shouldStoreKeyframe(depth, delta, content) && reproduces(previousContent, delta, content)) {
+                    version.setDiffFromPrevious(delta);
+                    storeAsDelta(version, previousId, depth, hash);
+                    converted++;
+                } else {
+                    storeAsKeyframe(version, content, hash);
+                }
+                versionRepository.save(version);
+                entityManager.flush();
+            }
+            previousId = version.getId();
+            previousContent = content;
+            previousDepth = chainDepthOf(version);
+
+            // Evita acumular o conteúdo de todas as versões no contexto de persistência
+            entityManager.clear();
+        }
+
+        if (converted > 0) {
+            logger.info("Documento {}: {} versões convertidas para armazenamento em delta", documentId, converted);
+        }
+        return converted;
+    }
+
+    public List<Long> findDocumentsToCompact() {
+        return versionRepository.findDocumentIdsToCompact();
+    }
+
+    /**
+     * Abre o conteúdo da versão para streaming. Keyframes são copiados diretamente do
+     * banco em blocos (ainda compactados, se o cliente aceitar gzip); versões em delta
+     * precisam ser reconstruídas em memória.
+     */
+    public VersionContentStream openContentStream(Version version) {
+        if (version.isStoredInBlob()) {
+            return streamColumn("content_blobs", "data", "hash", version.getContentHash());
+        }
+        if (version.hasInlineContent() && version.getBody() != null) {
+            return streamColumn("version_contents", "content", "id", version.getBody().getId());
+        }
+        String content = getContent(version);
+        return new VersionContentStream(false, (out, keepGzip) -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(content);
+            writer.flush();
+        });
+    }
+
+    private VersionContentStream streamColumn(String table, String column, String keyColumn, Object key) {
+        byte[] header = jdbcTemplate.queryForObject(
+                "SELECT SUBSTRING(" + column + ", 1, " + ContentCodec.SNIFF_SIZE + ") FROM " + table + " WHERE " + keyColumn + " = ?",
+                byte[].class, key);
+        String sql = "SELECT " + column + " FROM " + table + " WHERE " + keyColumn + " = ?";
+        return new VersionContentStream(ContentCodec.isGzip(header), (out, keepGzip) ->
+                jdbcTemplate.query(sql, rs -> {
+                    if (rs.next()) {
+                        try (InputStream data = rs.getBinaryStream(1)) {
+                            ContentCodec.copyPayload(data, out, keepGzip);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    return null;
+                }, key));
+    }
+
+    // contentHash é sempre o hash do conteúdo completo, seja a versão keyframe ou delta
+    private boolean matchesHash(Version version, String content) {
+        return version.getContentHash() == null || version.getContentHash().equals(contentStoreService.hash(content));
+    }
+
+    private boolean hasDependents(Version version) {
+        return version.getId() != null && !versionRepository.findByBaseVersionId(version.getId()).isEmpty();
+    }
+
+    private void materializeDependents(Version version) {
+        if (version.getId() == null) {
+            return;
+        }
+        List<Version> dependents = versionRepository.findByBaseVersionId(version.getId());
+        for (Version dependent : dependents) {
+            String content = getContent(dependent);
+            storeAsKeyframe(dependent, content, contentStoreService.hash(content));
+            versionRepository.save(dependent);
+        }
+    }
+
+    private boolean shouldStoreKeyframe(int depth, String delta, String content) {
+        if (storageMode != StorageMode.DELTA) {
+            return true;
+        }
+        if (depth >= keyframeInterval) {
+            return true;
+        }
+        return delta.length() > content.length() * keyframeMaxDeltaRatio;
+    }
+
+    private boolean reproduces(String baseContent, String delta, String expected) {
+        try {
+            return expected.equals(diffUtils.applyDiff(baseContent, delta));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Delta inválido gerado, a versão será salva como keyframe: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void storeAsKeyframe(Version version, String content, String hash) {
+        if (!(version.isStoredInBlob() && hash.equals(version.getContentHash()))) {
+            releaseBlob(version);
+            contentStoreService.acquire(hash, content);
+        }
+        version.setContent(null);
+        version.setKeyframe(true);
+        version.setContentHash(hash);
+        version.setBaseVersionId(null);
+        version.setChainDepth(0);
+    }
+
+    private void storeAsDelta(Version version, Long baseVersionId, int depth, String hash) {
+        releaseBlob(version);
+        version.setContent(null);
+        version.setKeyframe(false);
+        version.setContentHash(hash);
+        version.setBaseVersionId(baseVersionId);
+        version.setChainDepth(depth);
+    }
+
+    private void releaseBlob(Version version) {
+        if (version.isStoredInBlob()) {
+            contentStoreService.release(version.getContentHash());
+        }
+    }
+
+    private int chainDepthOf(Version version) {
+        if (version.isKeyframe() || version.getChainDepth() == null) {
+            return 0;
+        }
+        return version.getChainDepth();
+    }
+}
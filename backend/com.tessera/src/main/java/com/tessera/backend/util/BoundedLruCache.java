@@ -0,0 +1,122 @@
+package com.tessera.backend.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache LRU em memória limitado por número de entradas e por peso total.
+ * O peso de cada valor é calculado pelo {@code weigher} (ex.: tamanho do texto).
+ * Mantém contadores de acertos, falhas e remoções por limite para métricas.
+ */
+public class BoundedLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentWeight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public BoundedLruCache(int maxEntries, long maxWeight, ToLongFunction<V> weigher) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeight) {
+            // Valores maiores que o cache inteiro não são armazenados
+            remove(key);
+            return;
+        }
+        V previous = entries.put(key, value);
+        if (previous != null) {
+            currentWeight -= weigher.applyAsLong(previous);
+        }
+        currentWeight += weight;
+        evictIfNeeded();
+    }
+
+    public synchronized void remove(K key) {
+        V removed = entries.remove(key);
+        if (removed != null) {
+            currentWeight -= weigher.applyAsLong(removed);
+        }
+    }
+
+    /**
+     * Remove as entradas cujas chaves satisfazem o predicado (percorre todo o cache).
+     */
+    public synchronized int removeIf(Predicate<K> predicate) {
+        int removed = 0;
+        Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, V> entry = it.next();
+            if (predicate.test(entry.getKey())) {
+                currentWeight -= weigher.applyAsLong(entry.getValue());
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentWeight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return currentWeight;
+    }
+
+    /**
+     * Estatísticas atuais do cache (entradas, peso, acertos, falhas e remoções por limite).
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long requests = hits + misses;
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("weight", currentWeight);
+        stats.put("maxWeight", maxWeight);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<K, V>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentWeight > maxWeight) && it.hasNext()) {
+            Map.Entry<K, V> eldest = it.next();
+            currentWeight -= weigher.applyAsLong(eldest.getValue());
+            it.remove();
+            evictions++;
+        }
+    }
+}
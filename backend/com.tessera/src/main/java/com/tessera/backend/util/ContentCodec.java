@@ -0,0 +1,145 @@
+package com.tessera.backend.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codificação binária do conteúdo das versões.
+ *
+ * Formato: 2 bytes mágicos ("TZ"), 1 byte com o codec e o payload. O payload gzip é
+ * um stream GZIP completo, de modo que pode ser enviado ao cliente como
+ * {@code Content-Encoding: gzip} sem descompactar. Bytes sem cabeçalho são tratados
+ * como texto UTF-8 legado (colunas LONGTEXT convertidas para LONGBLOB). Como o texto legado
+ * não tem marcação própria, o codec gzip só é reconhecido com os bytes mágicos do GZIP logo
+ * após o cabeçalho, e um payload que não descompacta é lido como texto legado.
+ */
+public final class ContentCodec {
+
+    public static final byte CODEC_RAW = 0;
+    public static final byte CODEC_GZIP = 1;
+
+    private static final byte MAGIC_0 = 'T';
+    private static final byte MAGIC_1 = 'Z';
+    private static final int HEADER_SIZE = 3;
+    private static final byte GZIP_MAGIC_0 = (byte) 0x1f;
+    private static final byte GZIP_MAGIC_1 = (byte) 0x8b;
+
+    /** Bytes iniciais suficientes para {@link #isGzip}: cabeçalho e bytes mágicos do GZIP. */
+    public static final int SNIFF_SIZE = HEADER_SIZE + 2;
+
+    // Abaixo deste tamanho a compressão não compensa o overhead do gzip
+    private static final int MIN_COMPRESS_BYTES = 256;
+
+    private ContentCodec() {
+    }
+
+    public static byte[] encode(String content) {
+        if (content == null) {
+            return null;
+        }
+        byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= MIN_COMPRESS_BYTES) {
+            byte[] compressed = gzip(utf8);
+            if (compressed.length < utf8.length) {
+                return withHeader(CODEC_GZIP, compressed);
+            }
+        }
+        return withHeader(CODEC_RAW, utf8);
+    }
+
+    public static String decode(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!hasHeader(data) || (data[2] == CODEC_GZIP && !isGzip(data))) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        byte[] payload = Arrays.copyOfRange(data, HEADER_SIZE, data.length);
+        if (isGzip(data)) {
+            try {
+                return new String(gunzip(payload), StandardCharsets.UTF_8);
+            } catch (UncheckedIOException e) {
+                // Texto legado que por acaso começa como o cabeçalho
+                return new String(data, StandardCharsets.UTF_8);
+            }
+        }
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    public static boolean hasHeader(byte[] data) {
+        return data != null && data.length >= HEADER_SIZE && data[0] == MAGIC_0 && data[1] == MAGIC_1
+                && (data[2] == CODEC_RAW || data[2] == CODEC_GZIP);
+    }
+
+    public static boolean isGzip(byte[] data) {
+        return hasHeader(data) && data[2] == CODEC_GZIP && data.length >= SNIFF_SIZE
+                && data[HEADER_SIZE] == GZIP_MAGIC_0 && data[HEADER_SIZE + 1] == GZIP_MAGIC_1;
+    }
+
+    /**
+     * Retorna o stream GZIP armazenado, sem o cabeçalho do codec.
+     */
+    static byte[] gzipPayload(byte[] data) {
+        if (!isGzip(data)) {
+            throw new IllegalArgumentException("Conteúdo não está armazenado com gzip");
+        }
+        return Arrays.copyOfRange(data, HEADER_SIZE, data.length);
+    }
+
+    /**
+     * Copia o conteúdo codificado de {@code data} para {@code out} em blocos, sem carregá-lo
+     * inteiro em memória. Com {@code keepGzip}, o payload gzip é copiado sem descompactar.
+     */
+    public static void copyPayload(InputStream data, OutputStream out, boolean keepGzip) throws IOException {
+        byte[] sniff = data.readNBytes(SNIFF_SIZE);
+        if (!hasHeader(sniff) || (sniff[2] == CODEC_GZIP && !isGzip(sniff))) {
+            out.write(sniff);
+            data.transferTo(out);
+        } else if (sniff[2] == CODEC_GZIP && !keepGzip) {
+            InputStream payload = new SequenceInputStream(
+                    new ByteArrayInputStream(sniff, HEADER_SIZE, sniff.length - HEADER_SIZE), data);
+            try (GZIPInputStream gzip = new GZIPInputStream(payload)) {
+                gzip.transferTo(out);
+            }
+        } else {
+            out.write(sniff, HEADER_SIZE, sniff.length - HEADER_SIZE);
+            data.transferTo(out);
+        }
+    }
+
+    private static byte[] withHeader(byte codec, byte[] payload) {
+        byte[] result = new byte[payload.length + HEADER_SIZE];
+        result[0] = MAGIC_0;
+        result[1] = MAGIC_1;
+        result[2] = codec;
+        System.arraycopy(payload, 0, result, HEADER_SIZE, payload.length);
+        return result;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Conteúdo compactado inválido", e);
+        }
+    }
+}
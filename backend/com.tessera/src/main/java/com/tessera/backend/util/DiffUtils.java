@@ -1,47 +1,486 @@
 package com.tessera.backend.util;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch;
 import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch.Diff;
+import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch.Operation;
 import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch.Patch;
 
+/**
+ * Geração e aplicação de diffs entre conteúdos de versões.
+ *
+ * O diff é feito sobre tokens do HTML do Tiptap (tags, palavras, espaços e pontuação),
+ * cada um mapeado para um único caractere, como no modo por linhas do diff-match-patch.
+ * O resultado é convertido de volta para o texto original, então o formato do delta e
+ * do HTML renderizado não muda.
+ *
+ * Textos grandes passam primeiro por um diff em nível de bloco (parágrafos, títulos,
+ * itens de lista); o diff por token é feito apenas dentro dos blocos alterados.
+ * Cada chamada tem um orçamento de tempo: esgotado o tempo, os trechos restantes ficam
+ * no resultado grosseiro (remoção + inserção do bloco), que continua válido. O número de
+ * diffs grandes simultâneos é limitado para não ocupar todas as threads do servidor.
+ */
 @Component
 public class DiffUtils {
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(DiffUtils.class);
+
+    public enum Granularity {
+        TOKEN,
+        CHAR
+    }
+
+    public record ChangeStats(int charsAdded, int charsRemoved) {}
+
+    /**
+     * Resultado de uma mesclagem de três vias: o texto com os trechos aplicados e, em formato
+     * de patch, os trechos que não puderam ser aplicados (vazio se a mesclagem foi completa).
+     */
+    public record MergeResult(String content, List<String> conflicts) {
+
+        public boolean isClean() {
+            return conflicts.isEmpty();
+        }
+    }
+
+    private static final long DEFAULT_TIMEOUT_MS = 1000;
+    private static final int DEFAULT_BLOCK_THRESHOLD_CHARS = 20_000;
+    private static final int DEFAULT_MAX_CONCURRENT = 4;
+    private static final long DEFAULT_PERMIT_WAIT_MS = 200;
+
+    // Elementos do Tiptap que delimitam blocos no diff grosseiro
+    private static final Set<String> BLOCK_TAGS = Set.of(
+            "p", "h1", "h2", "h3", "h4", "h5", "h6", "li", "ul", "ol",
+            "blockquote", "pre", "table", "tr", "div", "figure");
+
+    // Primeiro caractere usado na codificação de blocos e tokens (evita caracteres de controle)
+    private static final char FIRST_CODE = '\u0100';
+
     private final DiffMatchPatch dmp = new DiffMatchPatch();
-    
+
+    private final Granularity granularity;
+    private final long timeoutMs;
+    private final int blockThresholdChars;
+    private final long permitWaitMs;
+    private final int maxConcurrentLarge;
+    private final Semaphore largeDiffPermits;
+
+    private final AtomicLong largeDiffs = new AtomicLong();
+    private final AtomicLong budgetExhausted = new AtomicLong();
+    private final AtomicLong permitTimeouts = new AtomicLong();
+
+    public DiffUtils() {
+        this(Granularity.TOKEN, DEFAULT_TIMEOUT_MS, DEFAULT_BLOCK_THRESHOLD_CHARS, DEFAULT_MAX_CONCURRENT,
+                DEFAULT_PERMIT_WAIT_MS);
+    }
+
+    @Autowired
+    public DiffUtils(@Value("${tessera.diff.granularity:TOKEN}") Granularity granularity,
+                     @Value("${tessera.diff.timeout-ms:1000}") long timeoutMs,
+                     @Value("${tessera.diff.block-threshold-chars:20000}") int blockThresholdChars,
+                     @Value("${tessera.diff.max-concurrent-large:4}") int maxConcurrentLarge,
+                     @Value("${tessera.diff.permit-wait-ms:200}") long permitWaitMs) {
+        this.granularity = granularity;
+        this.timeoutMs = timeoutMs;
+        this.blockThresholdChars = blockThresholdChars;
+        this.permitWaitMs = permitWaitMs;
+        this.maxConcurrentLarge = Math.max(1, maxConcurrentLarge);
+        this.largeDiffPermits = new Semaphore(this.maxConcurrentLarge, true);
+    }
+
     /**
      * Gera um diff entre dois textos
      */
     public String generateDiff(String oldText, String newText) {
-        LinkedList<Diff> diffs = (LinkedList<Diff>) dmp.diffMain(oldText, newText);
-        dmp.diffCleanupSemantic(diffs);
-        
-        return dmp.diffToDelta(diffs);
+        return dmp.diffToDelta(computeDiffs(oldText, newText));
     }
-    
+
     /**
-     * Aplica um diff a um texto
+     * Aplica um diff a um texto. O delta precisa ter sido gerado a partir do mesmo texto,
+     * caso contrário é lançada IllegalArgumentException.
      */
     public String applyDiff(String text, String diffDelta) {
-        LinkedList<Diff> diffs = (LinkedList<Diff>) dmp.diffFromDelta(text, diffDelta);
-        
-        LinkedList<Patch> patches = dmp.patchMake(text, diffs);
+        LinkedList<Diff> diffs = dmp.diffFromDelta(text, diffDelta);
+        return dmp.diffText2(diffs);
+    }
+
+    /**
+     * Aplica uma lista de patches no formato texto do diff-match-patch ({@code @@ -a,b +c,d @@}).
+     * Se algum trecho não puder ser localizado no texto é lançada IllegalArgumentException.
+     */
+    public String applyPatch(String text, String patchText) {
+        LinkedList<Patch> patches = new LinkedList<>(dmp.patchFromText(patchText));
         Object[] result = dmp.patchApply(patches, text);
-        
+        for (boolean applied : (boolean[]) result[1]) {
+            if (!applied) {
+                throw new IllegalArgumentException("Trecho do patch não encontrado no texto base");
+            }
+        }
         return (String) result[0];
     }
-    
+
+    /**
+     * Mescla as alterações de {@code ours} (feitas sobre {@code base}) em {@code theirs}, que
+     * também partiu de {@code base}. Cada trecho de {@code ours} é aplicado em sequência sobre
+     * {@code theirs}; trechos que se sobrepõem a alterações de {@code theirs} na base, ou que não
+     * encontram o contexto, ficam de fora e são reportados como conflito.
+     */
+    public MergeResult merge(String base, String ours, String theirs) {
+        if (ours.equals(theirs) || ours.equals(base)) {
+            return new MergeResult(theirs, List.of());
+        }
+        if (theirs.equals(base)) {
+            return new MergeResult(ours, List.of());
+        }
+        LinkedList<Diff> theirDiffs = computeDiffs(base, theirs);
+        List<int[]> theirRanges = changedRanges(theirDiffs);
+
+        String text = theirs;
+        // Deslocamento causado pelos trechos já aplicados
+        int shift = 0;
+        // O patchMake usa contexto acumulado: start1 já conta os trechos anteriores de ours
+        int oursDelta = 0;
+        List<String> conflicts = new ArrayList<>();
+        for (Patch patch : dmp.patchMake(base, computeDiffs(base, ours))) {
+            String hunk = dmp.patchToText(List.of(patch));
+            int baseStart = patch.start1 - oursDelta;
+            oursDelta += patch.length2 - patch.length1;
+            int[] range = changedRange(patch, baseStart);
+            if (overlaps(range, theirRanges)) {
+                conflicts.add(hunk);
+                continue;
+            }
+            // Posição esperada do trecho no texto deles, pela correspondência exata com a base
+            patch.start2 = dmp.diffXIndex(theirDiffs, baseStart) + shift;
+            Object[] result = dmp.patchApply(new LinkedList<>(List.of(patch)), text);
+            boolean applied = true;
+            for (boolean part : (boolean[]) result[1]) {
+                applied &= part;
+            }
+            if (applied) {
+                String merged = (String) result[0];
+                shift += merged.length() - text.length();
+                text = merged;
+            } else {
+                conflicts.add(hunk);
+            }
+        }
+        return new MergeResult(text, conflicts);
+    }
+
+    /**
+     * Conta os caracteres inseridos e removidos por um delta gerado a partir de {@code text}.
+     */
+    public ChangeStats changeStats(String text, String diffDelta) {
+        int added = 0;
+        int removed = 0;
+        for (Diff diff : dmp.diffFromDelta(text, diffDelta)) {
+            if (diff.operation == Operation.INSERT) {
+                added += diff.text.length();
+            } else if (diff.operation == Operation.DELETE) {
+                removed += diff.text.length();
+            }
+        }
+        return new ChangeStats(added, removed);
+    }
+
     /**
      * Renderiza um diff como HTML com <ins> e <del>
      */
     public String renderDiffHtml(String oldText, String newText) {
-        LinkedList<Diff> diffs = (LinkedList<Diff>) dmp.diffMain(oldText, newText);
+        return dmp.diffPrettyHtml(computeDiffs(oldText, newText));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("largeDiffs", largeDiffs.get());
+        stats.put("budgetExhausted", budgetExhausted.get());
+        stats.put("permitTimeouts", permitTimeouts.get());
+        stats.put("largeDiffsRunning", maxConcurrentLarge - largeDiffPermits.availablePermits());
+        stats.put("largeDiffsWaiting", largeDiffPermits.getQueueLength());
+        return stats;
+    }
+
+    // Trechos da base alterados pelos diffs, como [início, fim]; inserções são trechos vazios
+    private static List<int[]> changedRanges(List<Diff> diffs) {
+        List<int[]> ranges = new ArrayList<>();
+        int position = 0;
+        for (Diff diff : diffs) {
+            if (diff.operation == Operation.EQUAL) {
+                position += diff.text.length();
+                continue;
+            }
+            int end = diff.operation == Operation.DELETE ? position + diff.text.length() : position;
+            int last = ranges.size() - 1;
+            if (last >= 0 && ranges.get(last)[1] >= position) {
+                ranges.get(last)[1] = Math.max(ranges.get(last)[1], end);
+            } else {
+                ranges.add(new int[] { position, end });
+            }
+            position = end;
+        }
+        return ranges;
+    }
+
+    // Trecho da base alterado pelo patch, sem as linhas de contexto; baseStart é o início do patch na base
+    private static int[] changedRange(Patch patch, int baseStart) {
+        int start = baseStart;
+        int end = baseStart + patch.length1;
+        if (!patch.diffs.isEmpty() && patch.diffs.getFirst().operation == Operation.EQUAL) {
+            start += patch.diffs.getFirst().text.length();
+        }
+        if (patch.diffs.size() > 1 && patch.diffs.getLast().operation == Operation.EQUAL) {
+            end -= patch.diffs.getLast().text.length();
+        }
+        return new int[] { start, Math.max(start, end) };
+    }
+
+    // Alterações que se tocam também contam como conflito, como no merge do git
+    private static boolean overlaps(int[] range, List<int[]> ranges) {
+        for (int[] other : ranges) {
+            if (range[0] <= other[1] && other[0] <= range[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    LinkedList<Diff> computeDiffs(String oldText, String newText) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        if (oldText.length() < blockThresholdChars && newText.length() < blockThresholdChars) {
+            return fineDiff(oldText, newText, deadline);
+        }
+
+        largeDiffs.incrementAndGet();
+        boolean acquired = false;
+        try {
+            acquired = largeDiffPermits.tryAcquire(permitWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!acquired) {
+            permitTimeouts.incrementAndGet();
+            logger.warn("Limite de diffs simultâneos atingido; usando diff grosseiro ({} e {} caracteres)",
+                    oldText.length(), newText.length());
+            return coarseDiff(oldText, newText);
+        }
+        try {
+            return blockDiff(oldText, newText, deadline);
+        } finally {
+            largeDiffPermits.release();
+        }
+    }
+
+    private LinkedList<Diff> blockDiff(String oldText, String newText, long deadline) {
+        LinkedList<Diff> blockDiffs = unitDiff(splitBlocks(oldText), splitBlocks(newText), deadline);
+
+        // Refina cada trecho alterado, enquanto houver orçamento
+        LinkedList<Diff> result = new LinkedList<>();
+        StringBuilder deleted = new StringBuilder();
+        StringBuilder inserted = new StringBuilder();
+        boolean exhausted = false;
+        for (Diff diff : blockDiffs) {
+            if (diff.operation == Operation.DELETE) {
+                deleted.append(diff.text);
+            } else if (diff.operation == Operation.INSERT) {
+                inserted.append(diff.text);
+            } else {
+                exhausted |= flushChanged(result, deleted, inserted, deadline);
+                result.add(diff);
+            }
+        }
+        exhausted |= flushChanged(result, deleted, inserted, deadline);
+
+        if (exhausted) {
+            budgetExhausted.incrementAndGet();
+            logger.debug("Orçamento de tempo do diff esgotado; trechos restantes mantidos em nível de bloco");
+        }
+        dmp.diffCleanupMerge(result);
+        return result;
+    }
+
+    // Retorna true se o orçamento acabou e o trecho ficou sem refinamento
+    private boolean flushChanged(LinkedList<Diff> result, StringBuilder deleted, StringBuilder inserted, long deadline) {
+        boolean exhausted = false;
+        if (deleted.length() > 0 && inserted.length() > 0) {
+            if (System.nanoTime() < deadline) {
+                result.addAll(fineDiff(deleted.toString(), inserted.toString(), deadline));
+            } else {
+                result.add(new Diff(Operation.DELETE, deleted.toString()));
+                result.add(new Diff(Operation.INSERT, inserted.toString()));
+                exhausted = true;
+            }
+        } else if (deleted.length() > 0) {
+            result.add(new Diff(Operation.DELETE, deleted.toString()));
+        } else if (inserted.length() > 0) {
+            result.add(new Diff(Operation.INSERT, inserted.toString()));
+        }
+        deleted.setLength(0);
+        inserted.setLength(0);
+        return exhausted;
+    }
+
+    private LinkedList<Diff> fineDiff(String oldText, String newText, long deadline) {
+        LinkedList<Diff> diffs = granularity == Granularity.TOKEN
+                ? unitDiff(tokenize(oldText), tokenize(newText), deadline)
+                : newDmp(deadline).diffMain(oldText, newText, false);
         dmp.diffCleanupSemantic(diffs);
-        
-        return dmp.diffPrettyHtml(diffs);
+        return diffs;
+    }
+
+    /**
+     * Codifica cada unidade distinta (bloco ou token) como um caractere, faz o diff das
+     * sequências codificadas e converte o resultado de volta para o texto original.
+     */
+    private LinkedList<Diff> unitDiff(List<String> oldUnits, List<String> newUnits, long deadline) {
+        List<String> unitTable = new ArrayList<>();
+        Map<String, Character> unitCodes = new HashMap<>();
+        String oldCodes = encodeUnits(oldUnits, unitTable, unitCodes);
+        String newCodes = encodeUnits(newUnits, unitTable, unitCodes);
+
+        LinkedList<Diff> diffs = newDmp(deadline).diffMain(oldCodes, newCodes, false);
+        for (Diff diff : diffs) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < diff.text.length(); i++) {
+                text.append(unitTable.get(diff.text.charAt(i) - FIRST_CODE));
+            }
+            diff.text = text.toString();
+        }
+        return diffs;
+    }
+
+    /**
+     * Diff mínimo em custo: mantém o prefixo e o sufixo comuns e substitui o meio.
+     */
+    private LinkedList<Diff> coarseDiff(String oldText, String newText) {
+        LinkedList<Diff> diffs = new LinkedList<>();
+        int prefix = dmp.diffCommonPrefix(oldText, newText);
+        int suffix = dmp.diffCommonSuffix(oldText.substring(prefix), newText.substring(prefix));
+        if (prefix > 0) {
+            diffs.add(new Diff(Operation.EQUAL, oldText.substring(0, prefix)));
+        }
+        if (oldText.length() - suffix > prefix) {
+            diffs.add(new Diff(Operation.DELETE, oldText.substring(prefix, oldText.length() - suffix)));
+        }
+        if (newText.length() - suffix > prefix) {
+            diffs.add(new Diff(Operation.INSERT, newText.substring(prefix, newText.length() - suffix)));
+        }
+        if (suffix > 0) {
+            diffs.add(new Diff(Operation.EQUAL, oldText.substring(oldText.length() - suffix)));
+        }
+        return diffs;
+    }
+
+    /**
+     * Divide o HTML em blocos, cortando após quebras de linha e após o fechamento
+     * de elementos de bloco.
+     */
+    static List<String> splitBlocks(String text) {
+        List<String> blocks = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                i++;
+                blocks.add(text.substring(start, i));
+                start = i;
+            } else if (c == '<' && i + 1 < text.length() && text.charAt(i + 1) == '/') {
+                int end = text.indexOf('>', i);
+                if (end < 0) {
+                    break;
+                }
+                String tag = text.substring(i + 2, end).trim().toLowerCase();
+                i = end + 1;
+                if (BLOCK_TAGS.contains(tag)) {
+                    blocks.add(text.substring(start, i));
+                    start = i;
+                }
+            } else {
+                i++;
+            }
+        }
+        if (start < text.length()) {
+            blocks.add(text.substring(start));
+        }
+        return blocks;
+    }
+
+    /**
+     * Divide o HTML em tokens: tags completas, palavras, sequências de espaços e
+     * caracteres isolados (pontuação, entidades). A concatenação dos tokens é o texto original.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int end;
+            if (c == '<') {
+                end = text.indexOf('>', i);
+                end = end < 0 ? text.length() : end + 1;
+            } else if (Character.isLetterOrDigit(c)) {
+                end = i + 1;
+                while (end < text.length() && Character.isLetterOrDigit(text.charAt(end))) {
+                    end++;
+                }
+            } else if (Character.isWhitespace(c)) {
+                end = i + 1;
+                while (end < text.length() && Character.isWhitespace(text.charAt(end))) {
+                    end++;
+                }
+            } else {
+                end = i + (Character.isHighSurrogate(c) && i + 1 < text.length() ? 2 : 1);
+            }
+            tokens.add(text.substring(i, end));
+            i = end;
+        }
+        return tokens;
+    }
+
+    private String encodeUnits(List<String> units, List<String> unitTable, Map<String, Character> unitCodes) {
+        // Reserva um código por texto para a unidade final agrupada
+        int maxCodes = Character.MAX_VALUE - FIRST_CODE - 2;
+        StringBuilder codes = new StringBuilder(units.size());
+        for (int i = 0; i < units.size(); i++) {
+            String unit = units.get(i);
+            if (unitTable.size() >= maxCodes && !unitCodes.containsKey(unit)) {
+                // Sem códigos livres: o restante do texto vira uma única unidade
+                unit = String.join("", units.subList(i, units.size()));
+                i = units.size();
+            }
+            Character code = unitCodes.get(unit);
+            if (code == null) {
+                code = (char) (FIRST_CODE + unitTable.size());
+                unitTable.add(unit);
+                unitCodes.put(unit, code);
+            }
+            codes.append(code.charValue());
+        }
+        return codes.toString();
+    }
+
+    private DiffMatchPatch newDmp(long deadline) {
+        DiffMatchPatch instance = new DiffMatchPatch();
+        long remainingNanos = deadline - System.nanoTime();
+        // diffTimeout <= 0 desativa o limite no diff-match-patch; usa o mínimo possível
+        instance.diffTimeout = Math.max(0.001f, remainingNanos / 1_000_000_000f);
+        return instance;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,308 @@
+package com.tessera.backend.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Operação de texto no formato do ot.js, usada na edição colaborativa.
+ *
+ * Uma operação percorre o documento inteiro com componentes retain (inteiro positivo),
+ * insert (string) e delete (inteiro negativo). {@link #transform} ajusta duas operações
+ * concorrentes sobre o mesmo texto para que, aplicadas em qualquer ordem, levem ao
+ * mesmo resultado; {@link #compose} junta duas operações consecutivas em uma só.
+ */
+public final class TextOperation {
+
+    private final List<Object> ops = new ArrayList<>();
+    private int baseLength;
+    private int targetLength;
+
+    public TextOperation retain(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("retain deve ser positivo: " + n);
+        }
+        if (n == 0) {
+            return this;
+        }
+        baseLength += n;
+        targetLength += n;
+        int last = ops.size() - 1;
+        if (last >= 0 && isRetain(ops.get(last))) {
+            ops.set(last, (Integer) ops.get(last) + n);
+        } else {
+            ops.add(n);
+        }
+        return this;
+    }
+
+    public TextOperation insert(String text) {
+        if (text.isEmpty()) {
+            return this;
+        }
+        targetLength += text.length();
+        int last = ops.size() - 1;
+        if (last >= 0 && isInsert(ops.get(last))) {
+            ops.set(last, ops.get(last) + text);
+        } else if (last >= 0 && isDelete(ops.get(last))) {
+            // Forma canônica: insert sempre antes de delete na mesma posição
+            if (last > 0 && isInsert(ops.get(last - 1))) {
+                ops.set(last - 1, ops.get(last - 1) + text);
+            } else {
+                ops.add(last, text);
+            }
+        } else {
+            ops.add(text);
+        }
+        return this;
+    }
+
+    public TextOperation delete(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("delete deve ser positivo: " + n);
+        }
+        if (n == 0) {
+            return this;
+        }
+        baseLength += n;
+        int last = ops.size() - 1;
+        if (last >= 0 && isDelete(ops.get(last))) {
+            ops.set(last, (Integer) ops.get(last) - n);
+        } else {
+            ops.add(-n);
+        }
+        return this;
+    }
+
+    public int getBaseLength() {
+        return baseLength;
+    }
+
+    public int getTargetLength() {
+        return targetLength;
+    }
+
+    public boolean isNoop() {
+        return ops.isEmpty() || (ops.size() == 1 && isRetain(ops.get(0)));
+    }
+
+    /**
+     * Componentes no formato JSON do ot.js.
+     */
+    public List<Object> toJson() {
+        return Collections.unmodifiableList(ops);
+    }
+
+    public static TextOperation fromJson(List<?> components) {
+        TextOperation operation = new TextOperation();
+        for (Object component : components) {
+            if (component instanceof String text) {
+                operation.insert(text);
+            } else if (component instanceof Number number && number.doubleValue() == number.intValue()) {
+                int n = number.intValue();
+                if (n > 0) {
+                    operation.retain(n);
+                } else if (n < 0) {
+                    operation.delete(-n);
+                } else {
+                    throw new IllegalArgumentException("Componente de operação vazio");
+                }
+            } else {
+                throw new IllegalArgumentException("Componente de operação inválido: " + component);
+            }
+        }
+        return operation;
+    }
+
+    public String apply(String text) {
+        if (text.length() != baseLength) {
+            throw new IllegalArgumentException("Operação espera texto de " + baseLength
+                    + " caracteres, recebeu " + text.length());
+        }
+        StringBuilder result = new StringBuilder(targetLength);
+        int index = 0;
+        for (Object op : ops) {
+            if (isRetain(op)) {
+                int n = (Integer) op;
+                result.append(text, index, index + n);
+                index += n;
+            } else if (isInsert(op)) {
+                result.append((String) op);
+            } else {
+                index -= (Integer) op;
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Operação equivalente a aplicar esta e depois {@code other}.
+     */
+    public TextOperation compose(TextOperation other) {
+        if (targetLength != other.baseLength) {
+            throw new IllegalArgumentException("Operações não são consecutivas");
+        }
+        TextOperation result = new TextOperation();
+        List<Object> ops1 = ops;
+        List<Object> ops2 = other.ops;
+        int i1 = 0;
+        int i2 = 0;
+        Object op1 = next(ops1, i1++);
+        Object op2 = next(ops2, i2++);
+        while (op1 != null || op2 != null) {
+            if (isDelete(op1)) {
+                result.delete(-(Integer) op1);
+                op1 = next(ops1, i1++);
+                continue;
+            }
+            if (isInsert(op2)) {
+                result.insert((String) op2);
+                op2 = next(ops2, i2++);
+                continue;
+            }
+            if (op1 == null || op2 == null) {
+                throw new IllegalArgumentException("Operações com tamanhos incompatíveis");
+            }
+
+            if (isRetain(op1) && isRetain(op2)) {
+                int a = (Integer) op1;
+                int b = (Integer) op2;
+                result.retain(Math.min(a, b));
+                if (a > b) {
+                    op1 = a - b;
+                    op2 = next(ops2, i2++);
+                } else if (a == b) {
+                    op1 = next(ops1, i1++);
+                    op2 = next(ops2, i2++);
+                } else {
+                    op2 = b - a;
+                    op1 = next(ops1, i1++);
+                }
+            } else if (isInsert(op1) && isDelete(op2)) {
+                String text = (String) op1;
+                int d = -(Integer) op2;
+                if (text.length() > d) {
+                    op1 = text.substring(d);
+                    op2 = next(ops2, i2++);
+                } else if (text.length() == d) {
+                    op1 = next(ops1, i1++);
+                    op2 = next(ops2, i2++);
+                } else {
+                    op2 = -(d - text.length());
+                    op1 = next(ops1, i1++);
+                }
+            } else if (isInsert(op1) && isRetain(op2)) {
+                String text = (String) op1;
+                int r = (Integer) op2;
+                if (text.length() > r) {
+                    result.insert(text.substring(0, r));
+                    op1 = text.substring(r);
+                    op2 = next(ops2, i2++);
+                } else if (text.length() == r) {
+                    result.insert(text);
+                    op1 = next(ops1, i1++);
+                    op2 = next(ops2, i2++);
+                } else {
+                    result.insert(text);
+                    op2 = r - text.length();
+                    op1 = next(ops1, i1++);
+                }
+            } else {
+                // retain seguido de delete
+                int r = (Integer) op1;
+                int d = -(Integer) op2;
+                result.delete(Math.min(r, d));
+                if (r > d) {
+                    op1 = r - d;
+                    op2 = next(ops2, i2++);
+                } else if (r == d) {
+                    op1 = next(ops1, i1++);
+                    op2 = next(ops2, i2++);
+                } else {
+                    op2 = -(d - r);
+                    op1 = next(ops1, i1++);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Transforma duas operações concorrentes sobre o mesmo texto. Retorna {a', b'} tais que
+     * apply(apply(s, a), b') == apply(apply(s, b), a'). Inserções de {@code a} na mesma
+     * posição ficam antes das de {@code b}.
+     */
+    public static TextOperation[] transform(TextOperation a, TextOperation b) {
+        if (a.baseLength != b.baseLength) {
+            throw new IllegalArgumentException("Operações concorrentes precisam partir do mesmo texto");
+        }
+        TextOperation aPrime = new TextOperation();
+        TextOperation bPrime = new TextOperation();
+        int i1 = 0;
+        int i2 = 0;
+        Object op1 = next(a.ops, i1++);
+        Object op2 = next(b.ops, i2++);
+        while (op1 != null || op2 != null) {
+            if (isInsert(op1)) {
+                aPrime.insert((String) op1);
+                bPrime.retain(((String) op1).length());
+                op1 = next(a.ops, i1++);
+                continue;
+            }
+            if (isInsert(op2)) {
+                aPrime.retain(((String) op2).length());
+                bPrime.insert((String) op2);
+                op2 = next(b.ops, i2++);
+                continue;
+            }
+            if (op1 == null || op2 == null) {
+                throw new IllegalArgumentException("Operações com tamanhos incompatíveis");
+            }
+
+            int n1 = (Integer) op1;
+            int n2 = (Integer) op2;
+            int min;
+            if (n1 > 0 && n2 > 0) {
+                min = Math.min(n1, n2);
+                aPrime.retain(min);
+                bPrime.retain(min);
+            } else if (n1 < 0 && n2 < 0) {
+                // As duas apagam o mesmo trecho: nada a fazer
+                min = Math.min(-n1, -n2);
+            } else if (n1 < 0) {
+                min = Math.min(-n1, n2);
+                aPrime.delete(min);
+            } else {
+                min = Math.min(n1, -n2);
+                bPrime.delete(min);
+            }
+
+            int rest1 = n1 > 0 ? n1 - min : n1 + min;
+            int rest2 = n2 > 0 ? n2 - min : n2 + min;
+            op1 = rest1 != 0 ? Integer.valueOf(rest1) : next(a.ops, i1++);
+            op2 = rest2 != 0 ? Integer.valueOf(rest2) : next(b.ops, i2++);
+        }
+        return new TextOperation[] { aPrime, bPrime };
+    }
+
+    private static Object next(List<Object> ops, int index) {
+        return index < ops.size() ? ops.get(index) : null;
+    }
+
+    private static boolean isRetain(Object op) {
+        return op instanceof Integer n && n > 0;
+    }
+
+    private static boolean isInsert(Object op) {
+        return op instanceof String;
+    }
+
+    private static boolean isDelete(Object op) {
+        return op instanceof Integer n && n < 0;
+    }
+
+    @Override
+    public String toString() {
+        return ops.toString();
+    }
+}
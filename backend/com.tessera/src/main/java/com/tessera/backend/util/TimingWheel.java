@@ -0,0 +1,102 @@
+package com.tessera.backend.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Roda de tempo (hashed timing wheel) para expirar chaves por prazo.
+ *
+ * Cada chave fica no compartimento do tick do seu prazo. {@link #advance(long)} visita apenas
+ * os compartimentos dos ticks decorridos, então o custo é proporcional às chaves desses
+ * compartimentos, e não ao total de chaves. Reagendar é O(1). Prazos além de uma volta da
+ * roda permanecem no compartimento até a volta correspondente.
+ */
+public class TimingWheel<K> {
+
+    private static final class Entry {
+        final int slot;
+        final long deadline;
+
+        Entry(int slot, long deadline) {
+            this.slot = slot;
+            this.deadline = deadline;
+        }
+    }
+
+    private final long tickMs;
+    private final List<Set<Object>> slots;
+    private final Map<K, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMs e wheelSize devem ser positivos");
+        }
+        this.tickMs = tickMs;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new HashSet<>());
+        }
+        this.currentTick = startMs / tickMs;
+    }
+
+    /**
+     * Agenda (ou reagenda) a expiração da chave.
+     */
+    public synchronized void schedule(K key, long deadlineMs) {
+        // Arredonda para cima: ao visitar o tick, todo prazo do compartimento já venceu.
+        // Prazo no passado expira no próximo avanço
+        long tick = Math.max((deadlineMs + tickMs - 1) / tickMs, currentTick + 1);
+        int slot = (int) (tick % slots.size());
+        Entry previous = entries.put(key, new Entry(slot, deadlineMs));
+        if (previous != null && previous.slot != slot) {
+            slots.get(previous.slot).remove(key);
+        }
+        slots.get(slot).add(key);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        slots.get(entry.slot).remove(key);
+        return true;
+    }
+
+    /**
+     * Avança até {@code nowMs} e retorna as chaves cujo prazo venceu, já removidas da roda.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<K> advance(long nowMs) {
+        List<K> expired = new ArrayList<>();
+        long targetTick = nowMs / tickMs;
+        if (targetTick <= currentTick) {
+            return expired;
+        }
+        // Depois de uma volta completa, todos os compartimentos já foram visitados
+        long ticks = Math.min(targetTick - currentTick, slots.size());
+        for (long i = 1; i <= ticks; i++) {
+            Iterator<Object> it = slots.get((int) ((currentTick + i) % slots.size())).iterator();
+            while (it.hasNext()) {
+                K key = (K) it.next();
+                if (entries.get(key).deadline <= nowMs) {
+                    it.remove();
+                    entries.remove(key);
+                    expired.add(key);
+                }
+            }
+        }
+        currentTick = targetTick;
+        return expired;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
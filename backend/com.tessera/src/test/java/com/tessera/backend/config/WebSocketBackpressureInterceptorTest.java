@@ -0,0 +1,93 @@
+package com.tessera.backend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebSocketBackpressureInterceptorTest {
+
+    private WebSocketBackpressureInterceptor interceptor;
+    private ExecutorService executor;
+    private ExecutorSubscribableChannel channel;
+    private final CountDownLatch clientStalled = new CountDownLatch(1);
+    private final AtomicInteger delivered = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        interceptor = new WebSocketBackpressureInterceptor();
+        ReflectionTestUtils.setField(interceptor, "lowPriorityDropDepth", 32);
+        ReflectionTestUtils.setField(interceptor, "lowPriorityDestinations",
+                new String[] { "/topic/documents/*/editors", "/topic/documents/*/cursors" });
+
+        // Canal de saída com um único thread preso no envio para um cliente lento
+        executor = Executors.newSingleThreadExecutor();
+        channel = new ExecutorSubscribableChannel(executor);
+        channel.addInterceptor(interceptor);
+        channel.subscribe(message -> {
+            try {
+                clientStalled.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.incrementAndGet();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        clientStalled.countDown();
+        executor.shutdownNow();
+    }
+
+    private Message<byte[]> frame(String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[16], accessor.getMessageHeaders());
+    }
+
+    @Test
+    void testSlowSessionBacklogStaysBoundedUnderPresenceFlood() throws InterruptedException {
+        for (int i = 0; i < 20000; i++) {
+            channel.send(frame("lento", "/topic/documents/1/cursors"));
+            channel.send(frame("lento", "/topic/documents/1/editors"));
+        }
+        for (int i = 0; i < 10; i++) {
+            channel.send(frame("lento", "/user/alice@test.com/topic/notifications"));
+        }
+
+        // Frames de baixa prioridade param no limite; notificações continuam enfileiradas
+        assertEquals(32 + 10, interceptor.getDepth("lento"));
+        assertEquals(40000L - 32, interceptor.stats().get("lowPriorityDropped"));
+
+        clientStalled.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(42, delivered.get());
+        assertEquals(0, interceptor.getDepth("lento"));
+        assertEquals(0, interceptor.stats().get("sessionsWithBacklog"));
+    }
+
+    @Test
+    void testOtherSessionsAreNotAffected() {
+        for (int i = 0; i < 100; i++) {
+            channel.send(frame("lento", "/topic/documents/1/cursors"));
+        }
+        assertTrue(channel.send(frame("rapido", "/topic/documents/1/cursors")));
+        assertEquals(1, interceptor.getDepth("rapido"));
+    }
+}
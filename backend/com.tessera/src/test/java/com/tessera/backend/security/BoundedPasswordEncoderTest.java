@@ -0,0 +1,147 @@
+package com.tessera.backend.security;
+
+import com.tessera.backend.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    /**
+     * BCrypt real que conta quantas verificações rodam ao mesmo tempo.
+     */
+    private static final class CountingEncoder implements PasswordEncoder {
+        final PasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return bcrypt.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                return bcrypt.matches(rawPassword, encodedPassword);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    @Test
+    void testUpgradeEncodingWhenStrengthChanges() {
+        String cost4 = new BCryptPasswordEncoder(4).encode("senha");
+        String cost5 = new BCryptPasswordEncoder(5).encode("senha");
+        encoder = new BoundedPasswordEncoder(5, 1, 10, 1000);
+
+        assertTrue(encoder.upgradeEncoding(cost4));
+        assertFalse(encoder.upgradeEncoding(cost5));
+        assertFalse(encoder.upgradeEncoding("texto-puro"));
+        assertTrue(encoder.matches("senha", cost4));
+        assertTrue(encoder.encode("senha").startsWith("$2a$05$"));
+    }
+
+    @Test
+    void testVerificationQueuedPastTimeoutIsRejectedWithoutHashing() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger hashed = new AtomicInteger();
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                hashed.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        encoder = new BoundedPasswordEncoder(slow, 4, 1, 1, 50);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // Ocupa o único thread de hash
+            Future<Boolean> first = callers.submit(() -> encoder.matches("a", "a"));
+            while (hashed.get() == 0) {
+                Thread.sleep(1);
+            }
+            // Fica na fila além do limite
+            Future<Boolean> queued = callers.submit(() -> encoder.matches("b", "b"));
+            Thread.sleep(10);
+            // Fila (capacidade 1) cheia: recusa imediata
+            assertThrows(ServiceOverloadedException.class, () -> encoder.matches("c", "c"));
+
+            Exception timeout = assertThrows(Exception.class, () -> queued.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ServiceOverloadedException.class, timeout.getCause());
+            release.countDown();
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, hashed.get());
+        assertEquals(2L, encoder.stats().get("rejected"));
+    }
+
+    @Test
+    void testThousandConcurrentLoginsRunWithBoundedParallelism() throws Exception {
+        CountingEncoder counting = new CountingEncoder();
+        String hash = counting.encode("senha-do-aluno");
+        int logins = 1000;
+        int threads = 4;
+        encoder = new BoundedPasswordEncoder(counting, 4, threads, logins, 60000);
+
+        // Poucas threads chamadoras enviam os 1000 logins; já são mais que as threads do BCrypt
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < logins; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return encoder.matches("senha-do-aluno", hash);
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertTrue(counting.peak.get() <= threads);
+        assertEquals((long) logins, encoder.stats().get("hashes"));
+        assertEquals(0L, encoder.stats().get("rejected"));
+        assertTrue((int) encoder.stats().get("peakQueued") > 0);
+    }
+}
@@ -0,0 +1,130 @@
+package com.tessera.backend.security;
+
+import com.tessera.backend.entity.User;
+import com.tessera.backend.event.UserChangedEvent;
+import com.tessera.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserArgumentResolverTest {
+
+    @InjectMocks
+    private CurrentUserArgumentResolver resolver;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private User alice;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(resolver, "ttlMs", 10000L);
+        ReflectionTestUtils.setField(resolver, "maxEntries", 100);
+        resolver.init();
+
+        alice = new User();
+        alice.setId(1L);
+        alice.setEmail("alice@test.com");
+    }
+
+    private Authentication jwtAuthentication(Long id, String email) {
+        UserDetailsImpl details = new UserDetailsImpl(id, "Alice", email, "", List.of(), true);
+        return new UsernamePasswordAuthenticationToken(details, "token", details.getAuthorities());
+    }
+
+    @Test
+    void testUserIsLoadedByIdOnceWithinTtl() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
+
+        User first = resolver.resolve(jwtAuthentication(1L, "alice@test.com"));
+        User second = resolver.resolve(jwtAuthentication(1L, "alice@test.com"));
+
+        assertEquals(1L, first.getId());
+        assertEquals("alice@test.com", second.getEmail());
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    void testEachRequestGetsItsOwnCopy() {
+        User approver = new User();
+        approver.setId(9L);
+        approver.setName("Admin");
+        alice.setApprovedBy(approver);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
+
+        User first = resolver.resolve(jwtAuthentication(1L, "alice@test.com"));
+        first.setName("Alterado");
+        first.getRoles().clear();
+        User second = resolver.resolve(jwtAuthentication(1L, "alice@test.com"));
+
+        assertNotSame(first, second);
+        assertNotSame(alice, second);
+        assertNull(second.getName());
+        // Associações trazem só o id
+        assertEquals(9L, second.getApprovedBy().getId());
+        assertNull(second.getApprovedBy().getName());
+    }
+
+    @Test
+    void testEntryExpiresAfterTtl() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
+        long now = System.currentTimeMillis();
+
+        resolver.resolve(1L, now);
+        resolver.resolve(1L, now + 9999);
+        resolver.resolve(1L, now + 10000);
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testUserChangeEvictsEntry() {
+        User updated = new User();
+        updated.setId(1L);
+        updated.setEmail("alice@test.com");
+        updated.setName("Alice Souza");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(alice), Optional.of(updated));
+
+        resolver.resolve(jwtAuthentication(1L, "alice@test.com"));
+        resolver.onUserChanged(new UserChangedEvent(1L));
+
+        assertEquals("Alice Souza", resolver.resolve(jwtAuthentication(1L, "alice@test.com")).getName());
+    }
+
+    @Test
+    void testNonJwtPrincipalFallsBackToEmail() {
+        when(userRepository.findByEmail("alice@test.com")).thenReturn(Optional.of(alice));
+        Authentication authentication = new UsernamePasswordAuthenticationToken("alice@test.com", null,
+                AuthorityUtils.NO_AUTHORITIES);
+
+        assertSame(alice, resolver.resolve(authentication));
+    }
+
+    @Test
+    void testMissingOrAnonymousAuthenticationIsRejected() {
+        assertThrows(BadCredentialsException.class, () -> resolver.resolve(null));
+        assertThrows(BadCredentialsException.class, () -> resolver.resolve(new AnonymousAuthenticationToken("key",
+                "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"))));
+
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+        assertThrows(BadCredentialsException.class, () -> resolver.resolve(jwtAuthentication(2L, "removido@test.com")));
+    }
+}
@@ -0,0 +1,129 @@
+package com.tessera.backend.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import com.tessera.backend.repository.RevokedTokenRepository;
+import com.tessera.backend.repository.UserTokenCutoffRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "segredo-de-teste-com-tamanho-suficiente-para-hs512-0123456789abcdefghij";
+
+    private JwtTokenProvider provider;
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setup() {
+        revocationService = new TokenRevocationService();
+        ReflectionTestUtils.setField(revocationService, "revokedTokenRepository", mock(RevokedTokenRepository.class));
+        ReflectionTestUtils.setField(revocationService, "cutoffRepository", mock(UserTokenCutoffRepository.class));
+        ReflectionTestUtils.setField(revocationService, "jwtExpirationInMs", 3600000L);
+        ReflectionTestUtils.setField(revocationService, "expectedEntries", 1000L);
+        ReflectionTestUtils.setField(revocationService, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(revocationService, "lookupCacheMaxEntries", 100);
+        revocationService.init();
+        provider = provider(SECRET);
+    }
+
+    private JwtTokenProvider provider(String secret) {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", secret);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3600000);
+        ReflectionTestUtils.setField(tokenProvider, "tokenCacheMaxEntries", 2);
+        ReflectionTestUtils.setField(tokenProvider, "revocationService", revocationService);
+        tokenProvider.init();
+        return tokenProvider;
+    }
+
+    private String token(JwtTokenProvider tokenProvider, Long id, String email) {
+        UserDetailsImpl user = new UserDetailsImpl(id, "Usuário " + id, email, "",
+                List.of(new SimpleGrantedAuthority("ROLE_STUDENT")), true);
+        return tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @Test
+    void testTokenIsVerifiedOnceAndServedFromCache() {
+        String token = token(provider, 1L, "alice@test.com");
+
+        Authentication first = provider.authenticate(token);
+        Authentication second = provider.authenticate(token);
+
+        assertEquals("alice@test.com", first.getName());
+        assertEquals(1L, ((UserDetailsImpl) second.getPrincipal()).getId());
+        assertTrue(second.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_STUDENT")));
+        assertEquals(1L, provider.tokenCacheStats().get("misses"));
+        assertEquals(1L, provider.tokenCacheStats().get("hits"));
+        // Cada requisição recebe sua própria autenticação
+        assertNotSame(first, second);
+    }
+
+    @Test
+    void testCachedTokenExpiresAtExp() {
+        String token = token(provider, 1L, "alice@test.com");
+        long exp = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+                .parseClaimsJws(token).getBody().getExpiration().getTime();
+
+        assertNotNull(provider.authenticate(token, exp - 1));
+        assertNull(provider.authenticate(token, exp));
+        assertEquals(0, provider.tokenCacheStats().get("size"));
+    }
+
+    @Test
+    void testInvalidTokensAreRejectedAndNotCached() {
+        String forged = token(provider("outro-segredo-com-tamanho-suficiente-para-hs512-0123456789abcdefghijkl"),
+                1L, "alice@test.com");
+
+        assertNull(provider.authenticate(forged));
+        assertNull(provider.authenticate("nao.e.jwt"));
+        assertFalse(provider.validateToken(forged));
+        assertEquals(0, provider.tokenCacheStats().get("size"));
+    }
+
+    @Test
+    void testRevokedTokenIsRejectedEvenWhenCached() {
+        String token = token(provider, 1L, "alice@test.com");
+        String other = token(provider, 1L, "alice@test.com");
+        assertNotNull(provider.authenticate(token));
+
+        provider.revokeToken(token);
+
+        assertNull(provider.authenticate(token));
+        assertNotNull(provider.authenticate(other));
+        assertEquals(1L, revocationService.stats().get("revokedRejections"));
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        for (long id = 1; id <= 5; id++) {
+            assertNotNull(provider.authenticate(token(provider, id, "user" + id + "@test.com")));
+        }
+        assertEquals(2, provider.tokenCacheStats().get("size"));
+        assertEquals(3L, provider.tokenCacheStats().get("evictions"));
+    }
+
+    @Test
+    void testFilterPathReusesParserAndVerifiesTokenOnce() {
+        String token = token(provider, 1L, "alice@test.com");
+        Object parser = ReflectionTestUtils.getField(provider, "parser");
+
+        for (int i = 0; i < 100; i++) {
+            assertNotNull(provider.authenticate(token));
+        }
+
+        // O parser criado no init atende todas as requisições e só a primeira verifica a assinatura
+        assertSame(parser, ReflectionTestUtils.getField(provider, "parser"));
+        assertEquals(1L, provider.tokenCacheStats().get("misses"));
+        assertEquals(99L, provider.tokenCacheStats().get("hits"));
+    }
+}
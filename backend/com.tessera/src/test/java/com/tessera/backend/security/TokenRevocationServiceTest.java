@@ -0,0 +1,104 @@
+package com.tessera.backend.security;
+
+import com.tessera.backend.entity.RevokedToken;
+import com.tessera.backend.entity.UserTokenCutoff;
+import com.tessera.backend.repository.RevokedTokenRepository;
+import com.tessera.backend.repository.UserTokenCutoffRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @InjectMocks
+    private TokenRevocationService service;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+    @Mock
+    private UserTokenCutoffRepository cutoffRepository;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(service, "jwtExpirationInMs", 86400000L);
+        ReflectionTestUtils.setField(service, "expectedEntries", 1000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(service, "lookupCacheMaxEntries", 100);
+    }
+
+    @Test
+    void testUnrevokedTokensNeverHitTheDatabase() {
+        service.init();
+        clearInvocations(revokedTokenRepository, cutoffRepository);
+
+        for (long id = 1; id <= 1000; id++) {
+            assertFalse(service.isRevoked("jti-" + id, id, System.currentTimeMillis()));
+        }
+
+        verifyNoInteractions(revokedTokenRepository, cutoffRepository);
+        assertEquals(0L, service.stats().get("databaseLookups"));
+    }
+
+    @Test
+    void testUserCutoffRejectsOnlyOlderTokens() {
+        service.init();
+        when(cutoffRepository.findById(7L)).thenReturn(Optional.empty());
+        long before = System.currentTimeMillis() - 5000;
+
+        service.revokeUser(7L);
+
+        ArgumentCaptor<UserTokenCutoff> saved = ArgumentCaptor.forClass(UserTokenCutoff.class);
+        verify(cutoffRepository).save(saved.capture());
+        long notBefore = saved.getValue().getNotBefore();
+        assertEquals(notBefore + 86400000L, saved.getValue().getExpiresAt());
+        assertTrue(service.isRevoked("antigo", 7L, before));
+        assertFalse(service.isRevoked("novo", 7L, notBefore));
+        assertFalse(service.isRevoked("outro", 8L, before));
+    }
+
+    @Test
+    void testRebuildLoadsRevocationsFromOtherNodesAndDropsExpired() {
+        service.init();
+        assertFalse(service.isRevoked("remoto", 3L, 0L));
+
+        when(revokedTokenRepository.deleteExpired(anyLong())).thenReturn(4);
+        when(revokedTokenRepository.findAllJtis()).thenReturn(List.of("remoto"));
+        when(revokedTokenRepository.existsById("remoto")).thenReturn(true);
+        service.rebuild();
+
+        assertTrue(service.isRevoked("remoto", 3L, 0L));
+        assertTrue(service.isRevoked("remoto", 3L, 0L));
+        // A segunda verificação vem do cache de consultas
+        verify(revokedTokenRepository, times(1)).existsById("remoto");
+        verify(cutoffRepository, times(2)).deleteExpired(anyLong());
+        assertEquals(1L, service.stats().get("filterEntries"));
+    }
+
+    @Test
+    void testRevokedTokenIsPersistedWithItsExpiry() {
+        service.init();
+        long exp = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1);
+
+        service.revokeToken("abc", 1L, exp);
+
+        ArgumentCaptor<RevokedToken> saved = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(saved.capture());
+        assertEquals(exp, saved.getValue().getExpiresAt());
+        assertTrue(service.isRevoked("abc", 1L, 0L));
+        verify(revokedTokenRepository, never()).existsById(any());
+    }
+}
@@ -2,15 +2,17 @@ package com.tessera.backend.service;
 
 import com.tessera.backend.entity.*;
 import com.tessera.backend.repository.DocumentCollaboratorRepository;
-import com.tessera.backend.repository.DocumentRepository;
 import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.security.UserDetailsImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Optional;
 import java.util.Set;
@@ -24,12 +26,12 @@ class AuthorizationServiceTest {
     @InjectMocks
     private AuthorizationService service;
 
-    @Mock
-    private DocumentRepository documentRepository;
     @Mock
     private DocumentCollaboratorRepository collaboratorRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     private Document document;
     private User user;
@@ -37,6 +39,14 @@ class AuthorizationServiceTest {
 
     @BeforeEach
     void setup() {
+        DocumentAclIndex aclIndex = new DocumentAclIndex();
+        ReflectionTestUtils.setField(aclIndex, "collaboratorRepository", collaboratorRepository);
+        ReflectionTestUtils.setField(aclIndex, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(aclIndex, "maxEntries", 100);
+        ReflectionTestUtils.setField(aclIndex, "ttlMs", 60000L);
+        aclIndex.initCache();
+        ReflectionTestUtils.setField(service, "aclIndex", aclIndex);
+
         document = new Document();
         document.setId(1L);
 
@@ -48,64 +58,61 @@ class AuthorizationServiceTest {
 
         auth = mock(Authentication.class);
         when(auth.isAuthenticated()).thenReturn(true);
-        when(auth.getName()).thenReturn(user.getEmail());
+        lenient().when(auth.getName()).thenReturn(user.getEmail());
+        lenient().when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+    }
+
+    private void collaborator(CollaboratorRole role, CollaboratorPermission permission) {
+        DocumentCollaborator collab = new DocumentCollaborator();
+        collab.setDocument(document);
+        collab.setUser(user);
+        collab.setRole(role);
+        collab.setPermission(permission);
+        when(collaboratorRepository.findActiveByDocumentIdAndUserId(document.getId(), user.getId()))
+                .thenReturn(Optional.of(collab));
     }
 
     @Test
     void testHasDocumentAccessNoCollaborator() {
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
-        when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
-        when(collaboratorRepository.existsByDocumentAndUserAndActiveTrue(document, user)).thenReturn(false);
+        when(collaboratorRepository.findActiveByDocumentIdAndUserId(document.getId(), user.getId()))
+                .thenReturn(Optional.empty());
 
         assertFalse(service.hasDocumentAccess(auth, document.getId()));
     }
 
     @Test
     void testCanEditDocumentWithoutPermission() {
-        DocumentCollaborator collab = new DocumentCollaborator();
-        collab.setDocument(document);
-        collab.setUser(user);
-        collab.setRole(CollaboratorRole.SECONDARY_STUDENT);
-        collab.setPermission(CollaboratorPermission.READ_ONLY);
-
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
-        when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
-        when(collaboratorRepository.findByDocumentAndUserAndActiveTrue(document, user))
-                .thenReturn(Optional.of(collab));
+        collaborator(CollaboratorRole.SECONDARY_STUDENT, CollaboratorPermission.READ_ONLY);
 
+        assertTrue(service.hasDocumentAccess(auth, document.getId()));
         assertFalse(service.canEditDocument(auth, document.getId()));
     }
 
     @Test
     void testCanChangeStatusWithoutPermission() {
-        DocumentCollaborator collab = new DocumentCollaborator();
-        collab.setDocument(document);
-        collab.setUser(user);
-        collab.setRole(CollaboratorRole.OBSERVER);
-        collab.setPermission(CollaboratorPermission.READ_ONLY);
-
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
-        when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
-        when(collaboratorRepository.findByDocumentAndUserAndActiveTrue(document, user))
-                .thenReturn(Optional.of(collab));
+        collaborator(CollaboratorRole.OBSERVER, CollaboratorPermission.READ_ONLY);
 
         assertFalse(service.canChangeDocumentStatus(auth, document.getId()));
     }
 
     @Test
     void testCanDeleteDocumentNotPrimaryStudent() {
-        DocumentCollaborator collab = new DocumentCollaborator();
-        collab.setDocument(document);
-        collab.setUser(user);
-        collab.setRole(CollaboratorRole.SECONDARY_STUDENT);
-        collab.setPermission(CollaboratorPermission.READ_WRITE);
-
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
-        when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
-        when(collaboratorRepository.findByDocumentAndUserAndActiveTrue(document, user))
-                .thenReturn(Optional.of(collab));
+        collaborator(CollaboratorRole.SECONDARY_STUDENT, CollaboratorPermission.READ_WRITE);
 
         assertFalse(service.canDeleteDocument(auth, document.getId()));
     }
-}
 
+    @Test
+    void testPrincipalIdAvoidsUserLookupAndChecksShareOneQuery() {
+        collaborator(CollaboratorRole.PRIMARY_STUDENT, CollaboratorPermission.FULL_ACCESS);
+        when(auth.getPrincipal()).thenReturn(UserDetailsImpl.build(user));
+
+        assertTrue(service.hasDocumentAccess(auth, document.getId()));
+        assertTrue(service.canEditDocument(auth, document.getId()));
+        assertTrue(service.canChangeDocumentStatus(auth, document.getId()));
+        assertTrue(service.canDeleteDocument(auth, document.getId()));
+
+        verify(collaboratorRepository, times(1)).findActiveByDocumentIdAndUserId(document.getId(), user.getId());
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,352 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.dto.AutosaveDTO;
+import com.tessera.backend.dto.AutosaveStatusDTO;
+import com.tessera.backend.dto.VersionDTO;
+import com.tessera.backend.entity.User;
+import com.tessera.backend.event.EditorLeftEvent;
+import com.tessera.backend.exception.BusinessRuleException;
+import com.tessera.backend.exception.DraftOutOfSyncException;
+import com.tessera.backend.exception.PermissionDeniedException;
+import com.tessera.backend.repository.UserRepository;
+import com.tessera.backend.util.DiffUtils;
+import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AutosaveServiceTest {
+
+    @InjectMocks
+    private AutosaveService service;
+
+    @Mock
+    private VersionService versionService;
+    @Mock
+    private EditingSessionService editingSessionService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+    @Spy
+    private DraftJournal journal = new DraftJournal();
+    @Spy
+    private DiffUtils diffUtils = new DiffUtils();
+    @Spy
+    private ContentStoreService contentStoreService = new ContentStoreService();
+
+    private final DiffMatchPatch dmp = new DiffMatchPatch();
+
+    @TempDir
+    Path journalDir;
+
+    private User alice;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(journal, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(journal, "fsync", false);
+        ReflectionTestUtils.setField(journal, "maxBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(journal, "diffUtils", diffUtils);
+        journal.init();
+        ReflectionTestUtils.setField(service, "debounceMs", 30000L);
+        ReflectionTestUtils.setField(service, "maxDelayMs", 300000L);
+        ReflectionTestUtils.setField(service, "maxRetries", 3);
+
+        alice = new User();
+        alice.setId(1L);
+        alice.setEmail("alice@test.com");
+        lenient().when(userRepository.findByEmail("alice@test.com")).thenReturn(Optional.of(alice));
+    }
+
+    private VersionDTO version(Long id, String number) {
+        VersionDTO dto = new VersionDTO();
+        dto.setId(id);
+        dto.setVersionNumber(number);
+        return dto;
+    }
+
+    private AutosaveDTO draft(String content, long sequence) {
+        return new AutosaveDTO(content, null, null, null, sequence, null, null, "aba-1");
+    }
+
+    private AutosaveDTO patch(String from, String to, long baseSequence, long sequence) {
+        return new AutosaveDTO(null, dmp.patchToText(dmp.patchMake(from, to)), baseSequence,
+                contentStoreService.hash(to), sequence, null, null, "aba-1");
+    }
+
+    @Test
+    void testUpdatesAreBufferedAndWrittenOnceAfterDebounce() throws IOException {
+        when(versionService.createAutosaveVersion(eq(100L), anyString(), eq(alice), anyString(), any())).thenReturn(version(7L, "1.3"));
+
+        for (long i = 1; i <= 50; i++) {
+            service.update(100L, "alice@test.com", draft("<p>texto " + i + "</p>", i));
+        }
+        verify(versionService, never()).createAutosaveVersion(any(), any(), any(), any(), any());
+        try (var files = Files.list(journalDir)) {
+            assertEquals(1, files.count());
+        }
+
+        service.flushDue(System.currentTimeMillis() + 30000);
+
+        verify(versionService, times(1)).createAutosaveVersion(100L, "<p>texto 50</p>", alice, "Salvamento automático", null);
+        verify(messagingTemplate).convertAndSendToUser("alice@test.com", "/queue/documents/autosave",
+                new AutosaveStatusDTO(100L, 50L, 7L, "1.3"));
+        try (var files = Files.list(journalDir)) {
+            assertEquals(0, files.count());
+        }
+
+        // Sem alterações novas não há nova gravação
+        service.flushDue(System.currentTimeMillis() + 60000);
+        verify(versionService, times(1)).createAutosaveVersion(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testOutOfOrderUpdateIsIgnored() {
+        service.update(100L, "alice@test.com", new AutosaveDTO("novo", null, null, null, 5L, null, 9L, "aba-1"));
+        service.update(100L, "alice@test.com", new AutosaveDTO("antigo", null, null, null, 4L, null, 8L, "aba-1"));
+        when(versionService.createAutosaveVersion(eq(100L), anyString(), eq(alice), anyString(), any())).thenReturn(version(8L, "1.4"));
+
+        AutosaveStatusDTO status = service.commit(100L, "alice@test.com", "Capítulo 2 revisado");
+
+        verify(versionService).createAutosaveVersion(100L, "novo", alice, "Capítulo 2 revisado", 9L);
+        assertEquals(5L, status.getSavedSequence());
+        assertEquals(8L, status.getVersionId());
+    }
+
+    @Test
+    void testLeavingFlushesDraft() {
+        service.update(100L, "alice@test.com", draft("<p>fim</p>", 1L));
+
+        service.onEditorLeft(new EditorLeftEvent(100L, 1L, "alice@test.com"));
+
+        verify(versionService).createAutosaveVersion(100L, "<p>fim</p>", alice, "Salvamento automático", null);
+        assertEquals(0, service.stats().get("drafts"));
+    }
+
+    @Test
+    void testRefusedFlushIsReportedAndRetriedAfterDebounce() throws IOException {
+        long now = System.currentTimeMillis();
+        service.update(100L, "alice@test.com", draft("<p>meu</p>", 1L));
+        when(versionService.createAutosaveVersion(eq(100L), anyString(), eq(alice), anyString(), any()))
+                .thenThrow(new BusinessRuleException("Outro usuário está editando este documento."))
+                .thenReturn(version(9L, "1.5"));
+
+        service.flushDue(now + 30000);
+
+        verify(messagingTemplate).convertAndSendToUser("alice@test.com", "/queue/errors",
+                Map.of("error", "Outro usuário está editando este documento."));
+        try (var files = Files.list(journalDir)) {
+            assertEquals(1, files.count());
+        }
+
+        // Nenhuma nova tentativa antes de debounce-ms
+        service.flushDue(now + 31000);
+        verify(versionService, times(1)).createAutosaveVersion(any(), any(), any(), any(), any());
+
+        service.flushDue(now + 60000);
+        verify(versionService, times(2)).createAutosaveVersion(any(), any(), any(), any(), any());
+        verify(messagingTemplate).convertAndSendToUser("alice@test.com", "/queue/documents/autosave",
+                new AutosaveStatusDTO(100L, 1L, 9L, "1.5"));
+    }
+
+    @Test
+    void testRepeatedRefusalsBackOffAndStopAfterMaxRetries() {
+        long now = System.currentTimeMillis();
+        service.update(100L, "alice@test.com", draft("<p>meu</p>", 1L));
+        when(versionService.createAutosaveVersion(eq(100L), anyString(), eq(alice), anyString(), any()))
+                .thenThrow(new BusinessRuleException("Outro usuário está editando este documento."));
+
+        service.flushDue(now + 30000);
+        service.flushDue(now + 60000);
+        // A espera dobra a cada recusa: a terceira tentativa só acontece 60 s depois da segunda
+        service.flushDue(now + 90000);
+        verify(versionService, times(2)).createAutosaveVersion(any(), any(), any(), any(), any());
+        service.flushDue(now + 120000);
+        service.flushDue(now + 240000);
+        service.flushDue(now + 10_000_000);
+        verify(versionService, times(4)).createAutosaveVersion(any(), any(), any(), any(), any());
+
+        // Avisado na primeira recusa e quando as tentativas param, não a cada tentativa
+        verify(messagingTemplate, times(2)).convertAndSendToUser("alice@test.com", "/queue/errors",
+                Map.of("error", "Outro usuário está editando este documento."));
+
+        // Uma nova edição recomeça as tentativas
+        service.update(100L, "alice@test.com", draft("<p>meu texto</p>", 2L));
+        service.flushDue(System.currentTimeMillis() + 30000);
+        verify(versionService, times(5)).createAutosaveVersion(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testDraftIsDiscardedWhenPermissionIsLost() throws IOException {
+        service.update(100L, "alice@test.com", draft("<p>meu</p>", 1L));
+        when(versionService.createAutosaveVersion(eq(100L), anyString(), eq(alice), anyString(), any()))
+                .thenThrow(new PermissionDeniedException("Você não tem permissão para criar uma nova versão"));
+
+        service.onEditorLeft(new EditorLeftEvent(100L, 1L, "alice@test.com"));
+
+        assertEquals(0, service.stats().get("drafts"));
+        try (var files = Files.list(journalDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testCollaborativeDocumentIsRejected() {
+        when(editingSessionService.isCollaborative(100L)).thenReturn(true);
+
+        assertThrows(BusinessRuleException.class,
+                () -> service.update(100L, "alice@test.com", draft("x", 1L)));
+    }
+
+    @Test
+    void testJournalRecoversLastIntactRecordAfterCrash() throws IOException {
+        journal.appendPatch(new DraftJournal.Entry(100L, 1L, "alice@test.com", 1L, "primeiro"), null);
+        journal.appendPatch(new DraftJournal.Entry(100L, 1L, "alice@test.com", 2L, "segundo"), null);
+        // Registro cortado no meio da escrita
+        Files.write(journalDir.resolve("100-1.journal"), new byte[] { 0, 0, 0, 0, 0, 0, 0, 3, 0 },
+                StandardOpenOption.APPEND);
+
+        List<DraftJournal.Entry> entries = journal.recover();
+        assertEquals(1, entries.size());
+        assertEquals("segundo", entries.get(0).content());
+        assertEquals(2L, entries.get(0).sequence());
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
+        service.recover();
+
+        verify(versionService).createAutosaveVersion(eq(100L), eq("segundo"), eq(alice), anyString(), isNull());
+        assertFalse(Files.exists(journalDir.resolve("100-1.journal")));
+    }
+
+    @Test
+    void testFailedRecoveryDropsTornTailSoLaterUpdatesAreKept() throws IOException {
+        journal.appendPatch(new DraftJournal.Entry(100L, 1L, "alice@test.com", 1L, "primeiro"), null);
+        Files.write(journalDir.resolve("100-1.journal"), new byte[] { 0, 0, 0, 0, 0, 0, 0, 3, 0 },
+                StandardOpenOption.APPEND);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
+        when(versionService.createAutosaveVersion(any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("banco indisponível"));
+
+        service.recover();
+        assertTrue(Files.exists(journalDir.resolve("100-1.journal")));
+
+        // Gravações seguintes vão para depois do último registro íntegro, não do final cortado
+        journal.appendPatch(new DraftJournal.Entry(100L, 1L, "alice@test.com", 2L, "segundo"), null);
+        List<DraftJournal.Entry> entries = journal.recover();
+        assertEquals(1, entries.size());
+        assertEquals("segundo", entries.get(0).content());
+    }
+
+    @Test
+    void testPatchesOnLargeDraftAreAppliedAndJournaledAsPatches() throws IOException {
+        // Maior que o limite de um frame STOMP: só o primeiro envio, sobre a versão, leva o texto todo
+        String chapter = "<p>Parágrafo da tese com texto suficiente para ocupar espaço.</p>".repeat(1500);
+        when(versionService.getLatestContent(100L)).thenReturn(chapter);
+        String first = chapter + "<p>a</p>";
+        String second = first + "<p>b</p>";
+        String third = second + "<p>c</p>";
+
+        service.update(100L, "alice@test.com", patch(chapter, first, 0L, 1L));
+        long journalSize = Files.size(journalDir.resolve("100-1.journal"));
+        service.update(100L, "alice@test.com", patch(first, second, 1L, 2L));
+        service.update(100L, "alice@test.com", patch(second, third, 2L, 3L));
+
+        assertTrue(Files.size(journalDir.resolve("100-1.journal")) - journalSize < 1024);
+        assertEquals(third, journal.recover().get(0).content());
+        assertEquals(3L, journal.recover().get(0).sequence());
+
+        when(versionService.createAutosaveVersion(eq(100L), anyString(), eq(alice), anyString(), any())).thenReturn(version(9L, "1.5"));
+        service.commit(100L, "alice@test.com", null);
+        verify(versionService).createAutosaveVersion(100L, third, alice, "Salvamento automático", null);
+    }
+
+    @Test
+    void testPatchArrivingBeforeItsBaseWaitsForIt() {
+        service.update(100L, "alice@test.com", draft("<p>a</p>", 1L));
+
+        service.update(100L, "alice@test.com", patch("<p>a</p><p>b</p>", "<p>a</p><p>b</p><p>c</p>", 2L, 3L));
+        service.update(100L, "alice@test.com", patch("<p>a</p>", "<p>a</p><p>b</p>", 1L, 2L));
+
+        when(versionService.createAutosaveVersion(eq(100L), anyString(), eq(alice), anyString(), any())).thenReturn(version(9L, "1.5"));
+        AutosaveStatusDTO status = service.commit(100L, "alice@test.com", null);
+        assertEquals(3L, status.getSavedSequence());
+        verify(versionService).createAutosaveVersion(100L, "<p>a</p><p>b</p><p>c</p>", alice, "Salvamento automático", null);
+    }
+
+    @Test
+    void testPatchThatDoesNotMatchDraftIsRejectedWithCurrentSequence() {
+        service.update(100L, "alice@test.com", draft("<p>a</p>", 1L));
+        AutosaveDTO wrongHash = patch("<p>a</p>", "<p>a</p><p>b</p>", 1L, 2L);
+        wrongHash.setContentHash(contentStoreService.hash("outro"));
+
+        DraftOutOfSyncException e = assertThrows(DraftOutOfSyncException.class,
+                () -> service.update(100L, "alice@test.com", wrongHash));
+
+        assertEquals(1L, e.getSequence());
+        assertEquals(100L, e.getDocumentId());
+        // O cliente reenvia o conteúdo e o rascunho segue
+        service.update(100L, "alice@test.com", draft("<p>a</p><p>b</p>", 2L));
+        when(versionService.createAutosaveVersion(eq(100L), anyString(), eq(alice), anyString(), any())).thenReturn(version(9L, "1.5"));
+        service.commit(100L, "alice@test.com", null);
+        verify(versionService).createAutosaveVersion(100L, "<p>a</p><p>b</p>", alice, "Salvamento automático", null);
+    }
+
+    @Test
+    void testReloadedEditorRestartsSequence() {
+        service.update(100L, "alice@test.com", draft("<p>antes</p>", 57L));
+
+        // A página foi recarregada: nova sessão, contagem de volta a 1
+        service.update(100L, "alice@test.com", new AutosaveDTO("<p>depois</p>", null, null, null, 1L, null, null, "aba-2"));
+
+        when(versionService.createAutosaveVersion(eq(100L), anyString(), eq(alice), anyString(), any())).thenReturn(version(9L, "1.5"));
+        AutosaveStatusDTO status = service.commit(100L, "alice@test.com", null);
+        assertEquals(1L, status.getSavedSequence());
+        verify(versionService).createAutosaveVersion(100L, "<p>depois</p>", alice, "Salvamento automático", null);
+    }
+
+    @Test
+    void testStaleSequenceWithoutClientIdIsRejectedWithCurrentSequence() {
+        service.update(100L, "alice@test.com", new AutosaveDTO("<p>antes</p>", null, null, null, 57L, null, null, null));
+
+        DraftOutOfSyncException e = assertThrows(DraftOutOfSyncException.class, () -> service.update(100L,
+                "alice@test.com", new AutosaveDTO("<p>depois</p>", null, null, null, 1L, null, null, null)));
+
+        assertEquals(57L, e.getSequence());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testJournalIsSyncedInBatchesOffTheUpdatePath() {
+        ReflectionTestUtils.setField(journal, "fsync", true);
+        Set<Path> unsynced = (Set<Path>) ReflectionTestUtils.getField(journal, "unsynced");
+
+        service.update(100L, "alice@test.com", draft("<p>a</p>", 1L));
+        service.update(100L, "alice@test.com", draft("<p>a</p><p>b</p>", 2L));
+
+        assertEquals(Set.of(journalDir.resolve("100-1.journal")), unsynced);
+        journal.sync();
+        assertTrue(unsynced.isEmpty());
+    }
+}
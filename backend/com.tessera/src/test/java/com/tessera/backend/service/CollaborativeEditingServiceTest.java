@@ -0,0 +1,148 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.dto.CollaborativeSnapshotDTO;
+import com.tessera.backend.dto.DocumentOperationDTO;
+import com.tessera.backend.entity.User;
+import com.tessera.backend.exception.BusinessRuleException;
+import com.tessera.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CollaborativeEditingServiceTest {
+
+    @InjectMocks
+    private CollaborativeEditingService service;
+
+    @Mock
+    private VersionService versionService;
+    @Mock
+    private EditingSessionService editingSessionService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    private User alice;
+    private User bruno;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(service, "historySize", 500);
+        ReflectionTestUtils.setField(service, "idleTimeoutMs", 600000L);
+        alice = user(1L, "alice@test.com");
+        bruno = user(2L, "bruno@test.com");
+        when(userRepository.findByEmail("alice@test.com")).thenReturn(Optional.of(alice));
+        when(versionService.getLatestContent(100L)).thenReturn("<p>texto</p>");
+    }
+
+    private User user(Long id, String email) {
+        User u = new User();
+        u.setId(id);
+        u.setEmail(email);
+        u.setName(email);
+        return u;
+    }
+
+    private DocumentOperationDTO op(String sessionId, int revision, List<Object> operation) {
+        return new DocumentOperationDTO(sessionId, "c" + revision, revision, List.of(operation), null);
+    }
+
+    @Test
+    void testConcurrentEditsAreTransformedAndBroadcast() {
+        when(userRepository.findByEmail("bruno@test.com")).thenReturn(Optional.of(bruno));
+        CollaborativeSnapshotDTO snapshot = service.join(100L, "alice@test.com");
+        service.join(100L, "bruno@test.com");
+
+        // As duas operações partem da revisão 0
+        service.applyOperation(100L, "alice@test.com", op(snapshot.getSessionId(), 0, List.of(3, "novo ", 9)));
+        DocumentOperationDTO second = service.applyOperation(100L, "bruno@test.com",
+                op(snapshot.getSessionId(), 0, List.of(8, "!", 4)));
+
+        assertEquals(2, second.getRevision());
+        assertEquals(List.of(13, "!", 4), second.getOperations().get(0));
+        assertEquals("<p>novo texto!</p>", service.getSession(100L).content);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/documents/100/ops"), any(DocumentOperationDTO.class));
+        verify(editingSessionService).setCollaborative(100L, true);
+    }
+
+    @Test
+    void testBatchIsComposedIntoSingleRevision() {
+        CollaborativeSnapshotDTO snapshot = service.join(100L, "alice@test.com");
+        DocumentOperationDTO batch = new DocumentOperationDTO(snapshot.getSessionId(), "c1", 0,
+                List.of(List.of(3, "a", 9), List.of(4, "b", 9)), null);
+
+        DocumentOperationDTO result = service.applyOperation(100L, "alice@test.com", batch);
+
+        assertEquals(1, result.getRevision());
+        assertEquals("<p>abtexto</p>", service.getSession(100L).content);
+    }
+
+    @Test
+    void testStaleSessionIsRejected() {
+        service.join(100L, "alice@test.com");
+
+        assertThrows(BusinessRuleException.class,
+                () -> service.applyOperation(100L, "alice@test.com", op("outra-sessao", 0, List.of(12))));
+    }
+
+    @Test
+    void testCheckpointStoresChangedSessionsOnce() {
+        CollaborativeSnapshotDTO snapshot = service.join(100L, "alice@test.com");
+        service.applyOperation(100L, "alice@test.com", op(snapshot.getSessionId(), 0, List.of(12, "<p>fim</p>")));
+
+        service.checkpointSessions();
+        service.checkpointSessions();
+
+        verify(versionService, times(1)).createCheckpoint(eq(100L), eq("<p>texto</p><p>fim</p>"), eq(alice), anyString());
+    }
+
+    @Test
+    void testIdleSessionIsClosedAndReplacedWithFlagInOrder() {
+        CollaborativeSnapshotDTO first = service.join(100L, "alice@test.com");
+        CollaborativeEditingService.DocumentSession session = service.getSession(100L);
+        ReflectionTestUtils.setField(service, "idleTimeoutMs", 0L);
+        session.lastActivity = 0;
+
+        service.checkpointSessions();
+
+        assertTrue(session.closed);
+        assertNull(service.getSession(100L));
+        CollaborativeSnapshotDTO second = service.join(100L, "alice@test.com");
+        assertNotEquals(first.getSessionId(), second.getSessionId());
+        InOrder flags = inOrder(editingSessionService);
+        flags.verify(editingSessionService).setCollaborative(100L, true);
+        flags.verify(editingSessionService).setCollaborative(100L, false);
+        flags.verify(editingSessionService).setCollaborative(100L, true);
+    }
+
+    @Test
+    void testRejectedBroadcastDoesNotFailAcceptedOperation() {
+        CollaborativeSnapshotDTO snapshot = service.join(100L, "alice@test.com");
+        doThrow(new MessageDeliveryException("fila cheia")).when(messagingTemplate)
+                .convertAndSend(eq("/topic/documents/100/ops"), any(DocumentOperationDTO.class));
+
+        DocumentOperationDTO result = service.applyOperation(100L, "alice@test.com",
+                op(snapshot.getSessionId(), 0, List.of(12, "<p>fim</p>")));
+
+        assertEquals(1, result.getRevision());
+        assertEquals("<p>texto</p><p>fim</p>", service.getSession(100L).content);
+        assertEquals(1L, service.stats().get("droppedBroadcasts"));
+        assertTrue(service.getSession(100L).outbox.isEmpty());
+    }
+}
@@ -0,0 +1,122 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.entity.User;
+import com.tessera.backend.exception.BusinessRuleException;
+import com.tessera.backend.exception.PermissionDeniedException;
+import com.tessera.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CursorServiceTest {
+
+    @InjectMocks
+    private CursorService service;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private VersionService versionService;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(service, "idleMs", 30000L);
+        lenient().when(userRepository.findByEmail("alice@test.com")).thenReturn(Optional.of(user(1L, "alice@test.com")));
+    }
+
+    private User user(Long id, String email) {
+        User u = new User();
+        u.setId(id);
+        u.setEmail(email);
+        return u;
+    }
+
+    @Test
+    void testPositionsAreCoalescedIntoOneFrame() {
+        when(userRepository.findByEmail("bruno@test.com")).thenReturn(Optional.of(user(2L, "bruno@test.com")));
+
+        service.update(100L, "alice@test.com", new int[] { 1, 1 });
+        service.update(100L, "alice@test.com", new int[] { 2, 2 });
+        service.update(100L, "alice@test.com", new int[] { 3, 7 });
+        service.update(100L, "bruno@test.com", new int[] { 10, 10 });
+        service.flush();
+
+        ArgumentCaptor<int[]> frame = ArgumentCaptor.forClass(int[].class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/documents/100/cursors"), frame.capture());
+        // Só a última posição de cada editor: [índice, âncora, cabeça]
+        assertArrayEquals(new int[] { 0, 3, 7, 1, 10, 10 }, frame.getValue());
+        assertEquals(2L, service.stats().get("positionsSuperseded"));
+        assertEquals(Map.of(0, 1L, 1, 2L), service.getUsers(100L, "alice@test.com"));
+
+        // Nada pendente: nenhum frame novo
+        service.flush();
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/documents/100/cursors"), any(Object.class));
+    }
+
+    @Test
+    void testNewEditorAnnouncesIndexTable() {
+        service.update(100L, "alice@test.com", new int[] { 0, 0 });
+        service.update(100L, "alice@test.com", new int[] { 5, 5 });
+
+        verify(versionService, times(1)).checkCanEdit(eq(100L), any(User.class));
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/documents/100/cursors/users", Map.of(0, 1L));
+    }
+
+    @Test
+    void testCursorTableRequiresEditAccess() {
+        doThrow(new PermissionDeniedException("Sem permissão")).when(versionService).checkCanEdit(eq(100L), any(User.class));
+
+        assertThrows(PermissionDeniedException.class, () -> service.getUsers(100L, "alice@test.com"));
+    }
+
+    @Test
+    void testPositionIsNotLostWhenFlushRemovesDocumentDuringRegistration() {
+        // O flush remove o documento ainda vazio enquanto o primeiro cursor valida a permissão
+        doAnswer(invocation -> {
+            service.flush();
+            return null;
+        }).doNothing().when(versionService).checkCanEdit(eq(100L), any(User.class));
+
+        service.update(100L, "alice@test.com", new int[] { 4, 4 });
+        service.flush();
+
+        verify(messagingTemplate).convertAndSend("/topic/documents/100/cursors", new int[] { 0, 4, 4 });
+        assertEquals(1, service.stats().get("documents"));
+    }
+
+    @Test
+    void testIdleCursorIsRemoved() {
+        ReflectionTestUtils.setField(service, "idleMs", -1L);
+        service.update(100L, "alice@test.com", new int[] { 4, 4 });
+        service.flush();
+
+        ArgumentCaptor<int[]> frame = ArgumentCaptor.forClass(int[].class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/documents/100/cursors"), frame.capture());
+        assertArrayEquals(new int[] { 0, -1, -1 }, frame.getValue());
+
+        service.flush();
+        assertEquals(0, service.stats().get("documents"));
+    }
+
+    @Test
+    void testInvalidPositionIsRejected() {
+        assertThrows(BusinessRuleException.class, () -> service.update(100L, "alice@test.com", new int[] { -2, 0 }));
+        assertThrows(BusinessRuleException.class, () -> service.update(100L, "alice@test.com", new int[] { 1 }));
+    }
+}
@@ -0,0 +1,103 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.entity.CollaboratorPermission;
+import com.tessera.backend.entity.CollaboratorRole;
+import com.tessera.backend.entity.DocumentCollaborator;
+import com.tessera.backend.event.DocumentAclChangedEvent;
+import com.tessera.backend.repository.DocumentCollaboratorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentAclIndexTest {
+
+    @InjectMocks
+    private DocumentAclIndex index;
+
+    @Mock
+    private DocumentCollaboratorRepository collaboratorRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(index, "maxEntries", 100);
+        ReflectionTestUtils.setField(index, "ttlMs", 60000L);
+        index.initCache();
+    }
+
+    private DocumentCollaborator collaborator(CollaboratorRole role, CollaboratorPermission permission) {
+        DocumentCollaborator collaborator = new DocumentCollaborator();
+        collaborator.setRole(role);
+        collaborator.setPermission(permission);
+        return collaborator;
+    }
+
+    @Test
+    void testMaskFollowsRoleAndPermission() {
+        int primaryStudent = DocumentAclIndex.mask(CollaboratorRole.PRIMARY_STUDENT, CollaboratorPermission.FULL_ACCESS);
+        assertEquals(DocumentAclIndex.ACCESS | DocumentAclIndex.EDIT | DocumentAclIndex.MANAGE_COLLABORATORS
+                | DocumentAclIndex.CHANGE_STATUS | DocumentAclIndex.DELETE, primaryStudent);
+
+        int observer = DocumentAclIndex.mask(CollaboratorRole.OBSERVER, CollaboratorPermission.READ_ONLY);
+        assertEquals(DocumentAclIndex.ACCESS, observer);
+
+        int secondary = DocumentAclIndex.mask(CollaboratorRole.SECONDARY_STUDENT, CollaboratorPermission.READ_WRITE);
+        assertEquals(DocumentAclIndex.EDIT, secondary & DocumentAclIndex.EDIT);
+        assertEquals(0, secondary & DocumentAclIndex.DELETE);
+    }
+
+    @Test
+    void testRepeatedChecksHitTheCache() {
+        when(collaboratorRepository.findActiveByDocumentIdAndUserId(1L, 10L))
+                .thenReturn(Optional.of(collaborator(CollaboratorRole.SECONDARY_STUDENT, CollaboratorPermission.READ_WRITE)));
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(index.has(10L, 1L, DocumentAclIndex.EDIT));
+            assertFalse(index.has(10L, 1L, DocumentAclIndex.DELETE));
+        }
+
+        verify(collaboratorRepository, times(1)).findActiveByDocumentIdAndUserId(1L, 10L);
+    }
+
+    @Test
+    void testInvalidationReloadsOnlyThatDocument() {
+        when(collaboratorRepository.findActiveByDocumentIdAndUserId(1L, 10L))
+                .thenReturn(Optional.of(collaborator(CollaboratorRole.SECONDARY_STUDENT, CollaboratorPermission.READ_WRITE)))
+                .thenReturn(Optional.empty());
+        when(collaboratorRepository.findActiveByDocumentIdAndUserId(2L, 10L))
+                .thenReturn(Optional.of(collaborator(CollaboratorRole.OBSERVER, CollaboratorPermission.READ_ONLY)));
+        assertTrue(index.has(10L, 1L, DocumentAclIndex.ACCESS));
+        assertTrue(index.has(10L, 2L, DocumentAclIndex.ACCESS));
+
+        index.invalidateDocument(1L);
+
+        assertFalse(index.has(10L, 1L, DocumentAclIndex.ACCESS));
+        assertTrue(index.has(10L, 2L, DocumentAclIndex.ACCESS));
+        verify(collaboratorRepository, times(2)).findActiveByDocumentIdAndUserId(1L, 10L);
+        verify(collaboratorRepository, times(1)).findActiveByDocumentIdAndUserId(2L, 10L);
+        verify(eventPublisher).publishEvent(new DocumentAclChangedEvent(1L));
+    }
+
+    @Test
+    void testExpiredMaskIsReloaded() {
+        ReflectionTestUtils.setField(index, "ttlMs", -1L);
+        when(collaboratorRepository.findActiveByDocumentIdAndUserId(1L, 10L)).thenReturn(Optional.empty());
+
+        index.permissions(10L, 1L);
+        index.permissions(10L, 1L);
+
+        verify(collaboratorRepository, times(2)).findActiveByDocumentIdAndUserId(1L, 10L);
+    }
+}
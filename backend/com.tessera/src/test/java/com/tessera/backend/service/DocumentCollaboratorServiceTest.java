@@ -38,6 +38,8 @@ class DocumentCollaboratorServiceTest {
     private NotificationEventService notificationEventService;
     @Mock
     private AuthorizationService authorizationService;
+    @Mock
+    private DocumentAclIndex aclIndex;
 
     private User manager;
     private Document document;
@@ -42,6 +42,13 @@ class DocumentServiceTest {
     @Mock
     private EditingSessionService editingSessionService;
 
+    @Mock
+    private ContentStoreService contentStoreService;
+    @Mock
+    private VersionNumberService versionNumberService;
+    @Mock
+    private DocumentAclIndex aclIndex;
+
     private User student;
     private User advisor;
 
@@ -163,6 +170,7 @@ class DocumentServiceTest {
 
         assertEquals(DocumentStatus.SUBMITTED, dto.getStatus());
         assertNotNull(document.getSubmittedAt());
+        verify(versionNumberService).requestMajorBump(document.getId());
         verify(notificationEventService).onDocumentStatusChanged(document, DocumentStatus.DRAFT, student);
     }
 
@@ -208,6 +216,7 @@ class DocumentServiceTest {
 
         service.deleteDocument(document.getId(), student);
 
+        verify(contentStoreService).releaseDocument(30L);
         verify(documentRepository).delete(document);
     }
 }
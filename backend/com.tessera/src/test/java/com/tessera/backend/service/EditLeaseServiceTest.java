@@ -0,0 +1,158 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.dto.EditLeaseDTO;
+import com.tessera.backend.entity.*;
+import com.tessera.backend.exception.ConflictException;
+import com.tessera.backend.repository.DocumentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EditLeaseServiceTest {
+
+    @InjectMocks
+    private EditLeaseService service;
+
+    @Spy
+    private InMemoryEditLeaseStore store = new InMemoryEditLeaseStore();
+
+    @Mock
+    private DocumentRepository documentRepository;
+
+    private Document document;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(service, "ttlMs", 30000L);
+        ReflectionTestUtils.setField(service, "required", false);
+
+        alice = createUser(1L);
+        bob = createUser(2L);
+        document = new Document();
+        document.setId(100L);
+        document.setStatus(DocumentStatus.DRAFT);
+        document.setCollaborators(new ArrayList<>(List.of(collaborator(alice), collaborator(bob))));
+        lenient().when(documentRepository.findById(100L)).thenReturn(Optional.of(document));
+    }
+
+    private User createUser(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@test.com");
+        return user;
+    }
+
+    private DocumentCollaborator collaborator(User user) {
+        DocumentCollaborator collaborator = new DocumentCollaborator();
+        collaborator.setDocument(document);
+        collaborator.setUser(user);
+        collaborator.setRole(CollaboratorRole.CO_STUDENT);
+        collaborator.setPermission(CollaboratorPermission.READ_WRITE);
+        return collaborator;
+    }
+
+    @Test
+    void testLeaseIsExclusiveAndTokenGrowsOnTakeOver() {
+        EditLeaseDTO first = service.acquire(100L, alice);
+        assertThrows(ConflictException.class, () -> service.acquire(100L, bob));
+        // Reservar de novo enquanto vigente apenas renova
+        assertEquals(first.getToken(), service.acquire(100L, alice).getToken());
+
+        service.release(100L, alice, first.getToken());
+        EditLeaseDTO second = service.acquire(100L, bob);
+
+        assertTrue(second.getToken() > first.getToken());
+        assertThrows(ConflictException.class, () -> service.renew(100L, alice, first.getToken()));
+        assertEquals(second.getToken(), service.renew(100L, bob, second.getToken()).getToken());
+    }
+
+    @Test
+    void testWriteWithStaleTokenIsFenced() {
+        EditLeaseDTO first = service.acquire(100L, alice);
+        // Alice fica parada além do TTL e Bob assume o documento
+        store.release(100L, alice.getId(), first.getToken());
+        EditLeaseDTO second = service.acquire(100L, bob);
+
+        assertThrows(ConflictException.class, () -> service.validate(100L, alice, first.getToken()));
+        assertThrows(ConflictException.class, () -> service.validate(100L, alice, null));
+        assertDoesNotThrow(() -> service.validate(100L, bob, second.getToken()));
+        assertEquals(2L, service.stats().get("rejectedWrites"));
+    }
+
+    @Test
+    void testLeaseIsRequiredWhenConfigured() {
+        assertDoesNotThrow(() -> service.validate(100L, alice, null));
+
+        ReflectionTestUtils.setField(service, "required", true);
+        assertThrows(ConflictException.class, () -> service.validate(100L, alice, null));
+        EditLeaseDTO lease = service.acquire(100L, alice);
+        assertDoesNotThrow(() -> service.validate(100L, alice, lease.getToken()));
+    }
+
+    @Test
+    void testAcquisitionUnderContentionKeepsMutualExclusion() throws InterruptedException {
+        int threads = 8;
+        int attempts = 20000;
+        List<User> users = new ArrayList<>();
+        for (long i = 1; i <= threads; i++) {
+            users.add(createUser(i));
+        }
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicLong lastToken = new AtomicLong();
+        AtomicInteger tokenRegressions = new AtomicInteger();
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (User user : users) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < attempts; i++) {
+                    EditLeaseStore.Lease lease = store.acquire(100L, user.getId(), 30000L);
+                    if (!user.getId().equals(lease.ownerId())) {
+                        continue;
+                    }
+                    if (holders.incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    if (lease.token() <= lastToken.getAndSet(lease.token())) {
+                        tokenRegressions.incrementAndGet();
+                    }
+                    granted.incrementAndGet();
+                    holders.decrementAndGet();
+                    store.release(100L, user.getId(), lease.token());
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, overlaps.get());
+        assertEquals(0, tokenRegressions.get());
+        assertTrue(granted.get() > 0);
+    }
+}
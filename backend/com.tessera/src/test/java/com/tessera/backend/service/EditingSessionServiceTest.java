@@ -2,13 +2,18 @@ package com.tessera.backend.service;
 
 import com.tessera.backend.entity.User;
 import com.tessera.backend.dto.EditingSessionDTO;
+import com.tessera.backend.event.EditorLeftEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Collection;
 
@@ -28,18 +33,33 @@ class EditingSessionServiceTest {
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private PresenceBroadcaster presenceBroadcaster = new PresenceBroadcaster();
+
+    @Spy
+    private InMemoryPresenceRegistry presenceRegistry = new InMemoryPresenceRegistry();
+
     private User user;
 
     @BeforeEach
     void setup() {
+        ReflectionTestUtils.setField(presenceBroadcaster, "messagingTemplate", messagingTemplate);
+        ReflectionTestUtils.setField(service, "timeoutMs", 30000L);
+        ReflectionTestUtils.setField(service, "cleanupIntervalMs", 1000L);
+        service.init();
         user = new User();
         user.setId(1L);
         user.setName("Tester");
+        user.setEmail("tester@test.com");
     }
 
     @Test
     void testJoinAddsEditor() {
         service.joinSession(10L, user);
+        presenceBroadcaster.flush();
 
         Collection<EditingSessionDTO> editors = service.getEditors(10L);
         assertEquals(1, editors.size());
@@ -50,21 +70,65 @@ class EditingSessionServiceTest {
     @Test
     void testCleanupRemovesIdleEditor() {
         service.joinSession(5L, user);
+        presenceBroadcaster.flush();
         // simulate idle
-        service.getActiveEditors().get(5L).get(1L).setLastActive(System.currentTimeMillis() - service.getTimeoutMs() - 1000);
+        long later = System.currentTimeMillis() + service.getTimeoutMs() + 2000;
+        service.getActiveEditors().get(5L).get(1L).setLastActive(later - service.getTimeoutMs() - 1000);
 
-        service.cleanupIdleEditors();
+        service.cleanupIdleEditors(later);
+        presenceBroadcaster.flush();
 
         assertTrue(service.getEditors(5L).isEmpty());
         verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/documents/5/editors"), any(Collection.class));
+        verify(eventPublisher).publishEvent(new EditorLeftEvent(5L, 1L, "tester@test.com"));
     }
 
     @Test
     void testLeaveRemovesEditor() {
         service.joinSession(7L, user);
+        presenceBroadcaster.flush();
         service.leaveSession(7L, user);
+        presenceBroadcaster.flush();
 
         assertTrue(service.getEditors(7L).isEmpty());
         verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/documents/7/editors"), any(Collection.class));
     }
+
+    @Test
+    void testMassJoinsAreCoalescedIntoOneFrame() {
+        // Simula um seminário: 40 alunos abrindo o mesmo documento entre dois ciclos de envio
+        for (long id = 1; id <= 40; id++) {
+            User student = new User();
+            student.setId(id);
+            student.setName("Aluno " + id);
+            service.joinSession(3L, student);
+        }
+
+        presenceBroadcaster.flush();
+
+        ArgumentCaptor<Collection> frame = ArgumentCaptor.forClass(Collection.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/documents/3/editors"), frame.capture());
+        assertEquals(40, frame.getValue().size());
+        assertEquals(40L, presenceBroadcaster.stats().get("requested"));
+        assertEquals(39L, presenceBroadcaster.stats().get("framesSaved"));
+    }
+
+    @Test
+    void testHeartbeatRearmsDeadlineWithoutBroadcast() {
+        service.joinSession(8L, user);
+        presenceBroadcaster.flush();
+        long start = System.currentTimeMillis();
+
+        // Heartbeat antes do prazo adia a expiração
+        assertTrue(service.heartbeat(8L, "tester@test.com", start + 20000));
+        presenceBroadcaster.flush();
+        service.cleanupIdleEditors(start + 31000);
+
+        assertEquals(1, service.getEditors(8L).size());
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/documents/8/editors"), any(Collection.class));
+        assertFalse(service.heartbeat(8L, "outro@test.com"));
+
+        service.cleanupIdleEditors(start + 51000);
+        assertTrue(service.getEditors(8L).isEmpty());
+    }
 }
@@ -0,0 +1,67 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.entity.AclInvalidation;
+import com.tessera.backend.repository.AclInvalidationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcAclInvalidationRelayTest {
+
+    @InjectMocks
+    private JdbcAclInvalidationRelay relay;
+
+    @Mock
+    private AclInvalidationRepository invalidationRepository;
+    @Mock
+    private DocumentAclIndex aclIndex;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(relay, "gapTimeoutMs", 30000L);
+        when(invalidationRepository.findMaxId()).thenReturn(9L);
+        relay.start();
+    }
+
+    private AclInvalidation invalidation(long id, long documentId) {
+        return new AclInvalidation(id, documentId, null);
+    }
+
+    @Test
+    void testIdCommittedAfterHigherIdIsStillApplied() {
+        // A transação do id 10 ainda não confirmou quando a do id 11 já aparece
+        when(invalidationRepository.findTop500ByIdGreaterThanOrderByIdAsc(9L)).thenReturn(List.of(invalidation(11L, 200L)));
+        relay.poll(1000L);
+        verify(aclIndex).evictDocument(200L);
+        assertEquals(1, relay.pendingGaps());
+
+        when(invalidationRepository.findByIdIn(List.of(10L))).thenReturn(List.of(invalidation(10L, 100L)));
+        relay.poll(2000L);
+
+        verify(aclIndex).evictDocument(100L);
+        verify(aclIndex, times(1)).evictDocument(200L);
+        assertEquals(0, relay.pendingGaps());
+    }
+
+    @Test
+    void testGapIsDroppedAfterTimeout() {
+        when(invalidationRepository.findTop500ByIdGreaterThanOrderByIdAsc(9L)).thenReturn(List.of(invalidation(11L, 200L)));
+        relay.poll(1000L);
+
+        relay.poll(31001L);
+
+        assertEquals(0, relay.pendingGaps());
+        verify(aclIndex, never()).evictDocument(100L);
+    }
+}
@@ -0,0 +1,34 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.dto.PresenceDeltaDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Substituto do broker para testes: entrega as mensagens a todos os nós inscritos, na mesma
+ * thread. Mensagens que casam com {@link #dropWhen} são descartadas, simulando perda.
+ */
+class LoopbackPresenceTransport implements PresenceTransport {
+
+    private final List<Consumer<PresenceDeltaDTO>> listeners = new ArrayList<>();
+    private Predicate<PresenceDeltaDTO> dropWhen = message -> false;
+
+    @Override
+    public void publish(PresenceDeltaDTO message) {
+        if (!dropWhen.test(message)) {
+            new ArrayList<>(listeners).forEach(listener -> listener.accept(message));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<PresenceDeltaDTO> listener) {
+        listeners.add(listener);
+    }
+
+    void dropWhen(Predicate<PresenceDeltaDTO> predicate) {
+        this.dropWhen = predicate;
+    }
+}
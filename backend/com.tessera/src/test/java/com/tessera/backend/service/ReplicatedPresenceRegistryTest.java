@@ -0,0 +1,87 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.dto.PresenceDeltaDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicatedPresenceRegistryTest {
+
+    private LoopbackPresenceTransport transport;
+    private ReplicatedPresenceRegistry nodeA;
+    private ReplicatedPresenceRegistry nodeB;
+
+    @BeforeEach
+    void setup() {
+        transport = new LoopbackPresenceTransport();
+        nodeA = node("a");
+        nodeB = node("b");
+    }
+
+    private ReplicatedPresenceRegistry node(String id) {
+        ReplicatedPresenceRegistry registry = new ReplicatedPresenceRegistry();
+        ReflectionTestUtils.setField(registry, "transport", transport);
+        ReflectionTestUtils.setField(registry, "nodeId", id);
+        ReflectionTestUtils.setField(registry, "heartbeatMs", 3000L);
+        ReflectionTestUtils.setField(registry, "nodeTimeoutMs", 10000L);
+        registry.start();
+        return registry;
+    }
+
+    @Test
+    void testEditorsConvergeAcrossNodes() {
+        List<Long> changed = new ArrayList<>();
+        nodeB.onRemoteChange(changed::add);
+
+        nodeA.join(1L, 10L, "Ana");
+        nodeA.sync();
+        nodeB.join(1L, 20L, "Bruno");
+        nodeB.sync();
+
+        assertEquals(Map.of(10L, "Ana", 20L, "Bruno"), nodeA.getEditors(1L));
+        assertEquals(Map.of(10L, "Ana", 20L, "Bruno"), nodeB.getEditors(1L));
+        assertEquals(List.of(1L), changed);
+
+        nodeA.leave(1L, 10L);
+        nodeA.sync();
+        assertEquals(Map.of(20L, "Bruno"), nodeB.getEditors(1L));
+    }
+
+    @Test
+    void testLostDeltaIsRecoveredWithSnapshot() {
+        nodeA.join(1L, 10L, "Ana");
+        nodeA.sync();
+
+        // O delta com a entrada do segundo editor se perde
+        transport.dropWhen(message -> message.getType() == PresenceDeltaDTO.Type.DELTA && !message.getChanges().isEmpty());
+        nodeA.join(2L, 11L, "Carla");
+        nodeA.sync();
+        transport.dropWhen(message -> false);
+        assertTrue(nodeB.getEditors(2L).isEmpty());
+
+        // O próximo delta revela a lacuna e nodeB pede um snapshot
+        nodeA.join(3L, 12L, "Davi");
+        nodeA.sync();
+
+        assertEquals(Map.of(11L, "Carla"), nodeB.getEditors(2L));
+        assertEquals(Map.of(12L, "Davi"), nodeB.getEditors(3L));
+    }
+
+    @Test
+    void testSilentNodeIsExpired() {
+        nodeA.join(1L, 10L, "Ana");
+        nodeA.sync();
+        assertEquals(1, nodeB.getEditors(1L).size());
+
+        ReflectionTestUtils.setField(nodeB, "nodeTimeoutMs", -1L);
+        nodeB.sync();
+
+        assertTrue(nodeB.getEditors(1L).isEmpty());
+    }
+}
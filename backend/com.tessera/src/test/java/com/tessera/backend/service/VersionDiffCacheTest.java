@@ -0,0 +1,73 @@
+package com.tessera.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionDiffCacheTest {
+
+    private VersionDiffCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        cache = new VersionDiffCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "maxChars", 1_000L);
+        cache.initCache();
+    }
+
+    private String load(String value) {
+        loads.incrementAndGet();
+        return value;
+    }
+
+    @Test
+    void testRepeatedPairIsServedFromCache() {
+        assertEquals("d1", cache.get(1L, 2L, VersionDiffCache.Format.DELTA, () -> load("d1")));
+        assertEquals("d1", cache.get(1L, 2L, VersionDiffCache.Format.DELTA, () -> load("outro")));
+        assertEquals("<ins>x</ins>", cache.get(1L, 2L, VersionDiffCache.Format.HTML, () -> load("<ins>x</ins>")));
+
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(2L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void testInvalidateRemovesPairsWithVersion() {
+        cache.get(1L, 2L, VersionDiffCache.Format.DELTA, () -> load("d12"));
+        cache.get(3L, 4L, VersionDiffCache.Format.DELTA, () -> load("d34"));
+
+        cache.invalidateVersion(2L);
+
+        assertEquals("novo", cache.get(1L, 2L, VersionDiffCache.Format.DELTA, () -> load("novo")));
+        assertEquals("d34", cache.get(3L, 4L, VersionDiffCache.Format.DELTA, () -> load("outro")));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedAndCountsEvictions() {
+        cache.get(1L, 2L, VersionDiffCache.Format.DELTA, () -> load("a"));
+        cache.get(2L, 3L, VersionDiffCache.Format.DELTA, () -> load("b"));
+        cache.get(1L, 2L, VersionDiffCache.Format.DELTA, () -> load("a"));
+        cache.get(3L, 4L, VersionDiffCache.Format.DELTA, () -> load("c"));
+
+        assertEquals(1L, cache.stats().get("evictions"));
+        assertEquals("a", cache.get(1L, 2L, VersionDiffCache.Format.DELTA, () -> load("x")));
+        assertEquals("b2", cache.get(2L, 3L, VersionDiffCache.Format.DELTA, () -> load("b2")));
+    }
+
+    @Test
+    void testDiffComputedDuringInvalidationIsNotStored() {
+        cache.get(1L, 2L, VersionDiffCache.Format.DELTA, () -> {
+            cache.invalidateVersion(2L);
+            return load("antigo");
+        });
+
+        assertEquals("novo", cache.get(1L, 2L, VersionDiffCache.Format.DELTA, () -> load("novo")));
+    }
+}
@@ -0,0 +1,108 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.dto.VersionDiffStatusDTO;
+import com.tessera.backend.entity.DiffStatus;
+import com.tessera.backend.entity.Document;
+import com.tessera.backend.entity.Version;
+import com.tessera.backend.repository.VersionRepository;
+import com.tessera.backend.util.DiffUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VersionDiffServiceTest {
+
+    @InjectMocks
+    private VersionDiffService service;
+
+    @Mock
+    private VersionRepository versionRepository;
+
+    @Mock
+    private VersionStorageService versionStorageService;
+
+    @Spy
+    private DiffUtils diffUtils = new DiffUtils();
+
+    private Document document;
+
+    @BeforeEach
+    void setup() {
+        document = new Document();
+        document.setId(100L);
+    }
+
+    private Version version(long id, String content, DiffStatus status) {
+        Version version = new Version();
+        version.setId(id);
+        version.setDocument(document);
+        version.setContent(content);
+        version.setDiffStatus(status);
+        return version;
+    }
+
+    @Test
+    void testComputesDiffAndStatsAgainstPreviousVersion() {
+        Version previous = version(1L, "<p>texto antigo</p>", DiffStatus.READY);
+        Version current = version(2L, "<p>texto novo e maior</p>", DiffStatus.PENDING);
+        when(versionRepository.findPreviousId(2L)).thenReturn(Optional.of(1L));
+        when(versionRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(previous));
+        when(versionRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(current));
+        when(versionStorageService.getContent(any(Version.class))).thenAnswer(inv -> ((Version) inv.getArgument(0)).getContent());
+        when(versionStorageService.attachDelta(current, previous))
+                .thenAnswer(inv -> diffUtils.generateDiff(previous.getContent(), current.getContent()));
+        when(versionRepository.save(current)).thenReturn(current);
+
+        VersionDiffStatusDTO status = service.computeDiff(2L);
+
+        assertEquals(DiffStatus.READY, status.getDiffStatus());
+        assertEquals(100L, status.getDocumentId());
+        assertEquals(DiffStatus.READY, current.getDiffStatus());
+        assertTrue(current.getCharsAdded() > 0);
+        assertTrue(current.getCharsRemoved() > 0);
+        // A anterior é travada primeiro, na mesma ordem de uma edição concorrente do conteúdo
+        InOrder locks = inOrder(versionRepository);
+        locks.verify(versionRepository).findByIdForUpdate(1L);
+        locks.verify(versionRepository).findByIdForUpdate(2L);
+    }
+
+    @Test
+    void testFirstVersionCountsWholeContentAsAdded() {
+        Version first = version(1L, "<p>início</p>", DiffStatus.PENDING);
+        when(versionRepository.findPreviousId(1L)).thenReturn(Optional.empty());
+        when(versionRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(first));
+        when(versionStorageService.getContent(first)).thenReturn(first.getContent());
+        when(versionRepository.save(first)).thenReturn(first);
+
+        service.computeDiff(1L);
+
+        assertEquals(DiffStatus.READY, first.getDiffStatus());
+        assertEquals("<p>início</p>".length(), first.getCharsAdded());
+        assertEquals(0, first.getCharsRemoved());
+        verify(versionStorageService, never()).attachDelta(any(), any());
+    }
+
+    @Test
+    void testAlreadyProcessedVersionIsNotRecomputed() {
+        Version done = version(3L, "<p>x</p>", DiffStatus.READY);
+        when(versionRepository.findByIdForUpdate(3L)).thenReturn(Optional.of(done));
+
+        VersionDiffStatusDTO status = service.computeDiff(3L);
+
+        assertEquals(DiffStatus.READY, status.getDiffStatus());
+        verify(versionRepository, never()).save(any());
+        verifyNoInteractions(versionStorageService);
+    }
+}
@@ -0,0 +1,71 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.entity.Document;
+import com.tessera.backend.entity.Version;
+import com.tessera.backend.repository.DocumentVersionCounterRepository;
+import com.tessera.backend.repository.VersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VersionNumberServiceTest {
+
+    @InjectMocks
+    private VersionNumberService service;
+
+    @Mock
+    private DocumentVersionCounterRepository counterRepository;
+
+    @Mock
+    private VersionRepository versionRepository;
+
+    private Document document;
+
+    @BeforeEach
+    void setup() {
+        document = new Document();
+        document.setId(100L);
+    }
+
+    @Test
+    void testExistingCounterIsIncrementedWithoutLoadingVersions() {
+        when(counterRepository.increment(100L)).thenReturn(1);
+        when(counterRepository.findCurrentNumber(100L)).thenReturn("1.3");
+
+        assertEquals("1.3", service.nextVersionNumber(document));
+        verifyNoInteractions(versionRepository);
+        verify(counterRepository, never()).insertOrIncrement(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testFirstVersionStartsAtOneZero() {
+        when(counterRepository.increment(100L)).thenReturn(0);
+        when(versionRepository.findLatestByDocument(document)).thenReturn(Optional.empty());
+        when(counterRepository.findCurrentNumber(100L)).thenReturn("1.0");
+
+        assertEquals("1.0", service.nextVersionNumber(document));
+        verify(counterRepository).insertOrIncrement(100L, 1, 0);
+    }
+
+    @Test
+    void testCounterIsSeededFromLatestLegacyVersion() {
+        Version latest = new Version();
+        latest.setVersionNumber("2.7");
+        when(counterRepository.increment(100L)).thenReturn(0);
+        when(versionRepository.findLatestByDocument(document)).thenReturn(Optional.of(latest));
+        when(counterRepository.findCurrentNumber(100L)).thenReturn("2.8");
+
+        assertEquals("2.8", service.nextVersionNumber(document));
+        verify(counterRepository).insertOrIncrement(100L, 2, 8);
+    }
+}
@@ -1,8 +1,19 @@
 package com.tessera.backend.service;
 
+import com.tessera.backend.dto.CollaborativeSnapshotDTO;
+import com.tessera.backend.dto.DocumentOperationDTO;
 import com.tessera.backend.dto.VersionDTO;
+import com.tessera.backend.dto.VersionPatchDTO;
 import com.tessera.backend.entity.*;
+import com.tessera.backend.event.VersionCreatedEvent;
+import com.tessera.backend.dto.VersionHistoryPageDTO;
+import com.tessera.backend.dto.VersionSummaryDTO;
+import com.tessera.backend.exception.BusinessRuleException;
+import com.tessera.backend.exception.ConflictException;
+import com.tessera.backend.exception.MergeConflictException;
+import com.tessera.backend.repository.CommentRepository;
 import com.tessera.backend.repository.DocumentRepository;
+import com.tessera.backend.repository.UserRepository;
 import com.tessera.backend.repository.VersionRepository;
 import com.tessera.backend.util.DiffUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,11 +22,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +53,27 @@ class VersionServiceTest {
     @Mock
     private EditingSessionService editingSessionService;
 
+    @Mock
+    private VersionStorageService versionStorageService;
+
+    @Mock
+    private VersionNumberService versionNumberService;
+
+    @Mock
+    private VersionDiffCache versionDiffCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CommentRepository commentRepository;
+
+    @Mock
+    private ContentStoreService contentStoreService;
+
+    @Mock
+    private EditLeaseService editLeaseService;
+
     private Document document;
     private User coauthor;
 
@@ -76,20 +114,29 @@ class VersionServiceTest {
         dto.setContent("content");
 
         when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
-        when(versionRepository.findByDocumentOrderByCreatedAtDesc(document)).thenReturn(Collections.emptyList());
-        when(versionRepository.findLatestByDocument(document)).thenReturn(Optional.empty());
+        when(versionNumberService.nextVersionNumber(document)).thenReturn("1.0");
         when(versionRepository.save(any())).thenAnswer(inv -> {
             Version v = inv.getArgument(0);
             v.setId(1L);
             return v;
         });
+        doAnswer(inv -> {
+            Version v = inv.getArgument(0);
+            v.setContent(inv.getArgument(1));
+            return null;
+        }).when(versionStorageService).storeNewVersion(any(Version.class), eq("content"));
+        when(versionStorageService.getContent(any(Version.class))).thenAnswer(inv -> ((Version) inv.getArgument(0)).getContent());
 
         VersionDTO result = service.createVersion(dto, coauthor);
 
         assertEquals(1L, result.getId());
         assertEquals("1.0", result.getVersionNumber());
+        assertEquals("content", result.getContent());
         assertEquals(coauthor.getId(), result.getCreatedById());
+        assertEquals(DiffStatus.PENDING, result.getDiffStatus());
         verify(versionRepository).save(any(Version.class));
+        verify(eventPublisher).publishEvent(new VersionCreatedEvent(1L, document.getId()));
+        verify(diffUtils, never()).generateDiff(any(), any());
         verify(notificationEventService).onVersionCreated(any(Version.class), eq(coauthor));
     }
 
@@ -107,9 +154,15 @@ class VersionServiceTest {
         dto.setCommitMessage("new msg");
         dto.setContent("new content");
 
-        when(versionRepository.findById(1L)).thenReturn(Optional.of(version));
+        when(versionRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(version));
         when(versionRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
         when(diffUtils.generateDiff("old", "new content")).thenReturn("diff");
+        when(versionStorageService.getContent(any(Version.class))).thenAnswer(inv -> ((Version) inv.getArgument(0)).getContent());
+        doAnswer(inv -> {
+            Version v = inv.getArgument(0);
+            v.setContent(inv.getArgument(1));
+            return null;
+        }).when(versionStorageService).replaceContent(version, "new content");
 
         VersionDTO result = service.updateVersion(1L, dto, coauthor);
 
@@ -118,4 +171,258 @@ class VersionServiceTest {
         assertEquals("diff", result.getDiffFromPrevious());
         verify(versionRepository).save(version);
     }
+
+    @Test
+    void testCreateVersionWithStaleLeaseTokenIsRejected() {
+        VersionDTO dto = new VersionDTO();
+        dto.setDocumentId(document.getId());
+        dto.setContent("content");
+        dto.setLeaseToken(3L);
+
+        when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
+        doThrow(new ConflictException("A reserva de edição informada não é mais a vigente"))
+                .when(editLeaseService).validate(document.getId(), coauthor, 3L);
+
+        assertThrows(ConflictException.class, () -> service.createVersion(dto, coauthor));
+        verify(versionStorageService, never()).storeNewVersion(any(), any());
+        verify(versionRepository, never()).save(any());
+    }
+
+    @Test
+    void testRestSaveIsRejectedDuringSessionAndSurvivesLaterCheckpoint() {
+        Set<Long> collaborative = new HashSet<>();
+        doAnswer(inv -> {
+            if (inv.<Boolean>getArgument(1)) {
+                collaborative.add(inv.getArgument(0));
+            } else {
+                collaborative.remove(inv.<Long>getArgument(0));
+            }
+            return null;
+        }).when(editingSessionService).setCollaborative(anyLong(), anyBoolean());
+        when(editingSessionService.isCollaborative(anyLong()))
+                .thenAnswer(inv -> collaborative.contains(inv.<Long>getArgument(0)));
+
+        List<String> stored = new ArrayList<>();
+        when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
+        when(versionRepository.findLatestByDocument(document)).thenReturn(Optional.empty());
+        when(versionNumberService.nextVersionNumber(document)).thenAnswer(inv -> "1." + stored.size());
+        when(versionRepository.save(any())).thenAnswer(inv -> {
+            Version v = inv.getArgument(0);
+            v.setId((long) stored.size());
+            return v;
+        });
+        doAnswer(inv -> {
+            Version v = inv.getArgument(0);
+            v.setContent(inv.getArgument(1));
+            stored.add(inv.getArgument(1));
+            return null;
+        }).when(versionStorageService).storeNewVersion(any(Version.class), any());
+        when(versionStorageService.getContent(any(Version.class))).thenAnswer(inv -> ((Version) inv.getArgument(0)).getContent());
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail("co@test.com")).thenReturn(Optional.of(coauthor));
+        CollaborativeEditingService collab = new CollaborativeEditingService();
+        ReflectionTestUtils.setField(collab, "versionService", service);
+        ReflectionTestUtils.setField(collab, "editingSessionService", editingSessionService);
+        ReflectionTestUtils.setField(collab, "userRepository", userRepository);
+        ReflectionTestUtils.setField(collab, "messagingTemplate", mock(SimpMessagingTemplate.class));
+        ReflectionTestUtils.setField(collab, "historySize", 500);
+        // Sessão encerrada no mesmo ciclo do checkpoint
+        ReflectionTestUtils.setField(collab, "idleTimeoutMs", -1L);
+
+        CollaborativeSnapshotDTO snapshot = collab.join(document.getId(), "co@test.com");
+        collab.applyOperation(document.getId(), "co@test.com", new DocumentOperationDTO(snapshot.getSessionId(),
+                "c1", 0, List.of(List.of("<p>sessão</p>")), null));
+
+        VersionDTO dto = new VersionDTO();
+        dto.setDocumentId(document.getId());
+        dto.setContent("<p>rest</p>");
+        assertThrows(ConflictException.class, () -> service.createVersion(dto, coauthor));
+
+        collab.checkpointSessions();
+        service.createVersion(dto, coauthor);
+        collab.checkpointSessions();
+
+        assertEquals(List.of("<p>sessão</p>", "<p>rest</p>"), stored);
+    }
+
+    @Test
+    void testAutosaveVersionGoesThroughEditGuards() {
+        document.setStatus(DocumentStatus.REVISION);
+        when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
+        when(versionNumberService.nextVersionNumber(document)).thenReturn("1.1");
+        when(versionRepository.save(any())).thenAnswer(inv -> {
+            Version v = inv.getArgument(0);
+            v.setId(2L);
+            return v;
+        });
+
+        VersionDTO result = service.createAutosaveVersion(document.getId(), "rascunho", coauthor,
+                "Salvamento automático", 4L);
+
+        assertEquals(2L, result.getId());
+        verify(editLeaseService).validate(document.getId(), coauthor, 4L);
+        verify(editingSessionService).hasOtherEditors(document.getId(), coauthor.getId());
+        assertEquals(DocumentStatus.SUBMITTED, document.getStatus());
+        verify(versionNumberService).requestMajorBump(document.getId());
+        verify(notificationEventService).onVersionCreated(any(Version.class), eq(coauthor));
+
+        // Submetido: o próximo rascunho não vira versão
+        assertNull(service.createAutosaveVersion(document.getId(), "outro", coauthor, "Salvamento automático", 4L));
+        verify(versionRepository, times(1)).save(any());
+    }
+
+    @Test
+    void testAutosaveVersionIsBlockedByOtherEditor() {
+        when(documentRepository.findById(document.getId())).thenReturn(Optional.of(document));
+        when(editingSessionService.hasOtherEditors(document.getId(), coauthor.getId())).thenReturn(true);
+
+        assertThrows(BusinessRuleException.class, () -> service.createAutosaveVersion(document.getId(), "rascunho",
+                coauthor, "Salvamento automático", null));
+        verify(versionRepository, never()).save(any());
+    }
+
+    private Version storedVersion(Long id, String number, String content) {
+        Version version = new Version();
+        version.setId(id);
+        version.setDocument(document);
+        version.setVersionNumber(number);
+        version.setContent(content);
+        version.setCreatedBy(coauthor);
+        return version;
+    }
+
+    @Test
+    void testCreateVersionFromPatchRebuildsContent() {
+        Version base = storedVersion(5L, "1.4", "<p>texto antigo</p>");
+        when(documentRepository.findByIdForUpdate(document.getId())).thenReturn(Optional.of(document));
+        when(versionRepository.findById(5L)).thenReturn(Optional.of(base));
+        when(versionRepository.findLatestByDocument(document)).thenReturn(Optional.of(base));
+        when(versionStorageService.getContent(any(Version.class))).thenAnswer(inv -> ((Version) inv.getArgument(0)).getContent());
+        when(diffUtils.applyDiff("<p>texto antigo</p>", "=9\t-6\t+novo\t=4")).thenReturn("<p>texto novo</p>");
+        when(contentStoreService.hash("<p>texto novo</p>")).thenReturn("abc123");
+        when(versionNumberService.nextVersionNumber(document)).thenReturn("1.5");
+        when(versionRepository.save(any())).thenAnswer(inv -> {
+            Version v = inv.getArgument(0);
+            v.setId(6L);
+            return v;
+        });
+        doAnswer(inv -> {
+            Version v = inv.getArgument(0);
+            v.setContent(inv.getArgument(1));
+            return null;
+        }).when(versionStorageService).storeNewVersion(any(Version.class), eq("<p>texto novo</p>"));
+
+        VersionPatchDTO patch = new VersionPatchDTO(document.getId(), 5L, "=9\t-6\t+novo\t=4", null, "ABC123", "ajuste", null);
+        VersionDTO result = service.createVersionFromPatch(patch, coauthor);
+
+        assertEquals(6L, result.getId());
+        assertEquals("1.5", result.getVersionNumber());
+        assertEquals("<p>texto novo</p>", result.getContent());
+    }
+
+    @Test
+    void testCreateVersionOnStaleBaseIsMergedWithLatest() {
+        Version base = storedVersion(5L, "1.4", "<p>a</p><p>b</p>");
+        Version latest = storedVersion(6L, "1.5", "<p>A</p><p>b</p>");
+        when(documentRepository.findByIdForUpdate(document.getId())).thenReturn(Optional.of(document));
+        when(versionRepository.findById(5L)).thenReturn(Optional.of(base));
+        when(versionRepository.findLatestByDocument(document)).thenReturn(Optional.of(latest));
+        when(versionStorageService.getContent(any(Version.class))).thenAnswer(inv -> ((Version) inv.getArgument(0)).getContent());
+        when(diffUtils.merge("<p>a</p><p>b</p>", "<p>a</p><p>B</p>", "<p>A</p><p>b</p>"))
+                .thenReturn(new DiffUtils.MergeResult("<p>A</p><p>B</p>", List.of()));
+        when(versionNumberService.nextVersionNumber(document)).thenReturn("1.6");
+        when(versionRepository.save(any())).thenAnswer(inv -> {
+            Version v = inv.getArgument(0);
+            v.setId(7L);
+            return v;
+        });
+        doAnswer(inv -> {
+            Version v = inv.getArgument(0);
+            v.setContent(inv.getArgument(1));
+            return null;
+        }).when(versionStorageService).storeNewVersion(any(Version.class), eq("<p>A</p><p>B</p>"));
+
+        VersionDTO dto = new VersionDTO();
+        dto.setDocumentId(document.getId());
+        dto.setBaseVersionId(5L);
+        dto.setContent("<p>a</p><p>B</p>");
+        VersionDTO result = service.createVersion(dto, coauthor);
+
+        assertEquals("<p>A</p><p>B</p>", result.getContent());
+        // Com versão base não há bloqueio por outros editores
+        verify(editingSessionService, never()).hasOtherEditors(any(), any());
+    }
+
+    @Test
+    void testCreateVersionFromPatchReportsMergeConflict() {
+        Version base = storedVersion(5L, "1.4", "a");
+        Version latest = storedVersion(6L, "1.5", "b");
+        when(documentRepository.findByIdForUpdate(document.getId())).thenReturn(Optional.of(document));
+        when(versionRepository.findById(5L)).thenReturn(Optional.of(base));
+        when(versionRepository.findLatestByDocument(document)).thenReturn(Optional.of(latest));
+        when(versionStorageService.getContent(any(Version.class))).thenAnswer(inv -> ((Version) inv.getArgument(0)).getContent());
+        when(diffUtils.applyDiff("a", "-1\t+c")).thenReturn("c");
+        when(contentStoreService.hash("c")).thenReturn("hash");
+        when(diffUtils.merge("a", "c", "b")).thenReturn(new DiffUtils.MergeResult("b", List.of("@@ -1 +1 @@\n-a\n+c\n")));
+
+        VersionPatchDTO patch = new VersionPatchDTO(document.getId(), 5L, "-1\t+c", null, "hash", null, null);
+        MergeConflictException e = assertThrows(MergeConflictException.class,
+                () -> service.createVersionFromPatch(patch, coauthor));
+        assertEquals(6L, e.getConflict().getLatestVersionId());
+        assertEquals(1, e.getConflict().getConflicts().size());
+        verify(versionRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreateVersionFromPatchRejectsHashMismatch() {
+        Version base = storedVersion(5L, "1.4", "abc");
+        when(documentRepository.findByIdForUpdate(document.getId())).thenReturn(Optional.of(document));
+        when(versionRepository.findById(5L)).thenReturn(Optional.of(base));
+        when(versionStorageService.getContent(base)).thenReturn("abc");
+        when(diffUtils.applyDiff("abc", "=3\t+d")).thenReturn("abcd");
+        when(contentStoreService.hash("abcd")).thenReturn("real");
+
+        VersionPatchDTO patch = new VersionPatchDTO(document.getId(), 5L, "=3\t+d", null, "other", null, null);
+        assertThrows(ConflictException.class, () -> service.createVersionFromPatch(patch, coauthor));
+        verify(versionRepository, never()).save(any());
+    }
+
+    private VersionSummaryDTO summary(long id, LocalDateTime createdAt) {
+        return new VersionSummaryDTO(id, document.getId(), "1." + id, "msg", coauthor.getId(), coauthor.getName(),
+                createdAt, DiffStatus.READY, 10, 2, 40);
+    }
+
+    @Test
+    void testVersionSummariesUseCursorAndGroupedCommentCounts() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 10, 0);
+        when(documentRepository.existsById(document.getId())).thenReturn(true);
+        when(versionRepository.findSummaries(eq(document.getId()), any())).thenReturn(new ArrayList<>(List.of(
+                summary(3L, now), summary(2L, now.minusMinutes(1)), summary(1L, now.minusMinutes(2)))));
+        when(commentRepository.countByVersionIds(List.of(3L, 2L)))
+                .thenReturn(List.<Object[]>of(new Object[] { 3L, 4L }));
+
+        VersionHistoryPageDTO page = service.getVersionSummaries(document.getId(), null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(4, page.getItems().get(0).getCommentCount());
+        assertEquals(0, page.getItems().get(1).getCommentCount());
+        assertNotNull(page.getNextCursor());
+
+        when(versionRepository.findSummariesBefore(eq(document.getId()), eq(now.minusMinutes(1)), eq(2L), any()))
+                .thenReturn(new ArrayList<>(List.of(summary(1L, now.minusMinutes(2)))));
+
+        VersionHistoryPageDTO next = service.getVersionSummaries(document.getId(), page.getNextCursor(), 2);
+
+        assertEquals(1, next.getItems().size());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testVersionSummariesRejectInvalidCursor() {
+        when(documentRepository.existsById(document.getId())).thenReturn(true);
+
+        assertThrows(BusinessRuleException.class,
+                () -> service.getVersionSummaries(document.getId(), "cursor-invalido", 20));
+    }
 }
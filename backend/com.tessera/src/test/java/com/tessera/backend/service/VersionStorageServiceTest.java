@@ -0,0 +1,200 @@
+package com.tessera.backend.service;
+
+import com.tessera.backend.entity.Version;
+import com.tessera.backend.repository.VersionRepository;
+import com.tessera.backend.util.BoundedLruCache;
+import com.tessera.backend.util.DiffUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VersionStorageServiceTest {
+
+    @InjectMocks
+    private VersionStorageService service;
+
+    @Mock
+    private VersionRepository versionRepository;
+
+    @Spy
+    private DiffUtils diffUtils = new DiffUtils();
+
+    @Spy
+    private InMemoryContentStore contentStoreService = new InMemoryContentStore();
+
+    private final Map<Long, Version> stored = new HashMap<>();
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(service, "storageMode", VersionStorageService.StorageMode.DELTA);
+        ReflectionTestUtils.setField(service, "keyframeInterval", 3);
+        ReflectionTestUtils.setField(service, "keyframeMaxDeltaRatio", 0.5);
+        ReflectionTestUtils.setField(service, "snapshotCacheMaxEntries", 16);
+        ReflectionTestUtils.setField(service, "snapshotCacheMaxChars", 1_000_000L);
+        service.initCache();
+        lenient().when(versionRepository.findById(any())).thenAnswer(inv -> Optional.ofNullable(stored.get(inv.<Long>getArgument(0))));
+    }
+
+    // Mesmo caminho da criação de versões: grava como keyframe e depois anexa o delta
+    private Version save(long id, Optional<Version> previous, String content) {
+        Version version = new Version();
+        service.storeNewVersion(version, content);
+        version.setId(id);
+        stored.put(id, version);
+        previous.ifPresent(base -> service.attachDelta(version, base));
+        return version;
+    }
+
+    private String paragraph(int i) {
+        return "<p>Capítulo " + i + ": texto longo o suficiente para que pequenas edições gerem deltas compactos.</p>";
+    }
+
+    @Test
+    void testStoresDeltasBetweenKeyframes() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            text.append(paragraph(i));
+        }
+        Version previous = save(1L, Optional.empty(), text.toString());
+        assertTrue(previous.isKeyframe());
+
+        for (long id = 2; id <= 5; id++) {
+            text.append(paragraph((int) id + 10));
+            previous = save(id, Optional.of(previous), text.toString());
+        }
+
+        // Intervalo 3: v2 e v3 são deltas, v4 volta a ser keyframe
+        assertFalse(stored.get(2L).isKeyframe());
+        assertFalse(stored.get(3L).isKeyframe());
+        assertTrue(stored.get(4L).isKeyframe());
+        assertFalse(stored.get(5L).isKeyframe());
+        assertNull(stored.get(3L).getContent());
+        assertEquals(2L, stored.get(3L).getBaseVersionId());
+
+        assertEquals(text.toString(), service.getContent(stored.get(5L)));
+        assertTrue(service.getContent(stored.get(3L)).endsWith(paragraph(13)));
+    }
+
+    @Test
+    void testLargeDeltaForcesKeyframe() {
+        Version first = save(1L, Optional.empty(), paragraph(1));
+        Version second = save(2L, Optional.of(first), "<h1>Texto completamente diferente</h1>");
+
+        assertTrue(second.isKeyframe());
+        assertEquals("<h1>Texto completamente diferente</h1>", service.getContent(second));
+    }
+
+    @Test
+    void testIdenticalContentReusesStoredBlob() {
+        String base = paragraph(1) + paragraph(2) + paragraph(3);
+        Version first = save(1L, Optional.empty(), base);
+        Version second = save(2L, Optional.of(first), base + paragraph(4));
+        Version reverted = save(3L, Optional.of(second), base);
+
+        assertFalse(second.isKeyframe());
+        assertTrue(reverted.isKeyframe());
+        assertEquals(first.getContentHash(), reverted.getContentHash());
+        assertEquals(2, contentStoreService.refCounts.get(first.getContentHash()));
+        assertEquals(1, contentStoreService.bodies.size());
+        assertEquals(base, service.getContent(reverted));
+    }
+
+    @Test
+    void testReplaceContentReleasesPreviousBlob() {
+        Version first = save(1L, Optional.empty(), paragraph(1));
+        String oldHash = first.getContentHash();
+
+        service.replaceContent(first, paragraph(2));
+
+        assertEquals(0, contentStoreService.refCounts.get(oldHash));
+        assertEquals(1, contentStoreService.refCounts.get(first.getContentHash()));
+        assertEquals(paragraph(2), service.getContent(first));
+    }
+
+    @Test
+    void testReplaceContentMaterializesDependents() {
+        String base = paragraph(1) + paragraph(2);
+        Version first = save(1L, Optional.empty(), base);
+        Version second = save(2L, Optional.of(first), base + paragraph(3));
+        assertFalse(second.isKeyframe());
+        when(versionRepository.findByBaseVersionId(1L)).thenReturn(List.of(second));
+
+        service.replaceContent(first, "<p>reescrito</p>");
+
+        assertTrue(second.isKeyframe());
+        assertEquals(base + paragraph(3), service.getContent(second));
+        assertEquals("<p>reescrito</p>", service.getContent(first));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAttachDeltaIgnoresSnapshotFromBeforeReplace() {
+        String original = paragraph(1) + paragraph(2);
+        String rewritten = paragraph(1) + paragraph(5);
+        Version first = save(1L, Optional.empty(), original);
+        service.replaceContent(first, rewritten);
+        // Leitura concorrente que guardou o conteúdo antigo antes de a troca ser confirmada
+        BoundedLruCache<Long, String> snapshots = (BoundedLruCache<Long, String>) ReflectionTestUtils.getField(service, "snapshotCache");
+        snapshots.put(1L, original);
+        Version second = new Version();
+        service.storeNewVersion(second, rewritten + paragraph(3));
+        second.setId(2L);
+        stored.put(2L, second);
+
+        service.attachDelta(second, first);
+
+        assertFalse(second.isKeyframe());
+        assertEquals(1L, second.getBaseVersionId());
+        service.evict(1L);
+        service.evict(2L);
+        assertEquals(rewritten + paragraph(3), service.getContent(second));
+    }
+
+    static class InMemoryContentStore extends ContentStoreService {
+        final Map<String, String> bodies = new HashMap<>();
+        final Map<String, Integer> refCounts = new HashMap<>();
+
+        @Override
+        public boolean exists(String hash) {
+            return bodies.containsKey(hash);
+        }
+
+        @Override
+        public void acquire(String hash, String content) {
+            bodies.putIfAbsent(hash, content);
+            refCounts.merge(hash, 1, Integer::sum);
+        }
+
+        @Override
+        public boolean isShared(String hash) {
+            return refCounts.getOrDefault(hash, 0) > 1;
+        }
+
+        @Override
+        public void release(String hash) {
+            if (refCounts.merge(hash, -1, Integer::sum) <= 0) {
+                bodies.remove(hash);
+            }
+        }
+
+        @Override
+        public String load(String hash) {
+            return bodies.get(hash);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.tessera.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentCodecTest {
+
+    private String largeHtml() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("<p>Parágrafo ").append(i).append(" da monografia com acentuação.</p>");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    void testRoundTripCompressesLargeContent() {
+        String html = largeHtml();
+        byte[] encoded = ContentCodec.encode(html);
+
+        assertTrue(ContentCodec.isGzip(encoded));
+        assertTrue(encoded.length < html.getBytes(StandardCharsets.UTF_8).length / 3);
+        assertEquals(html, ContentCodec.decode(encoded));
+    }
+
+    @Test
+    void testSmallContentIsStoredRaw() {
+        byte[] encoded = ContentCodec.encode("<p>oi</p>");
+
+        assertTrue(ContentCodec.hasHeader(encoded));
+        assertFalse(ContentCodec.isGzip(encoded));
+        assertEquals("<p>oi</p>", ContentCodec.decode(encoded));
+    }
+
+    @Test
+    void testLegacyTextWithoutHeaderIsDecodedAsUtf8() {
+        byte[] legacy = "<p>versão antiga</p>".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("<p>versão antiga</p>", ContentCodec.decode(legacy));
+    }
+
+    @Test
+    void testLegacyTextThatLooksLikeHeaderIsDecodedAsUtf8() {
+        String tricky = "TZ\u0001\u001f texto legado";
+        byte[] legacy = tricky.getBytes(StandardCharsets.UTF_8);
+
+        assertFalse(ContentCodec.isGzip(legacy));
+        assertEquals(tricky, ContentCodec.decode(legacy));
+
+        // Mesmo com os bytes mágicos do GZIP, um payload inválido volta como texto
+        byte[] corrupt = { 'T', 'Z', ContentCodec.CODEC_GZIP, (byte) 0x1f, (byte) 0x8b, 'x' };
+        assertEquals(new String(corrupt, StandardCharsets.UTF_8), ContentCodec.decode(corrupt));
+    }
+
+    @Test
+    void testGzipPayloadIsAValidGzipStream() throws Exception {
+        String html = largeHtml();
+        byte[] payload = ContentCodec.gzipPayload(ContentCodec.encode(html));
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            assertEquals(html, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testCopyPayloadStreamsDecodedOrGzipBytes() throws Exception {
+        String html = largeHtml();
+        byte[] encoded = ContentCodec.encode(html);
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ContentCodec.copyPayload(new ByteArrayInputStream(encoded), plain, false);
+        assertEquals(html, plain.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        ContentCodec.copyPayload(new ByteArrayInputStream(encoded), gzip, true);
+        assertArrayEquals(ContentCodec.gzipPayload(encoded), gzip.toByteArray());
+
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        ContentCodec.copyPayload(new ByteArrayInputStream("<p>versão antiga</p>".getBytes(StandardCharsets.UTF_8)), legacy, true);
+        assertEquals("<p>versão antiga</p>", legacy.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,168 @@
+package com.tessera.backend.util;
+
+import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiffUtilsTest {
+
+    private static String largeDocument(int paragraphs, int changedEvery) {
+        StringBuilder html = new StringBuilder("<h1>Introdução</h1>");
+        for (int i = 0; i < paragraphs; i++) {
+            String word = changedEvery > 0 && i % changedEvery == 0 ? "revisado" : "original";
+            html.append("<p>Parágrafo ").append(i).append(" com texto ").append(word)
+                .append(" da <strong>tese</strong> para o teste de diff.</p>");
+        }
+        return html.toString();
+    }
+
+    @Test
+    void testSplitBlocksOnBlockClosingTags() {
+        List<String> blocks = DiffUtils.splitBlocks("<h1>T</h1><p>a <em>b</em></p><ul><li>c</li></ul>fim");
+
+        assertEquals(List.of("<h1>T</h1>", "<p>a <em>b</em></p>", "<ul><li>c</li>", "</ul>", "fim"), blocks);
+        assertEquals("<h1>T</h1><p>a <em>b</em></p><ul><li>c</li></ul>fim", String.join("", blocks));
+    }
+
+    @Test
+    void testLargeDocumentRoundTripWithBlockPass() {
+        DiffUtils diffUtils = new DiffUtils(DiffUtils.Granularity.TOKEN, 5_000, 1_000, 2, 100);
+        String oldText = largeDocument(2_000, 0);
+        String newText = largeDocument(2_000, 97);
+
+        String delta = diffUtils.generateDiff(oldText, newText);
+
+        assertEquals(newText, diffUtils.applyDiff(oldText, delta));
+        assertTrue(delta.length() < newText.length() / 10);
+        assertEquals(1L, diffUtils.stats().get("largeDiffs"));
+    }
+
+    @Test
+    void testExhaustedBudgetStillProducesValidDiff() {
+        DiffUtils diffUtils = new DiffUtils(DiffUtils.Granularity.TOKEN, 0, 1_000, 2, 100);
+        String oldText = largeDocument(500, 0);
+        String newText = largeDocument(500, 7);
+
+        String delta = diffUtils.generateDiff(oldText, newText);
+
+        assertEquals(newText, diffUtils.applyDiff(oldText, delta));
+        assertEquals(1L, diffUtils.stats().get("budgetExhausted"));
+    }
+
+    @Test
+    void testConcurrencyCapFallsBackToCoarseDiff() throws Exception {
+        DiffUtils diffUtils = new DiffUtils(DiffUtils.Granularity.TOKEN, 5_000, 1_000, 1, 0);
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(diffUtils, "largeDiffPermits");
+        permits.acquire();
+        String oldText = largeDocument(200, 0);
+        String newText = largeDocument(200, 50);
+
+        String delta = diffUtils.generateDiff(oldText, newText);
+
+        assertEquals(newText, diffUtils.applyDiff(oldText, delta));
+        assertEquals(1L, diffUtils.stats().get("permitTimeouts"));
+        permits.release();
+    }
+
+    @Test
+    void testSmallTextsSkipBlockPass() {
+        DiffUtils diffUtils = new DiffUtils();
+        String delta = diffUtils.generateDiff("<p>texto antigo</p>", "<p>texto novo</p>");
+
+        assertEquals("<p>texto novo</p>", diffUtils.applyDiff("<p>texto antigo</p>", delta));
+        assertEquals(0L, diffUtils.stats().get("largeDiffs"));
+        assertTrue(diffUtils.renderDiffHtml("<p>a</p>", "<p>b</p>").contains("<ins"));
+    }
+
+    @Test
+    void testTokenizeKeepsTagsAndWordsWhole() {
+        List<String> tokens = DiffUtils.tokenize("<p class=\"x\">Olá, mundo</p>");
+
+        assertEquals(List.of("<p class=\"x\">", "Olá", ",", " ", "mundo", "</p>"), tokens);
+    }
+
+    @Test
+    void testTokenDiffProducesSmallerDeltaThanCharDiff() {
+        DiffUtils tokenDiff = new DiffUtils();
+        DiffUtils charDiff = new DiffUtils(DiffUtils.Granularity.CHAR, 1_000, 20_000, 4, 200);
+        String oldText = "<p>A <strong>metodologia</strong> adotada considera entrevistas.</p>";
+        String newText = "<p>A <em>abordagem</em> escolhida combina questionários.</p>";
+
+        String tokenDelta = tokenDiff.generateDiff(oldText, newText);
+        String charDelta = charDiff.generateDiff(oldText, newText);
+
+        assertEquals(newText, tokenDiff.applyDiff(oldText, tokenDelta));
+        assertEquals(newText, charDiff.applyDiff(oldText, charDelta));
+        assertTrue(tokenDelta.split("\t").length <= charDelta.split("\t").length);
+    }
+
+    @Test
+    void testApplyPatchTextAndRejectUnmatchedHunk() {
+        DiffMatchPatch dmp = new DiffMatchPatch();
+        String oldText = largeDocument(50, 0);
+        String newText = oldText.replace("Parágrafo 20 com texto original", "Parágrafo 20 com texto reescrito");
+        String patch = dmp.patchToText(dmp.patchMake(oldText, newText));
+
+        DiffUtils diffUtils = new DiffUtils();
+        assertEquals(newText, diffUtils.applyPatch(oldText, patch));
+        assertThrows(IllegalArgumentException.class, () -> diffUtils.applyPatch("<p>outro documento</p>", patch));
+    }
+
+    @Test
+    void testMergeAppliesNonOverlappingChangesFromBothSides() {
+        DiffUtils diffUtils = new DiffUtils();
+        String base = largeDocument(30, 0);
+        String ours = base.replace("Parágrafo 3 com texto original", "Parágrafo 3 com texto nosso");
+        String theirs = base.replace("Parágrafo 25 com texto original", "Parágrafo 25 com texto deles")
+                .replace("<h1>Introdução</h1>", "<h1>Introdução geral</h1>");
+
+        DiffUtils.MergeResult merge = diffUtils.merge(base, ours, theirs);
+
+        assertTrue(merge.isClean());
+        assertEquals(theirs.replace("Parágrafo 3 com texto original", "Parágrafo 3 com texto nosso"), merge.content());
+    }
+
+    @Test
+    void testMergeReportsOverlappingChangeAsConflict() {
+        DiffUtils diffUtils = new DiffUtils();
+        String base = largeDocument(30, 0);
+        String ours = base.replace("Parágrafo 3 com texto original", "Parágrafo 3 com texto nosso")
+                .replace("Parágrafo 20 com texto original", "Parágrafo 20 com texto nosso");
+        String theirs = base.replace("Parágrafo 3 com texto original", "Parágrafo 3 com texto deles");
+
+        DiffUtils.MergeResult merge = diffUtils.merge(base, ours, theirs);
+
+        assertEquals(1, merge.conflicts().size());
+        assertTrue(merge.conflicts().get(0).contains("nosso"));
+        // O trecho sem conflito foi aplicado; o conflitante manteve a versão deles
+        assertTrue(merge.content().contains("Parágrafo 20 com texto nosso"));
+        assertTrue(merge.content().contains("Parágrafo 3 com texto deles"));
+    }
+
+    @Test
+    void testMergeMapsLaterHunksPastLargeInsertion() {
+        DiffUtils diffUtils = new DiffUtils();
+        String base = largeDocument(30, 0);
+        // Bloco de mais de 600 caracteres: desloca todos os trechos seguintes de ours
+        String block = "<p>Seção nova inserida por nós com bastante texto.</p>".repeat(12);
+        String afterTwo = "Parágrafo 2 com texto original da <strong>tese</strong> para o teste de diff.</p>";
+        String ours = base.replace(afterTwo, afterTwo + block)
+                .replace("Parágrafo 10 com texto original", "Parágrafo 10 com texto nosso")
+                .replace("Parágrafo 20 com texto original", "Parágrafo 20 com texto nosso");
+        String theirs = base.replace("Parágrafo 17 com texto original", "Parágrafo 17 com texto deles")
+                .replace("Parágrafo 20 com texto original", "Parágrafo 20 com texto deles");
+
+        DiffUtils.MergeResult merge = diffUtils.merge(base, ours, theirs);
+
+        assertEquals(1, merge.conflicts().size());
+        assertTrue(merge.conflicts().get(0).contains("nosso"));
+        assertFalse(merge.conflicts().get(0).contains("inserida"));
+        assertEquals(theirs.replace(afterTwo, afterTwo + block)
+                .replace("Parágrafo 10 com texto original", "Parágrafo 10 com texto nosso"), merge.content());
+    }
+}
@@ -0,0 +1,61 @@
+package com.tessera.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextOperationTest {
+
+    @Test
+    void testApplyAndJsonRoundTrip() {
+        TextOperation operation = TextOperation.fromJson(List.of(3, "XY", -2, 1));
+
+        assertEquals(6, operation.getBaseLength());
+        assertEquals("abcXYf", operation.apply("abcdef"));
+        assertEquals(List.of(3, "XY", -2, 1), operation.toJson());
+    }
+
+    @Test
+    void testConcurrentOperationsConverge() {
+        String text = "<p>tese de mestrado</p>";
+        TextOperation a = new TextOperation().retain(3).insert("Minha ").retain(text.length() - 3);
+        TextOperation b = new TextOperation().retain(8).delete(2).insert("do").retain(text.length() - 10);
+
+        TextOperation[] primes = TextOperation.transform(a, b);
+
+        String ab = primes[1].apply(a.apply(text));
+        String ba = primes[0].apply(b.apply(text));
+        assertEquals(ab, ba);
+        assertEquals("<p>Minha tese do mestrado</p>", ab);
+    }
+
+    @Test
+    void testInsertsAtSamePositionKeepFirstOperationFirst() {
+        TextOperation a = new TextOperation().retain(1).insert("A").retain(1);
+        TextOperation b = new TextOperation().retain(1).insert("B").retain(1);
+
+        TextOperation[] primes = TextOperation.transform(a, b);
+
+        assertEquals("xABy", primes[1].apply(a.apply("xy")));
+        assertEquals("xABy", primes[0].apply(b.apply("xy")));
+    }
+
+    @Test
+    void testComposeEqualsSequentialApply() {
+        String text = "abcdef";
+        TextOperation first = new TextOperation().retain(2).delete(2).insert("ZZZ").retain(2);
+        TextOperation second = new TextOperation().insert(">").retain(4).delete(3);
+
+        assertEquals(second.apply(first.apply(text)), first.compose(second).apply(text));
+    }
+
+    @Test
+    void testRejectsOperationForDifferentLength() {
+        TextOperation operation = new TextOperation().retain(4).insert("x");
+
+        assertThrows(IllegalArgumentException.class, () -> operation.apply("abc"));
+        assertThrows(IllegalArgumentException.class, () -> TextOperation.fromJson(List.of(0)));
+    }
+}
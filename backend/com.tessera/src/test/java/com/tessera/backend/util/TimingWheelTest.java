@@ -0,0 +1,52 @@
+package com.tessera.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void testExpiresOnlyDueKeys() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("a", 2500);
+        wheel.schedule("b", 5000);
+
+        assertTrue(wheel.advance(2000).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(3000));
+        assertEquals(List.of("b"), wheel.advance(5000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testRescheduleMovesDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("a", 2000);
+        wheel.schedule("a", 6000);
+
+        assertTrue(wheel.advance(4000).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(6000));
+    }
+
+    @Test
+    void testDeadlinesBeyondOneTurnWaitForTheirRound() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 4, 0);
+        wheel.schedule("a", 10000);
+
+        assertTrue(wheel.advance(3000).isEmpty());
+        assertTrue(wheel.advance(7000).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(10000));
+    }
+
+    @Test
+    void testCancelRemovesKey() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+        wheel.schedule("a", 2000);
+
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertTrue(wheel.advance(9000).isEmpty());
+    }
+}
@@ -0,0 +1,8 @@
+-- Deltas de presença publicados por cada nó (tessera.presence.mode=replicated)
+CREATE TABLE IF NOT EXISTS presence_events (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    node_id VARCHAR(64) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at DATETIME(6),
+    INDEX idx_presence_events_created (created_at)
+);
@@ -0,0 +1,10 @@
+-- Reserva de edição por documento. fencing_token só cresce: cada nova reserva recebe um valor
+-- maior que o da anterior, e gravações com token antigo são recusadas.
+CREATE TABLE IF NOT EXISTS document_edit_leases (
+    document_id BIGINT NOT NULL PRIMARY KEY,
+    owner_id BIGINT NOT NULL,
+    fencing_token BIGINT NOT NULL,
+    -- Epoch em milissegundos, sempre calculado pelo relógio do banco
+    expires_at BIGINT NOT NULL,
+    CONSTRAINT fk_edit_leases_document FOREIGN KEY (document_id) REFERENCES documents (id) ON DELETE CASCADE
+);
@@ -0,0 +1,7 @@
+-- Documentos com permissões alteradas, lidos pelos outros nós (tessera.acl.invalidation=database)
+CREATE TABLE IF NOT EXISTS acl_invalidations (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    document_id BIGINT NOT NULL,
+    created_at DATETIME(6),
+    INDEX idx_acl_invalidations_created (created_at)
+);
@@ -0,0 +1,18 @@
+-- Tokens JWT revogados antes do vencimento (logout), mantidos até o exp do token
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    jti VARCHAR(64) NOT NULL PRIMARY KEY,
+    user_id BIGINT,
+    -- Epoch em milissegundos
+    expires_at BIGINT NOT NULL,
+    revoked_at DATETIME(6),
+    INDEX idx_revoked_tokens_expires (expires_at)
+);
+
+-- Tokens de cada usuário emitidos antes de not_before são recusados (troca de senha, desativação);
+-- a linha vence junto com o último token que ela poderia recusar
+CREATE TABLE IF NOT EXISTS user_token_cutoffs (
+    user_id BIGINT NOT NULL PRIMARY KEY,
+    not_before BIGINT NOT NULL,
+    expires_at BIGINT NOT NULL,
+    INDEX idx_user_token_cutoffs_expires (expires_at)
+);
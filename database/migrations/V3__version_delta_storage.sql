@@ -0,0 +1,6 @@
+-- Versões armazenadas como delta não possuem conteúdo completo
+ALTER TABLE versions MODIFY content LONGTEXT NULL;
+ALTER TABLE versions ADD COLUMN IF NOT EXISTS keyframe BIT(1) NULL;
+ALTER TABLE versions ADD COLUMN IF NOT EXISTS base_version_id BIGINT NULL;
+ALTER TABLE versions ADD COLUMN IF NOT EXISTS chain_depth INT NULL;
+CREATE INDEX idx_versions_base_version ON versions (base_version_id);
@@ -0,0 +1,4 @@
+-- Conteúdo das versões passa a ser armazenado compactado (ver ContentCodec).
+-- Linhas existentes continuam legíveis como UTF-8 sem cabeçalho e são
+-- recompactadas pela migração de armazenamento de versões.
+ALTER TABLE versions MODIFY content LONGBLOB NULL;
@@ -0,0 +1,14 @@
+-- Conteúdo completo das versões passa a ser armazenado uma única vez por hash SHA-256.
+-- Versões com conteúdo inline são movidas para content_blobs pela migração de
+-- armazenamento de versões (POST /admin/maintenance/versions/compact).
+CREATE TABLE IF NOT EXISTS content_blobs (
+    hash CHAR(64) NOT NULL PRIMARY KEY,
+    data LONGBLOB NOT NULL,
+    content_length BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 0,
+    created_at DATETIME(6),
+    INDEX idx_content_blobs_ref_count (ref_count)
+);
+
+ALTER TABLE versions ADD COLUMN content_hash VARCHAR(64) NULL;
+CREATE INDEX idx_versions_content_hash ON versions (content_hash);
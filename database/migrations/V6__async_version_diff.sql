@@ -0,0 +1,6 @@
+-- Diff das novas versões passa a ser calculado após o commit da criação.
+-- Versões existentes já têm o diff calculado (status nulo equivale a READY).
+ALTER TABLE versions ADD COLUMN diff_status VARCHAR(20) NULL;
+ALTER TABLE versions ADD COLUMN chars_added INT NULL;
+ALTER TABLE versions ADD COLUMN chars_removed INT NULL;
+CREATE INDEX idx_versions_diff_status ON versions (diff_status, created_at);
@@ -0,0 +1,2 @@
+-- Paginação por cursor do histórico de versões: (document_id, created_at, id)
+CREATE INDEX idx_versions_document_created ON versions (document_id, created_at, id);
@@ -0,0 +1,19 @@
+-- Corpos das versões (conteúdo inline legado e delta) saem da tabela versions para
+-- version_contents, carregada sob demanda. Listagens de versões não leem mais LOBs.
+CREATE TABLE IF NOT EXISTS version_contents (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    content LONGBLOB NULL,
+    diff_from_previous LONGTEXT NULL
+);
+
+INSERT INTO version_contents (id, content, diff_from_previous)
+SELECT id, content, diff_from_previous FROM versions
+WHERE content IS NOT NULL OR diff_from_previous IS NOT NULL;
+
+ALTER TABLE versions ADD COLUMN content_id BIGINT NULL;
+UPDATE versions v JOIN version_contents c ON c.id = v.id SET v.content_id = c.id;
+ALTER TABLE versions ADD CONSTRAINT fk_versions_content FOREIGN KEY (content_id) REFERENCES version_contents (id);
+ALTER TABLE versions ADD CONSTRAINT uk_versions_content UNIQUE (content_id);
+
+ALTER TABLE versions DROP COLUMN content;
+ALTER TABLE versions DROP COLUMN diff_from_previous;
@@ -0,0 +1,24 @@
+-- Último número de versão emitido por documento, incrementado atomicamente ao criar versões.
+CREATE TABLE IF NOT EXISTS document_version_counters (
+    document_id BIGINT NOT NULL PRIMARY KEY,
+    major_number INT NOT NULL,
+    minor_number INT NOT NULL,
+    major_bump_pending BIT(1) NOT NULL DEFAULT 0,
+    CONSTRAINT fk_version_counters_document FOREIGN KEY (document_id) REFERENCES documents (id) ON DELETE CASCADE
+);
+
+-- Inicializa os contadores com o maior número de versão existente de cada documento
+INSERT INTO document_version_counters (document_id, major_number, minor_number, major_bump_pending)
+SELECT document_id,
+       MAX(CAST(SUBSTRING_INDEX(version_number, '.', 1) AS UNSIGNED)) AS major_number,
+       0, 0
+FROM versions
+GROUP BY document_id;
+
+UPDATE document_version_counters c
+SET c.minor_number = (
+    SELECT COALESCE(MAX(CAST(SUBSTRING_INDEX(v.version_number, '.', -1) AS UNSIGNED)), 0)
+    FROM versions v
+    WHERE v.document_id = c.document_id
+      AND CAST(SUBSTRING_INDEX(v.version_number, '.', 1) AS UNSIGNED) = c.major_number
+);
@@ -113,6 +113,8 @@ export interface Version {
   commitMessage: string;
   content: string;
   diffFromPrevious?: string;
+  baseVersionId?: number;
+  contentHash?: string;
   createdById: number;
   createdByName: string;
   createdAt: string;
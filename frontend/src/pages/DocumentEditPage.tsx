@@ -380,7 +380,10 @@ const DocumentEditPage: React.FC = () => {
     const unsubscribe = subscribe(`/topic/documents/${docId}/editors`, (editors: any) => {
       setActiveEditors(Array.isArray(editors) ? editors : []);
     });
+    // Mantém a presença ativa; o servidor expira editores sem heartbeat
+    const heartbeat = window.setInterval(() => sendMessage('/app/editing/heartbeat', payload), 10000);
     return () => {
+      window.clearInterval(heartbeat);
       sendMessage('/app/editing/leave', payload);
       if (unsubscribe) unsubscribe();
     };
@@ -440,6 +443,7 @@ const DocumentEditPage: React.FC = () => {
             await versionsApi.create({
               documentId: docIdToUse,
               content: currentEditorHTML, // Salva o HTML do Tiptap
+              baseVersionId: latestVersion?.id, // Permite ao servidor mesclar commits concorrentes
               commitMessage: commitMessage.trim() || (editorContentActuallyChanged ? 'Atualização de conteúdo' : 'Alterações nos metadados com mensagem de versão'),
             });
             versionCreated = true;